@@ -0,0 +1,1085 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/*
+ * This class benchmarks every operation of BinarySearchTree over a range of tree sizes
+ * and key distributions. For each combination it runs a number of warmup iterations,
+ * whose results are thrown away, followed by the measured iterations. Each iteration
+ * records the time taken per operation and, like JMH's gc profiler, the number of bytes
+ * allocated per operation. The results are printed as a table and written to a JSON file
+ * so they can be compared between runs.
+ *
+ * Like JMH, the benchmark runs every operation, for every distribution and size, in a JVM
+ * of its own, forked with the same class path and JVM options. Otherwise the code the JIT
+ * compiled for one operation, the call sites it made megamorphic and the garbage and heap
+ * size it left behind would all carry over into the operations measured after it, so that
+ * the result of an operation would depend on the ones listed before it.
+ *
+ * The benchmark is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.TreeBenchmark [options]
+ * where the options are:
+ * 		--sizes 1000,10000,...			tree sizes to benchmark
+ * 		--distributions random,...		key distributions to benchmark
+ * 		--operations contains,...		operations to benchmark
+ * 		--warmup N						warmup iterations per benchmark
+ * 		--iterations N					measured iterations per benchmark
+ * 		--unbalanced					benchmark trees that are not self-balancing, which
+ * 										degenerate into lists for sorted distributions
+ * 		--bulk-load						bulk load self-balancing trees into a perfectly balanced
+ * 										shape instead of adding the keys in distribution order
+ * 		--threads 1,4,...				thread counts the concurrent operations are run with
+ * 		--no-fork						run every operation in this JVM rather than forking one
+ * 										for each, which is faster but less accurate
+ * 		--output FILE					file the JSON results are written to
+ */
+public class TreeBenchmark {
+	// Tree sizes benchmarked by default, from 1K to 10M keys.
+	private static final int[] DEFAULT_SIZES = {1000, 10000, 100000, 1000000, 10000000};
+	// Key distributions benchmarked by default.
+	private static final String[] DISTRIBUTIONS = {"random", "ascending", "descending", "zigzag", "zipfian"};
+	// Operations benchmarked by default.
+	private static final String[] OPERATIONS = {"contains", "addNewNode", "removeNode", "getNodePredecessor",
+			"getNodeSuccessor", "getPreOrderSequence", "getInOrderSequence", "getPostOrderSequence", "fromUnsorted",
+			"containsAll", "addAll", "removeAll", "sum", "floor", "range", "rank", "select", "freeze",
+			"frozenContains", "frozenPredecessor", "frozenSuccessor", "longContains", "doubleContains",
+			"merge", "persistentMix", "durableUpdate", "union", "intersect", "churn", "lazyChurn", "btreeContains",
+			"btreePredecessor", "btreeAddNewNode", "btreeRemoveNode", "concurrentContains", "concurrentUpdate", "concurrentMix", "lockCouplingContains",
+			"lockCouplingUpdate", "lockCouplingMix", "footprint", "arrayFootprint"};
+	// Thread counts the concurrent operations are run with by default.
+	private static final int[] DEFAULT_THREAD_COUNTS = {1, 4, 16, 64};
+	// Number of lookups made by each iteration of a lookup benchmark.
+	private static final int LOOKUPS_PER_ITERATION = 1000000;
+	// Width of the key range scanned by each lookup of the range benchmark, covering 16 keys.
+	private static final int RANGE_WIDTH = 32;
+	// Number of mutations the durable tree of the durableUpdate operation logs between forces.
+	private static final int DURABLE_SYNC_WINDOW = 1024;
+	// Skew of the Zipfian distribution, the value used by YCSB.
+	private static final double ZIPFIAN_THETA = 0.99;
+	
+	// Thread bean used to read the number of bytes allocated by the benchmarking thread.
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	// Memory bean used to collect garbage and read the heap in use for the footprint operations.
+	private static final MemoryMXBean MEMORY_BEAN = ManagementFactory.getMemoryMXBean();
+	
+	// Tree sizes to benchmark.
+	private int[] sizes;
+	// Key distributions to benchmark.
+	private String[] distributions;
+	// Operations to benchmark.
+	private String[] operations;
+	// Number of warmup iterations per benchmark.
+	private int warmupIterations;
+	// Number of measured iterations per benchmark.
+	private int measuredIterations;
+	// True if the benchmarked trees keep themselves balanced, false otherwise.
+	private boolean selfBalancing;
+	// True if self-balancing trees are bulk loaded rather than built by adding the keys in order.
+	private boolean bulkLoad;
+	// Thread counts the concurrent operations are run with.
+	private int[] threadCounts;
+	// True if every operation is run in a forked JVM of its own, false if all run in this one.
+	private boolean fork;
+	// True if this JVM was forked to run one operation, so it prints no header or summary.
+	private boolean forkedChild;
+	// File the JSON results are written to.
+	private String outputFile;
+	// Results of every benchmark run so far, each as a JSON object.
+	private List<String> results;
+	// Tree holding every key shifted into the upper half of a long, for the longContains operation.
+	private LongBinarySearchTree longTree;
+	// Tree holding every key as a double, for the doubleContains operation.
+	private DoubleBinarySearchTree doubleTree;
+	// Map from every key to a count, for the merge operation.
+	private IntLongTreeMap map;
+	// Persistent tree holding every key, for the persistentMix operation.
+	private PersistentBinarySearchTree persistentTree;
+	// Tree sharing half of its values with the benchmarked tree, for the union and intersect operations.
+	private BinarySearchTree otherTree;
+	// Tree removing its values lazily, holding every key, for the lazyChurn operation.
+	private LazyBinarySearchTree lazyTree;
+	// B-tree holding every key, for the operations on a BTreeSearchTree.
+	private BTreeSearchTree bTree;
+	// Durable tree holding every key, for the durableUpdate operation.
+	private DurableBinarySearchTree durableTree;
+	// Temporary directory holding the snapshot and log of the durable tree.
+	private Path durableDirectory;
+	// Accumulates the results of benchmarked calls so that the JIT cannot remove them.
+	private long sink;
+	
+	// Constructor that sets up a benchmark with the default options.
+	public TreeBenchmark() {
+		sizes = DEFAULT_SIZES;
+		distributions = DISTRIBUTIONS;
+		operations = OPERATIONS;
+		warmupIterations = 3;
+		measuredIterations = 5;
+		selfBalancing = true;
+		bulkLoad = false;
+		threadCounts = DEFAULT_THREAD_COUNTS;
+		fork = true;
+		forkedChild = false;
+		outputFile = "benchmark-results.json";
+		results = new ArrayList<String>();
+		sink = 0;
+	}
+	
+	/*
+	 * Runs every combination of distribution, size and operation, each in a forked JVM unless
+	 * forking is turned off, printing each result as it is measured, and then writes all of
+	 * the results to the output file.
+	 */
+	public void run() throws IOException, InterruptedException {
+		int[] keys;
+		
+		if(!forkedChild)
+			System.out.printf("%-22s %-11s %10s %7s %14s %14s %14s%n", "operation", "distribution", "size",
+					"threads", "ns/op", "ns/op (min)", "bytes/op");
+		
+		for(String distribution : distributions) {
+			for(int size : sizes) {
+				if(fork) {
+					for(String operation : operations)
+						runForked(operation, distribution, size);
+				} else {
+					keys = generateKeys(distribution, size);
+					for(String operation : operations)
+						runInThisJvm(operation, distribution, keys);
+				}
+			}
+		}
+		
+		writeResults();
+		if(fork)
+			System.out.println("Results written to " + outputFile);
+		else if(!forkedChild)
+			System.out.println("Results written to " + outputFile + " (checksum " + sink + ")");
+	}
+	
+	/*
+	 * Runs one operation over a tree holding the given keys in this JVM, the concurrent and
+	 * lockCoupling operations once for every thread count.
+	 */
+	private void runInThisJvm(String operation, String distribution, int[] keys)
+			throws IOException, InterruptedException {
+		if(operation.startsWith("concurrent") || operation.startsWith("lockCoupling")) {
+			for(int threadCount : threadCounts)
+				runConcurrentBenchmark(operation, distribution, keys, threadCount);
+		} else if(operation.equals("footprint") || operation.equals("arrayFootprint")) {
+			runFootprintBenchmark(operation, distribution, keys);
+		} else {
+			runBenchmark(operation, distribution, keys);
+		}
+	}
+	
+	/*
+	 * Runs one operation for one distribution and size in a new JVM, started with the same
+	 * java executable, JVM options and class path as this one, and adds its results to the
+	 * results of this benchmark. The forked JVM prints its results straight to the output of
+	 * this one and writes them to a temporary file, which is read back once it has exited.
+	 */
+	private void runForked(String operation, String distribution, int size) throws IOException, InterruptedException {
+		Path resultFile = Files.createTempFile("tree-benchmark", ".json");
+		List<String> command = new ArrayList<String>();
+		int exitCode;
+		
+		try {
+			command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+			command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+			command.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path"),
+					TreeBenchmark.class.getName(), "--forked-child", "--sizes", String.valueOf(size), "--distributions",
+					distribution, "--operations", operation, "--warmup", String.valueOf(warmupIterations),
+					"--iterations", String.valueOf(measuredIterations), "--threads", joinIntegerList(threadCounts),
+					"--output", resultFile.toString()));
+			if(!selfBalancing)
+				command.add("--unbalanced");
+			if(bulkLoad)
+				command.add("--bulk-load");
+			
+			exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+			if(exitCode != 0)
+				throw new IllegalStateException("The forked JVM benchmarking " + operation + " over " + size + " "
+						+ distribution + " keys exited with code " + exitCode + ".");
+			
+			// Every result is written on a line of its own, followed by a comma unless it is the last.
+			for(String line : Files.readAllLines(resultFile, StandardCharsets.UTF_8)) {
+				if(line.startsWith("  {"))
+					results.add(line.endsWith(",") ? line.substring(0, line.length() - 1) : line);
+			}
+		} finally {
+			Files.deleteIfExists(resultFile);
+		}
+	}
+	
+	/*
+	 * Runs the warmup and measured iterations of one operation over a tree holding the
+	 * given keys, which are in the order of the given distribution, and records the result.
+	 */
+	private void runBenchmark(String operation, String distribution, int[] keys) throws IOException {
+		double[] nanosPerOperation = new double[measuredIterations];
+		double[] bytesPerOperation = new double[measuredIterations];
+		int[] queries = generateQueries(distribution, keys);
+		BinarySearchTree tree = buildTree(keys);
+		// Frozen copy of the tree for the operations on a FrozenBinarySearchTree, made outside of the measurement.
+		FrozenBinarySearchTree frozenTree = operation.startsWith("frozen") ? tree.freeze() : null;
+		long startTime;
+		long startBytes;
+		long operationCount;
+		Result result;
+		
+		longTree = operation.equals("longContains") ? buildLongTree(keys) : null;
+		doubleTree = operation.equals("doubleContains") ? buildDoubleTree(keys) : null;
+		map = operation.equals("merge") ? buildMap(keys) : null;
+		persistentTree = operation.equals("persistentMix") ? PersistentBinarySearchTree.fromUnsorted(keys) : null;
+		durableTree = operation.equals("durableUpdate") ? buildDurableTree(tree) : null;
+		lazyTree = operation.equals("lazyChurn") ? LazyBinarySearchTree.fromUnsorted(keys) : null;
+		bTree = operation.startsWith("btree") ? BTreeSearchTree.fromUnsorted(keys) : null;
+		otherTree = (operation.equals("union") || operation.equals("intersect")) ? buildOtherTree(keys) : null;
+		
+		for(int i = -warmupIterations; i < measuredIterations; i++) {
+			// Operations that modify the tree get a fresh one, built outside of the measurement.
+			if(operation.equals("removeNode") || operation.equals("removeAll"))
+				tree = buildTree(keys);
+			else if(operation.equals("btreeRemoveNode"))
+				bTree = BTreeSearchTree.fromUnsorted(keys);
+			
+			startBytes = THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+			startTime = System.nanoTime();
+			operationCount = runOperation(operation, tree, frozenTree, keys, queries);
+			
+			if(i >= 0) {
+				nanosPerOperation[i] = (System.nanoTime() - startTime) / (double) operationCount;
+				bytesPerOperation[i] = (THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId())
+						- startBytes) / (double) operationCount;
+			}
+		}
+		
+		if(durableTree != null)
+			deleteDurableTree();
+		
+		result = new Result(operation, distribution, keys.length, selfBalancing, 1, nanosPerOperation,
+				bytesPerOperation);
+		recordResult(result);
+	}
+	
+	/*
+	 * Measures how much heap a tree built out of the given keys takes up, and records the
+	 * result. The footprint operation measures a BinarySearchTree, built as buildTree builds
+	 * it, and the arrayFootprint operation an ArrayBinarySearchTree given room for exactly the
+	 * keys, so that the slack its arrays would leave after growing is not counted. Each
+	 * iteration builds a new tree and takes the heap in use after a garbage collection with
+	 * the tree held, less the heap in use after one before it was built. The bytes per
+	 * operation are the bytes per value, and the time per operation is the time taken to build
+	 * the tree per value. The heap has to be large enough for the tree, so 50M values need a
+	 * few gigabytes.
+	 */
+	private void runFootprintBenchmark(String operation, String distribution, int[] keys) {
+		double[] nanosPerOperation = new double[measuredIterations];
+		double[] bytesPerOperation = new double[measuredIterations];
+		Object tree;
+		long startHeap;
+		long startTime;
+		long buildTime;
+		
+		for(int i = -warmupIterations; i < measuredIterations; i++) {
+			// The tree of the previous iteration is dropped, so that the collection frees it.
+			tree = null;
+			startHeap = getUsedHeapAfterGc();
+			startTime = System.nanoTime();
+			
+			tree = operation.equals("arrayFootprint") ? buildArrayTree(keys) : buildTree(keys);
+			buildTime = System.nanoTime() - startTime;
+			
+			if(i >= 0) {
+				nanosPerOperation[i] = buildTime / (double) keys.length;
+				bytesPerOperation[i] = (getUsedHeapAfterGc() - startHeap) / (double) keys.length;
+			}
+			
+			// Keeps the tree reachable until the heap it takes up has been measured.
+			Reference.reachabilityFence(tree);
+		}
+		
+		recordResult(new Result(operation, distribution, keys.length, selfBalancing, 1, nanosPerOperation,
+				bytesPerOperation));
+	}
+	
+	// Returns the number of bytes of heap in use once garbage collections stop freeing any more.
+	private static long getUsedHeapAfterGc() {
+		long usedHeap = Long.MAX_VALUE;
+		long previousUsedHeap;
+		
+		do {
+			previousUsedHeap = usedHeap;
+			MEMORY_BEAN.gc();
+			usedHeap = MEMORY_BEAN.getHeapMemoryUsage().getUsed();
+		} while(usedHeap < previousUsedHeap);
+		
+		return usedHeap;
+	}
+	
+	/*
+	 * Runs the warmup and measured iterations of one operation on a thread-safe tree holding
+	 * the given keys, shared by the given number of threads, and records the result. The
+	 * concurrent operations run on a ConcurrentBinarySearchTree, whose wrapped tree is always
+	 * self-balancing as it requires, and the lockCoupling operations on a
+	 * LockCouplingBinarySearchTree. The queries are split evenly between the threads, so that
+	 * every iteration makes the same operations whatever the number of threads, and the time
+	 * per operation is the time the iteration takes divided by the operations of every thread,
+	 * the inverse of the throughput. The bytes per operation are those allocated by every thread.
+	 */
+	private void runConcurrentBenchmark(String operation, String distribution, int[] keys, int threadCount)
+			throws InterruptedException {
+		double[] nanosPerOperation = new double[measuredIterations];
+		double[] bytesPerOperation = new double[measuredIterations];
+		int[] queries = generateQueries(distribution, keys);
+		ConcurrentBinarySearchTree concurrentTree;
+		LockCouplingBinarySearchTree lockCouplingTree;
+		IntPredicate lookup;
+		IntConsumer insertion;
+		IntConsumer removal;
+		ConcurrentWorker[] workers = new ConcurrentWorker[threadCount];
+		CountDownLatch ready;
+		CountDownLatch start;
+		long startTime;
+		long elapsedTime;
+		long allocatedBytes;
+		
+		if(operation.startsWith("lockCoupling")) {
+			lockCouplingTree = buildLockCouplingTree(keys);
+			lookup = lockCouplingTree::contains;
+			insertion = lockCouplingTree::addNewNode;
+			removal = lockCouplingTree::removeNode;
+		} else {
+			concurrentTree = new ConcurrentBinarySearchTree(buildTree(keys, true));
+			lookup = concurrentTree::contains;
+			insertion = concurrentTree::addNewNode;
+			removal = concurrentTree::removeNode;
+		}
+		
+		for(int i = -warmupIterations; i < measuredIterations; i++) {
+			ready = new CountDownLatch(threadCount);
+			start = new CountDownLatch(1);
+			
+			for(int j = 0; j < threadCount; j++) {
+				workers[j] = new ConcurrentWorker(operation, lookup, insertion, removal, queries,
+						(int) ((long) queries.length * j / threadCount), (int) ((long) queries.length * (j + 1) / threadCount),
+						ready, start);
+				workers[j].start();
+			}
+			
+			// The clock starts once every thread is waiting, so that starting them is not measured.
+			ready.await();
+			startTime = System.nanoTime();
+			start.countDown();
+			
+			for(ConcurrentWorker worker : workers)
+				worker.join();
+			elapsedTime = System.nanoTime() - startTime;
+			
+			allocatedBytes = 0;
+			for(ConcurrentWorker worker : workers) {
+				sink += worker.getSum();
+				allocatedBytes += worker.getAllocatedBytes();
+			}
+			
+			if(i >= 0) {
+				nanosPerOperation[i] = elapsedTime / (double) queries.length;
+				bytesPerOperation[i] = allocatedBytes / (double) queries.length;
+			}
+		}
+		
+		recordResult(new Result(operation, distribution, keys.length, true, threadCount, nanosPerOperation,
+				bytesPerOperation));
+	}
+	
+	// Adds the given result to the results and prints it.
+	private void recordResult(Result result) {
+		results.add(result.toJson());
+		System.out.printf(Locale.ROOT, "%-22s %-11s %10d %7d %14.1f %14.1f %14.1f%n", result.operation,
+				result.distribution, result.size, result.threads, result.getMeanNanos(), result.getMinNanos(),
+				result.getMeanBytes());
+	}
+	
+	/*
+	 * Builds the tree an operation is benchmarked on by adding the given keys in order, so
+	 * that its shape is the one the distribution gives it. The rotations of a self-balancing
+	 * tree depend on the order its keys arrive in, so its shape does too, although its height
+	 * stays logarithmic. A tree that is not self-balancing takes quadratic time to build from
+	 * sorted keys. With --bulk-load, a self-balancing tree is instead bulk loaded into a
+	 * perfectly balanced shape, which is faster to build but the same for every distribution.
+	 */
+	private BinarySearchTree buildTree(int[] keys) {
+		return buildTree(keys, selfBalancing);
+	}
+	
+	// Builds a tree holding the given keys as buildTree(int[]) does, self-balancing or not as given.
+	private BinarySearchTree buildTree(int[] keys, boolean balanced) {
+		BinarySearchTree tree;
+		
+		if(balanced && bulkLoad)
+			return BinarySearchTree.fromUnsorted(keys, true);
+		
+		tree = new BinarySearchTree(balanced);
+		for(int key : keys)
+			tree.addNewNode(key);
+		
+		return tree;
+	}
+	
+	// Builds a tree of long values out of the given keys, each shifted into the upper half of a long.
+	private LongBinarySearchTree buildLongTree(int[] keys) {
+		LongBinarySearchTree longKeyTree = new LongBinarySearchTree(selfBalancing);
+		
+		for(int key : keys)
+			longKeyTree.addNewNode((long) key << 32);
+		
+		return longKeyTree;
+	}
+	
+	// Builds an array-based tree out of the given keys, added in order, with room for exactly that many.
+	private ArrayBinarySearchTree buildArrayTree(int[] keys) {
+		ArrayBinarySearchTree arrayTree = new ArrayBinarySearchTree(Math.max(keys.length, 1), selfBalancing);
+		
+		for(int key : keys)
+			arrayTree.addNewNode(key);
+		
+		return arrayTree;
+	}
+	
+	// Builds a tree of double values out of the given keys.
+	private DoubleBinarySearchTree buildDoubleTree(int[] keys) {
+		DoubleBinarySearchTree doubleKeyTree = new DoubleBinarySearchTree(selfBalancing);
+		
+		for(int key : keys)
+			doubleKeyTree.addNewNode(key);
+		
+		return doubleKeyTree;
+	}
+	
+	/*
+	 * Builds a lock coupling tree out of the given keys, added in a random order. The tree
+	 * does not rebalance itself, so keys added in sorted order would leave it a list, every
+	 * operation would walk and lock a linear number of nodes, and building it would take
+	 * quadratic time. Only its shape is random, since the queries still follow the distribution.
+	 */
+	private static LockCouplingBinarySearchTree buildLockCouplingTree(int[] keys) {
+		LockCouplingBinarySearchTree tree = new LockCouplingBinarySearchTree();
+		int[] shuffledKeys = keys.clone();
+		
+		shuffle(shuffledKeys, new Random(keys.length + 2));
+		for(int key : shuffledKeys)
+			tree.addNewNode(key);
+		
+		return tree;
+	}
+	
+	// Builds a map from each of the given keys to a count of zero.
+	private IntLongTreeMap buildMap(int[] keys) {
+		IntLongTreeMap keyMap = new IntLongTreeMap(selfBalancing);
+		
+		for(int key : keys)
+			keyMap.put(key, 0);
+		
+		return keyMap;
+	}
+	
+	/*
+	 * Builds a tree holding every other one of the given keys, and the successor of each of
+	 * the rest, so that it shares about half of its values with a tree of the keys.
+	 */
+	private BinarySearchTree buildOtherTree(int[] keys) {
+		int[] otherKeys = new int[keys.length];
+		
+		for(int i = 0; i < keys.length; i++)
+			otherKeys[i] = (i % 2 == 0) ? keys[i] : keys[i] + 1;
+		
+		return BinarySearchTree.fromUnsorted(otherKeys, selfBalancing);
+	}
+	
+	/*
+	 * Builds a durable tree holding the keys of the given tree in a new temporary directory,
+	 * opened from a snapshot of the tree so that no key needs to be logged.
+	 */
+	private DurableBinarySearchTree buildDurableTree(BinarySearchTree tree) throws IOException {
+		durableDirectory = Files.createTempDirectory("tree-benchmark");
+		tree.saveSnapshot(durableDirectory.resolve("tree.snapshot"));
+		
+		return DurableBinarySearchTree.open(durableDirectory.resolve("tree.snapshot"),
+				durableDirectory.resolve("tree.log"), SyncPolicy.SIZE_WINDOW, DURABLE_SYNC_WINDOW);
+	}
+	
+	// Closes the durable tree and deletes its snapshot, log and directory.
+	private void deleteDurableTree() throws IOException {
+		durableTree.close();
+		durableTree = null;
+		Files.delete(durableDirectory.resolve("tree.snapshot"));
+		Files.delete(durableDirectory.resolve("tree.log"));
+		Files.delete(durableDirectory);
+	}
+	
+	/*
+	 * Runs one iteration of the given operation and returns the number of operations it
+	 * made. Lookups are made for every query, insertions build a new tree out of every key
+	 * and removals empty the given tree, in the order of the keys. The batch operations do
+	 * the same with a single call, addAll starting from a tree that is not empty so that it
+	 * is not simply a bulk load. The floor lookups are made for the odd number below every
+	 * query, which is never in the tree. The frozen lookups are made on the given frozen copy
+	 * of the tree, which is null for every other operation. The long and double lookups
+	 * are made on the trees of long and double keys built for them, and the merges count
+	 * the queries in the map built for them. The persistent mix makes a contains lookup for
+	 * nine out of every ten queries, and for every tenth alternately removes the query from
+	 * the persistent tree and adds back the query it last removed, so the tree stays the
+	 * same size and every update copies a path. The durable updates alternately remove a
+	 * query from the durable tree and add it back, logging every one of them and forcing
+	 * the log once every DURABLE_SYNC_WINDOW of them. The union and intersection of the tree
+	 * with the other tree built for them count as one operation per value of either tree.
+	 * The churns remove every query and add each one back a quarter of the tree's size of
+	 * queries later, so a quarter of the keys are out of the tree at any time and half of
+	 * the operations are removals. The lazy churn is made on the tree built for it. The
+	 * B-tree operations are those of the same name on the B-tree built for them, except that
+	 * btreeAddNewNode builds a new B-tree, as addNewNode builds a new tree.
+	 */
+	private long runOperation(String operation, BinarySearchTree tree, FrozenBinarySearchTree frozenTree, int[] keys,
+			int[] queries) throws IOException {
+		BinarySearchTree newTree;
+		BTreeSearchTree newBTree;
+		PrimitiveIterator.OfInt iterator;
+		int removedKey = 0;
+		int lag;
+		
+		switch(operation) {
+		case "contains":
+			for(int query : queries)
+				sink += tree.contains(query) ? 1 : 0;
+			return queries.length;
+		case "getNodePredecessor":
+			for(int query : queries)
+				sink += tree.getNodePredecessor(query);
+			return queries.length;
+		case "getNodeSuccessor":
+			for(int query : queries)
+				sink += tree.getNodeSuccessor(query);
+			return queries.length;
+		case "addNewNode":
+			newTree = new BinarySearchTree(selfBalancing);
+			for(int key : keys)
+				newTree.addNewNode(key);
+			sink += newTree.isEmpty() ? 0 : 1;
+			return keys.length;
+		case "removeNode":
+			for(int key : keys)
+				tree.removeNode(key);
+			sink += tree.isEmpty() ? 1 : 0;
+			return keys.length;
+		case "getPreOrderSequence":
+			sink += tree.getPreOrderSequence().length();
+			return 1;
+		case "getInOrderSequence":
+			sink += tree.getInOrderSequence().length();
+			return 1;
+		case "getPostOrderSequence":
+			sink += tree.getPostOrderSequence().length();
+			return 1;
+		case "fromUnsorted":
+			sink += BinarySearchTree.fromUnsorted(keys, selfBalancing).isEmpty() ? 0 : 1;
+			return keys.length;
+		case "containsAll":
+			sink += tree.containsAll(queries).cardinality();
+			return queries.length;
+		case "addAll":
+			newTree = new BinarySearchTree(selfBalancing);
+			newTree.addNewNode(keys[0]);
+			newTree.addAll(keys);
+			sink += newTree.isEmpty() ? 0 : 1;
+			return keys.length;
+		case "removeAll":
+			tree.removeAll(keys);
+			sink += tree.isEmpty() ? 1 : 0;
+			return keys.length;
+		case "sum":
+			sink += tree.sum();
+			return keys.length;
+		case "floor":
+			for(int query : queries)
+				sink += tree.floor(query - 1).orElse(0);
+			return queries.length;
+		case "range":
+			for(int query : queries) {
+				iterator = tree.range(query, query + RANGE_WIDTH - 1);
+				while(iterator.hasNext())
+					sink += iterator.nextInt();
+			}
+			return queries.length;
+		case "rank":
+			for(int query : queries)
+				sink += tree.rank(query);
+			return queries.length;
+		case "select":
+			// Every query key is twice its index in the tree, plus two.
+			for(int query : queries)
+				sink += tree.select(query / 2 - 1);
+			return queries.length;
+		case "freeze":
+			sink += tree.freeze().size();
+			return keys.length;
+		case "frozenContains":
+			for(int query : queries)
+				sink += frozenTree.contains(query) ? 1 : 0;
+			return queries.length;
+		case "frozenPredecessor":
+			for(int query : queries)
+				sink += frozenTree.getNodePredecessor(query);
+			return queries.length;
+		case "frozenSuccessor":
+			for(int query : queries)
+				sink += frozenTree.getNodeSuccessor(query);
+			return queries.length;
+		case "longContains":
+			for(int query : queries)
+				sink += longTree.contains((long) query << 32) ? 1 : 0;
+			return queries.length;
+		case "doubleContains":
+			for(int query : queries)
+				sink += doubleTree.contains(query) ? 1 : 0;
+			return queries.length;
+		case "merge":
+			for(int query : queries)
+				sink += map.merge(query, 1, Long::sum);
+			return queries.length;
+		case "persistentMix":
+			for(int i = 0; i < queries.length; i++) {
+				if(i % 10 != 0)
+					sink += persistentTree.contains(queries[i]) ? 1 : 0;
+				else if(i % 20 == 0) {
+					removedKey = queries[i];
+					persistentTree.removeNode(removedKey);
+				} else
+					persistentTree.addNewNode(removedKey);
+			}
+			persistentTree.addNewNode(removedKey);
+			return queries.length;
+		case "union":
+			sink += tree.union(otherTree).size();
+			return tree.size() + otherTree.size();
+		case "intersect":
+			sink += tree.intersect(otherTree).size();
+			return tree.size() + otherTree.size();
+		case "churn":
+			lag = Math.max(1, keys.length / 4);
+			for(int i = 0; i < queries.length + lag; i++) {
+				if(i < queries.length)
+					tree.removeNode(queries[i]);
+				if(i >= lag)
+					tree.addNewNode(queries[i - lag]);
+			}
+			return 2 * queries.length;
+		case "lazyChurn":
+			lag = Math.max(1, keys.length / 4);
+			for(int i = 0; i < queries.length + lag; i++) {
+				if(i < queries.length)
+					lazyTree.removeNode(queries[i]);
+				if(i >= lag)
+					lazyTree.addNewNode(queries[i - lag]);
+			}
+			return 2 * queries.length;
+		case "btreeContains":
+			for(int query : queries)
+				sink += bTree.contains(query) ? 1 : 0;
+			return queries.length;
+		case "btreePredecessor":
+			for(int query : queries)
+				sink += bTree.getNodePredecessor(query);
+			return queries.length;
+		case "btreeAddNewNode":
+			newBTree = new BTreeSearchTree();
+			for(int key : keys)
+				newBTree.addNewNode(key);
+			sink += newBTree.isEmpty() ? 0 : 1;
+			return keys.length;
+		case "btreeRemoveNode":
+			for(int key : keys)
+				bTree.removeNode(key);
+			sink += bTree.isEmpty() ? 1 : 0;
+			return keys.length;
+		case "durableUpdate":
+			for(int i = 0; i < queries.length; i++) {
+				if(i % 2 == 0)
+					durableTree.removeNode(queries[i]);
+				else
+					durableTree.addNewNode(queries[i - 1]);
+			}
+			durableTree.addNewNode(queries[queries.length - 1]);
+			return queries.length;
+		default:
+			throw new IllegalArgumentException("Unknown operation: " + operation);
+		}
+	}
+	
+	/*
+	 * Returns the given number of distinct, nonzero keys in the order of the given
+	 * distribution. The keys are the even numbers from 2 to 2 * size, so that the odd
+	 * numbers between them are never in the tree.
+	 *
+	 * 		random		a random permutation of the keys
+	 * 		ascending	the keys in ascending order
+	 * 		descending	the keys in descending order
+	 * 		zigzag		the smallest key, the largest, the second smallest, and so on
+	 * 		zipfian		a random permutation of the keys, with lookups skewed towards
+	 * 					the keys at its start
+	 */
+	private static int[] generateKeys(String distribution, int size) {
+		int[] keys = new int[size];
+		Random random = new Random(size);
+		
+		switch(distribution) {
+		case "random":
+		case "zipfian":
+			for(int i = 0; i < size; i++)
+				keys[i] = 2 * (i + 1);
+			shuffle(keys, random);
+			break;
+		case "ascending":
+			for(int i = 0; i < size; i++)
+				keys[i] = 2 * (i + 1);
+			break;
+		case "descending":
+			for(int i = 0; i < size; i++)
+				keys[i] = 2 * (size - i);
+			break;
+		case "zigzag":
+			for(int i = 0; i < size; i++)
+				keys[i] = (i % 2 == 0) ? 2 * (i / 2 + 1) : 2 * (size - i / 2);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown distribution: " + distribution);
+		}
+		
+		return keys;
+	}
+	
+	/*
+	 * Returns the keys looked up by each iteration of a lookup benchmark. For the Zipfian
+	 * distribution they are drawn with a Zipfian skew over the keys, otherwise the keys are
+	 * looked up in the order they were generated in, repeated as many times as needed.
+	 */
+	private static int[] generateQueries(String distribution, int[] keys) {
+		int[] queries = new int[LOOKUPS_PER_ITERATION];
+		Random random = new Random(keys.length + 1);
+		double zeta;
+		double alpha;
+		double eta;
+		double uniform;
+		double scaled;
+		int rank;
+		
+		if(!distribution.equals("zipfian")) {
+			for(int i = 0; i < queries.length; i++)
+				queries[i] = keys[i % keys.length];
+			return queries;
+		}
+		
+		// Zipfian generator of Gray et al., as used by YCSB.
+		zeta = zeta(keys.length, ZIPFIAN_THETA);
+		alpha = 1.0 / (1.0 - ZIPFIAN_THETA);
+		eta = (1 - Math.pow(2.0 / keys.length, 1 - ZIPFIAN_THETA)) / (1 - zeta(2, ZIPFIAN_THETA) / zeta);
+		
+		for(int i = 0; i < queries.length; i++) {
+			// The same uniform draw picks the head rank or, failing that, the tail rank.
+			uniform = random.nextDouble();
+			scaled = uniform * zeta;
+			
+			if(scaled < 1.0)
+				rank = 0;
+			else if(scaled < 1.0 + Math.pow(0.5, ZIPFIAN_THETA))
+				rank = 1;
+			else
+				rank = (int) (keys.length * Math.pow(eta * uniform - eta + 1, alpha));
+			
+			queries[i] = keys[Math.min(rank, keys.length - 1)];
+		}
+		
+		return queries;
+	}
+	
+	// Returns the sum of 1 / i^theta for i from 1 to n.
+	private static double zeta(int n, double theta) {
+		double sum = 0;
+		
+		for(int i = 1; i <= n; i++)
+			sum += 1 / Math.pow(i, theta);
+		
+		return sum;
+	}
+	
+	// Shuffles the given array into a random order using the given random number generator.
+	private static void shuffle(int[] values, Random random) {
+		int swapIndex;
+		int temporary;
+		
+		for(int i = values.length - 1; i > 0; i--) {
+			swapIndex = random.nextInt(i + 1);
+			temporary = values[i];
+			values[i] = values[swapIndex];
+			values[swapIndex] = temporary;
+		}
+	}
+	
+	// Writes the results of every benchmark to the output file as a JSON array.
+	private void writeResults() throws IOException {
+		try(BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputFile), StandardCharsets.UTF_8)) {
+			writer.write("[\n");
+			
+			for(int i = 0; i < results.size(); i++) {
+				writer.write(results.get(i));
+				writer.write((i < results.size() - 1) ? ",\n" : "\n");
+			}
+			
+			writer.write("]\n");
+		}
+	}
+	
+	// Splits a comma separated list of integers into an array.
+	private static int[] parseIntegerList(String list) {
+		return Arrays.stream(list.split(",")).mapToInt(Integer::parseInt).toArray();
+	}
+	
+	// Joins an array of integers into a comma separated list, the inverse of parseIntegerList.
+	private static String joinIntegerList(int[] values) {
+		return Arrays.stream(values).mapToObj(String::valueOf).collect(Collectors.joining(","));
+	}
+	
+	/*
+	 * Main method for the benchmark. Reads the options from the command line, as listed
+	 * in the description of this class, and runs the benchmark.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		TreeBenchmark benchmark = new TreeBenchmark();
+		
+		for(int i = 0; i < args.length; i++) {
+			switch(args[i]) {
+			case "--sizes":
+				benchmark.sizes = parseIntegerList(args[++i]);
+				break;
+			case "--distributions":
+				benchmark.distributions = args[++i].split(",");
+				break;
+			case "--operations":
+				benchmark.operations = args[++i].split(",");
+				break;
+			case "--warmup":
+				benchmark.warmupIterations = Integer.parseInt(args[++i]);
+				break;
+			case "--iterations":
+				benchmark.measuredIterations = Integer.parseInt(args[++i]);
+				break;
+			case "--unbalanced":
+				benchmark.selfBalancing = false;
+				break;
+			case "--bulk-load":
+				benchmark.bulkLoad = true;
+				break;
+			case "--threads":
+				benchmark.threadCounts = parseIntegerList(args[++i]);
+				break;
+			case "--no-fork":
+				benchmark.fork = false;
+				break;
+			case "--forked-child":
+				// Passed only by runForked, to the JVM it forks.
+				benchmark.fork = false;
+				benchmark.forkedChild = true;
+				break;
+			case "--output":
+				benchmark.outputFile = args[++i];
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		
+		benchmark.run();
+	}
+	
+	/*
+	 * This class makes the operations of one thread of a concurrent benchmark, on the
+	 * queries between the given indexes, through the contains, addNewNode and removeNode
+	 * methods of the shared tree. The Contains operations look every query up. The Update
+	 * operations alternately remove a query and add back the query they last removed. The
+	 * Mix operations make a contains lookup for nine out of every ten queries, as
+	 * persistentMix does, and update the tree that way on every tenth. An operation that
+	 * updates the tree adds its last removed query back once more at the end, so that the
+	 * tree holds the same keys after every iteration.
+	 */
+	private static class ConcurrentWorker extends Thread {
+		// Operation this thread makes.
+		private String operation;
+		// Looks a value up in the tree shared by every thread.
+		private IntPredicate lookup;
+		// Adds a value to the tree shared by every thread.
+		private IntConsumer insertion;
+		// Removes a value from the tree shared by every thread.
+		private IntConsumer removal;
+		// Queries of every thread.
+		private int[] queries;
+		// Index of the first query of this thread.
+		private int from;
+		// Index just after the last query of this thread.
+		private int to;
+		// Latch this thread counts down once it is ready to start.
+		private CountDownLatch ready;
+		// Latch released when every thread is to start.
+		private CountDownLatch start;
+		// Accumulates the results of the calls of this thread so that the JIT cannot remove them.
+		private long sum;
+		// Number of bytes this thread allocated while making its operations.
+		private long allocatedBytes;
+		
+		// Constructor that creates a thread making the given operation on the queries from one index to another.
+		ConcurrentWorker(String operation, IntPredicate lookup, IntConsumer insertion, IntConsumer removal,
+				int[] queries, int from, int to, CountDownLatch ready, CountDownLatch start) {
+			this.operation = operation;
+			this.lookup = lookup;
+			this.insertion = insertion;
+			this.removal = removal;
+			this.queries = queries;
+			this.from = from;
+			this.to = to;
+			this.ready = ready;
+			this.start = start;
+		}
+		
+		// Waits for every thread to be ready, then makes the operations of this thread.
+		@Override
+		public void run() {
+			long startBytes;
+			int removedKey = 0;
+			
+			ready.countDown();
+			try {
+				start.await();
+			} catch(InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			
+			startBytes = THREAD_BEAN.getThreadAllocatedBytes(getId());
+			
+			if(operation.endsWith("Contains")) {
+				for(int i = from; i < to; i++)
+					sum += lookup.test(queries[i]) ? 1 : 0;
+			} else if(operation.endsWith("Update")) {
+				for(int i = from; i < to; i++) {
+					if((i - from) % 2 == 0) {
+						removedKey = queries[i];
+						removal.accept(removedKey);
+					} else
+						insertion.accept(removedKey);
+				}
+				if(to > from)
+					insertion.accept(removedKey);
+			} else if(operation.endsWith("Mix")) {
+				for(int i = from; i < to; i++) {
+					if((i - from) % 10 != 0)
+						sum += lookup.test(queries[i]) ? 1 : 0;
+					else if((i - from) % 20 == 0) {
+						removedKey = queries[i];
+						removal.accept(removedKey);
+					} else
+						insertion.accept(removedKey);
+				}
+				if(to > from)
+					insertion.accept(removedKey);
+			} else
+				throw new IllegalArgumentException("Unknown operation: " + operation);
+			
+			allocatedBytes = THREAD_BEAN.getThreadAllocatedBytes(getId()) - startBytes;
+		}
+		
+		// Returns the accumulated results of the calls of this thread.
+		long getSum() {
+			return sum;
+		}
+		
+		// Returns the number of bytes this thread allocated while making its operations.
+		long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+	
+	/*
+	 * This class holds the measurements of a single benchmark, being one operation over
+	 * one distribution and size with one number of threads.
+	 */
+	private static class Result {
+		private String operation;
+		private String distribution;
+		private int size;
+		private boolean selfBalancing;
+		private int threads;
+		private double[] nanosPerOperation;
+		private double[] bytesPerOperation;
+		
+		// Constructor that creates a result out of the measurements of every measured iteration.
+		Result(String operation, String distribution, int size, boolean selfBalancing, int threads,
+				double[] nanosPerOperation, double[] bytesPerOperation) {
+			this.operation = operation;
+			this.distribution = distribution;
+			this.size = size;
+			this.selfBalancing = selfBalancing;
+			this.threads = threads;
+			this.nanosPerOperation = nanosPerOperation;
+			this.bytesPerOperation = bytesPerOperation;
+		}
+		
+		// Returns the mean time per operation over the measured iterations.
+		double getMeanNanos() {
+			return Arrays.stream(nanosPerOperation).average().orElse(0);
+		}
+		
+		// Returns the lowest time per operation of any measured iteration.
+		double getMinNanos() {
+			return Arrays.stream(nanosPerOperation).min().orElse(0);
+		}
+		
+		// Returns the mean number of bytes allocated per operation over the measured iterations.
+		double getMeanBytes() {
+			return Arrays.stream(bytesPerOperation).average().orElse(0);
+		}
+		
+		// Returns this result as a JSON object.
+		String toJson() {
+			StringBuilder json = new StringBuilder();
+			
+			json.append("  {\"operation\": \"").append(operation).append('"');
+			json.append(", \"distribution\": \"").append(distribution).append('"');
+			json.append(", \"size\": ").append(size);
+			json.append(", \"selfBalancing\": ").append(selfBalancing);
+			json.append(", \"threads\": ").append(threads);
+			json.append(", \"nsPerOp\": ").append(String.format(Locale.ROOT, "%.3f", getMeanNanos()));
+			json.append(", \"nsPerOpMin\": ").append(String.format(Locale.ROOT, "%.3f", getMinNanos()));
+			json.append(", \"bytesPerOp\": ").append(String.format(Locale.ROOT, "%.3f", getMeanBytes()));
+			json.append(", \"nsPerOpIterations\": ").append(Arrays.toString(nanosPerOperation));
+			json.append('}');
+			
+			return json.toString();
+		}
+	}
+}
@@ -0,0 +1,612 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is an alternative implementation of the binary search tree data structure
+ * that offers the same operations as BinarySearchTree, but does not create a TreeNode
+ * object for every value. Instead every node is a slot, an index into the parallel
+ * arrays data, leftChild and rightChild, so the whole tree lives in a handful of large
+ * arrays. Slot zero is never used and stands for a missing child, the same way null
+ * does for a TreeNode. Slots freed by removeNode are kept on a free list, linked
+ * through their leftChild entries, and are reused by later insertions before the
+ * arrays are grown.
+ *
+ * Each node costs 12 bytes of array space (13 when self-balancing, for its height),
+ * against the 32 bytes of a TreeNode object plus the reference to it, and the garbage
+ * collector only ever sees the arrays themselves. The footprint and arrayFootprint
+ * operations of TreeBenchmark measure the heap each tree takes up after a collection:
+ * 32 and 13 bytes per value for self-balancing trees of 1M, 10M and 50M random values.
+ */
+public class ArrayBinarySearchTree {
+	// Slot that stands for a missing node.
+	private static final int NO_NODE = 0;
+	// Number of slots allocated by the default constructor.
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	// Data held by the node in each slot.
+	private int[] data;
+	// Slot of the left child of each node, or of the next free slot for a slot on the free list.
+	private int[] leftChild;
+	// Slot of the right child of each node.
+	private int[] rightChild;
+	// Height of the subtree rooted at each node, only kept when self-balancing.
+	private byte[] height;
+	// Slot of the root node of this tree.
+	private int rootNode;
+	// First slot on the free list, NO_NODE if the free list is empty.
+	private int freeSlot;
+	// Lowest slot that has never been used.
+	private int nextUnusedSlot;
+	// True if this tree rebalances itself after every insertion and removal, false otherwise.
+	private boolean selfBalancing;
+	// Slots walked by the current insertion or removal, used only when self-balancing.
+	private int[] searchPath;
+	
+	// Default constructor, creating an empty binary search tree.
+	public ArrayBinarySearchTree() {
+		this(DEFAULT_CAPACITY, false);
+	}
+	
+	/*
+	 * Constructor that creates an empty binary search tree with room for the given number
+	 * of nodes before its arrays need to grow. The tree will keep itself balanced if
+	 * selfBalancing is true.
+	 */
+	public ArrayBinarySearchTree(int initialCapacity, boolean selfBalancing) {
+		if(initialCapacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive.");
+		
+		// One extra slot for NO_NODE.
+		data = new int[initialCapacity + 1];
+		leftChild = new int[initialCapacity + 1];
+		rightChild = new int[initialCapacity + 1];
+		height = selfBalancing ? new byte[initialCapacity + 1] : null;
+		rootNode = NO_NODE;
+		freeSlot = NO_NODE;
+		nextUnusedSlot = 1;
+		this.selfBalancing = selfBalancing;
+		searchPath = new int[32];
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		int target = rootNode;
+		int targetData;
+		
+		while(target != NO_NODE) {
+			targetData = data[target];
+			
+			if(searchValue == targetData)
+				return true;
+			
+			if(searchValue > targetData)
+				target = rightChild[target];
+			else
+				target = leftChild[target];
+		}
+		
+		return false;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return rootNode == NO_NODE;
+	}
+	
+	// Returns true if this tree keeps itself balanced, false otherwise.
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	/*
+	 * Returns the number of nodes this tree can hold before its arrays need to grow,
+	 * including the nodes it already holds.
+	 */
+	public int getCapacity() {
+		return data.length - 1;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be
+	 * any integer, zero included. If a node containing the given data already
+	 * exists within this tree, then the tree is left unaffected.
+	 */
+	public void addNewNode(int nodeData) {
+		int target = rootNode;
+		int parent = NO_NODE;
+		int newNode;
+		int pathLength = 0;
+		
+		while(target != NO_NODE) {
+			// Data already exists in the tree, no duplicates allowed.
+			if(nodeData == data[target])
+				return;
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(nodeData > data[target])
+				target = rightChild[target];
+			else
+				target = leftChild[target];
+		}
+		
+		newNode = allocateSlot(nodeData);
+		
+		if(parent == NO_NODE)
+			rootNode = newNode;
+		else if(nodeData > data[parent])
+			rightChild[parent] = newNode;
+		else
+			leftChild[parent] = newNode;
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists.
+	 * An empty tree or a tree that does not contain the given nodeData is
+	 * left unaffected. As in BinarySearchTree, a node with two children takes
+	 * the data of the rightmost child in its left subtree, and that child's slot
+	 * is freed instead.
+	 */
+	public void removeNode(int nodeData) {
+		int target = rootNode;
+		int parent = NO_NODE;
+		int rightMostParent;
+		int rightMostChild;
+		int pathLength = 0;
+		
+		// Find the target node along with its parent.
+		while(target != NO_NODE && nodeData != data[target]) {
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(nodeData > data[target])
+				target = rightChild[target];
+			else
+				target = leftChild[target];
+		}
+		
+		// nodeData does not exist within the tree.
+		if(target == NO_NODE)
+			return;
+		
+		if(leftChild[target] != NO_NODE && rightChild[target] != NO_NODE) {
+			rightMostParent = target;
+			rightMostChild = leftChild[target];
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			while(rightChild[rightMostChild] != NO_NODE) {
+				if(selfBalancing)
+					pathLength = pushPath(pathLength, rightMostChild);
+				
+				rightMostParent = rightMostChild;
+				rightMostChild = rightChild[rightMostChild];
+			}
+			
+			data[target] = data[rightMostChild];
+			
+			if(rightMostParent == target)
+				leftChild[target] = leftChild[rightMostChild];
+			else
+				rightChild[rightMostParent] = leftChild[rightMostChild];
+			
+			freeSlot(rightMostChild);
+		} else {
+			if(leftChild[target] != NO_NODE)
+				replaceChild(parent, target, leftChild[target]);
+			else
+				replaceChild(parent, target, rightChild[target]);
+			
+			freeSlot(target);
+		}
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Takes a slot off the free list, or the next unused slot if the free list is empty,
+	 * growing the arrays if every slot is in use. The slot is set up as a leaf holding
+	 * the given data and is then returned.
+	 */
+	private int allocateSlot(int nodeData) {
+		int slot;
+		
+		if(freeSlot != NO_NODE) {
+			slot = freeSlot;
+			freeSlot = leftChild[slot];
+		} else {
+			if(nextUnusedSlot == data.length)
+				grow();
+			slot = nextUnusedSlot++;
+		}
+		
+		data[slot] = nodeData;
+		leftChild[slot] = NO_NODE;
+		rightChild[slot] = NO_NODE;
+		
+		if(selfBalancing)
+			height[slot] = 1;
+		
+		return slot;
+	}
+	
+	// Puts the given slot back on the free list.
+	private void freeSlot(int slot) {
+		leftChild[slot] = freeSlot;
+		rightChild[slot] = NO_NODE;
+		freeSlot = slot;
+	}
+	
+	/*
+	 * Grows every array by half of its current length. An IllegalStateException is thrown
+	 * if the arrays are already as long as an array can be.
+	 */
+	private void grow() {
+		int newLength;
+		
+		if(data.length == Integer.MAX_VALUE - 8)
+			throw new IllegalStateException("This tree cannot hold any more nodes.");
+		
+		newLength = (int) Math.min((long) data.length + (data.length >> 1) + 1, Integer.MAX_VALUE - 8);
+		data = Arrays.copyOf(data, newLength);
+		leftChild = Arrays.copyOf(leftChild, newLength);
+		rightChild = Arrays.copyOf(rightChild, newLength);
+		
+		if(selfBalancing)
+			height = Arrays.copyOf(height, newLength);
+	}
+	
+	/*
+	 * Makes newChild take the place of oldChild underneath the given parent. A parent
+	 * of NO_NODE means oldChild is the root node of this tree.
+	 */
+	private void replaceChild(int parent, int oldChild, int newChild) {
+		if(parent == NO_NODE)
+			rootNode = newChild;
+		else if(leftChild[parent] == oldChild)
+			leftChild[parent] = newChild;
+		else
+			rightChild[parent] = newChild;
+	}
+	
+	/*
+	 * Pushes the given slot onto searchPath, which currently holds pathLength slots,
+	 * growing it if needed. The new length of the path is returned.
+	 */
+	private int pushPath(int pathLength, int slot) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
+		
+		searchPath[pathLength] = slot;
+		
+		return pathLength + 1;
+	}
+	
+	/*
+	 * Rebalances the first pathLength slots of searchPath, from the deepest node back up
+	 * to the root of this tree, stopping early once a subtree keeps both its root and its
+	 * height.
+	 */
+	private void rebalancePath(int pathLength) {
+		int node;
+		int balancedNode;
+		int oldHeight;
+		
+		for(int i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			oldHeight = height[node];
+			balancedNode = rebalance(node);
+			
+			if(balancedNode != node)
+				replaceChild((i > 0) ? searchPath[i - 1] : NO_NODE, node, balancedNode);
+			
+			if(height[balancedNode] == oldHeight)
+				break;
+		}
+	}
+	
+	// Returns the height of the subtree rooted at the given slot, zero for NO_NODE.
+	private int heightOf(int slot) {
+		return (slot == NO_NODE) ? 0 : height[slot];
+	}
+	
+	// Recalculates the height of the given slot from the heights of its children.
+	private void updateHeight(int slot) {
+		height[slot] = (byte) (Math.max(heightOf(leftChild[slot]), heightOf(rightChild[slot])) + 1);
+	}
+	
+	// Returns the balance factor of the given slot.
+	private int balanceFactor(int slot) {
+		return heightOf(leftChild[slot]) - heightOf(rightChild[slot]);
+	}
+	
+	/*
+	 * Restores the AVL property of the subtree rooted at the given slot, assuming both of
+	 * its own subtrees are already balanced. The slot of the subtree's new root is returned.
+	 */
+	private int rebalance(int root) {
+		int balanceFactor;
+		
+		updateHeight(root);
+		balanceFactor = balanceFactor(root);
+		
+		if(balanceFactor > 1) {
+			if(balanceFactor(leftChild[root]) < 0)
+				leftChild[root] = rotateLeft(leftChild[root]);
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			if(balanceFactor(rightChild[root]) > 0)
+				rightChild[root] = rotateRight(rightChild[root]);
+			return rotateLeft(root);
+		}
+		
+		return root;
+	}
+	
+	// Rotates the subtree rooted at the given slot to the left and returns its new root.
+	private int rotateLeft(int root) {
+		int newRoot = rightChild[root];
+		
+		rightChild[root] = leftChild[newRoot];
+		leftChild[newRoot] = root;
+		updateHeight(root);
+		updateHeight(newRoot);
+		
+		return newRoot;
+	}
+	
+	// Rotates the subtree rooted at the given slot to the right and returns its new root.
+	private int rotateRight(int root) {
+		int newRoot = leftChild[root];
+		
+		leftChild[root] = rightChild[newRoot];
+		rightChild[newRoot] = root;
+		updateHeight(root);
+		updateHeight(newRoot);
+		
+		return newRoot;
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in a pre-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in an in-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in a post-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Builds the sequence string for a traversal of this tree in the given order and then returns it.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder result = new StringBuilder();
+		
+		forEach(order, value -> result.append(value).append(' '));
+		
+		return result.toString();
+	}
+	
+	/*
+	 * Passes the data of every node in this tree to the given action, visiting the nodes
+	 * in the given order. The traversal keeps its own stack of slots, so a tree of any
+	 * depth can be traversed.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		int[] stack = new int[32];
+		int stackSize = 0;
+		int target = rootNode;
+		int lastVisited = NO_NODE;
+		
+		switch(order) {
+		case PRE_ORDER:
+			if(target != NO_NODE)
+				stack[stackSize++] = target;
+			
+			while(stackSize > 0) {
+				target = stack[--stackSize];
+				action.accept(data[target]);
+				
+				if(stackSize + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				
+				// The right child is pushed first so that the left subtree is visited first.
+				if(rightChild[target] != NO_NODE)
+					stack[stackSize++] = rightChild[target];
+				if(leftChild[target] != NO_NODE)
+					stack[stackSize++] = leftChild[target];
+			}
+			break;
+		case IN_ORDER:
+			while(target != NO_NODE || stackSize > 0) {
+				while(target != NO_NODE) {
+					if(stackSize == stack.length)
+						stack = Arrays.copyOf(stack, stackSize * 2);
+					stack[stackSize++] = target;
+					target = leftChild[target];
+				}
+				
+				target = stack[--stackSize];
+				action.accept(data[target]);
+				target = rightChild[target];
+			}
+			break;
+		case POST_ORDER:
+			while(target != NO_NODE || stackSize > 0) {
+				while(target != NO_NODE) {
+					if(stackSize == stack.length)
+						stack = Arrays.copyOf(stack, stackSize * 2);
+					stack[stackSize++] = target;
+					target = leftChild[target];
+				}
+				
+				target = stack[stackSize - 1];
+				
+				// Visit the node once its right subtree is empty or has just been visited.
+				if(rightChild[target] != NO_NODE && rightChild[target] != lastVisited)
+					target = rightChild[target];
+				else {
+					stackSize--;
+					action.accept(data[target]);
+					lastVisited = target;
+					target = NO_NODE;
+				}
+			}
+			break;
+		}
+	}
+	
+	/*
+	 * Gets the data of a predecessor of a node within this tree that contains the given nodeData, if it exists.
+	 * A predecessor of a node is defined as being the node that prints its data immediately before that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not exist
+	 * in this tree, otherwise the predecessor's data is returned. Zero can also be a real predecessor, so
+	 * getNodePredecessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		int predecessor = findPredecessor(nodeData);
+		
+		// data[NO_NODE] is never written, so a missing predecessor reads as zero.
+		return data[predecessor];
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		int predecessor = findPredecessor(nodeData);
+		
+		if(predecessor == NO_NODE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(data[predecessor]);
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of a successor of a node within this tree that contains the given nodeData, if it exists.
+	 * A successor of a node is defined as being the node that prints its data immediately after that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not
+	 * exist in this tree, otherwise the successor's data is returned. Zero can also be a real successor, so
+	 * getNodeSuccessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		int successor = findSuccessor(nodeData);
+		
+		// data[NO_NODE] is never written, so a missing successor reads as zero.
+		return data[successor];
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		int successor = findSuccessor(nodeData);
+		
+		if(successor == NO_NODE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(data[successor]);
+		
+		return true;
+	}
+	
+	/*
+	 * Returns the slot of the predecessor of the node within this tree that contains the
+	 * given nodeData, or NO_NODE if this tree is empty, nodeData does not exist in this tree
+	 * or its node has no predecessor.
+	 */
+	private int findPredecessor(int nodeData) {
+		int target = rootNode;
+		int predecessor = NO_NODE;
+		
+		while(target != NO_NODE) {
+			if(nodeData == data[target]) {
+				if(leftChild[target] != NO_NODE) {
+					// Predecessor will be rightmost child in target's left subtree.
+					predecessor = leftChild[target];
+					while(rightChild[predecessor] != NO_NODE)
+						predecessor = rightChild[predecessor];
+				}
+				return predecessor;
+			} else if(nodeData > data[target]) {
+				predecessor = target;
+				target = rightChild[target];
+			} else
+				target = leftChild[target];
+		}
+		
+		// The desired node does not exist in this tree.
+		return NO_NODE;
+	}
+	
+	/*
+	 * Returns the slot of the successor of the node within this tree that contains the
+	 * given nodeData, or NO_NODE if this tree is empty, nodeData does not exist in this tree
+	 * or its node has no successor.
+	 */
+	private int findSuccessor(int nodeData) {
+		int target = rootNode;
+		int successor = NO_NODE;
+		
+		while(target != NO_NODE) {
+			if(nodeData == data[target]) {
+				if(rightChild[target] != NO_NODE) {
+					// Successor will be leftmost child in target's right subtree.
+					successor = rightChild[target];
+					while(leftChild[successor] != NO_NODE)
+						successor = leftChild[successor];
+				}
+				return successor;
+			} else if(nodeData > data[target])
+				target = rightChild[target];
+			else {
+				successor = target;
+				target = leftChild[target];
+			}
+		}
+		
+		// The desired node does not exist in this tree.
+		return NO_NODE;
+	}
+}
@@ -0,0 +1,179 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+
+/*
+ * This class represents a node of a BTreeSearchTree. It holds up to a fixed number of
+ * values in ascending order and, unless it is a leaf, one more child than it has values,
+ * the values of the child at index i lying between the values at indexes i - 1 and i.
+ * The arrays have room for one value and one child more than a node may keep, so that a
+ * node can take the value that overflows it before it is split.
+ */
+class BTreeNode {
+	// Values of this node in ascending order, only the first keyCount of which are in use.
+	private int[] keys;
+	// Children of this node, only the first keyCount + 1 of which are in use, or null if this node is a leaf.
+	private BTreeNode[] children;
+	// Number of values held by this node.
+	private int keyCount;
+	
+	/*
+	 * Constructor that creates an empty node able to hold the given capacity of values, and
+	 * one value more while it overflows, with room for children unless it is a leaf.
+	 */
+	BTreeNode(int capacity, boolean leaf) {
+		keys = new int[capacity + 1];
+		children = leaf ? null : new BTreeNode[capacity + 2];
+		keyCount = 0;
+	}
+	
+	/*
+	 * Returns the number of values of this node less than the given value, which is the
+	 * index of the value if this node holds it and the index of the child it would be under
+	 * otherwise. The values are scanned one after the other rather than by binary search:
+	 * a node spans only a few cache lines, which are loaded in order, and the scan's single
+	 * branch is taken every time but the last, so it is predicted far better than the
+	 * branches of a binary search.
+	 */
+	int findIndex(int value) {
+		int index = 0;
+		
+		while(index < keyCount && keys[index] < value)
+			index++;
+		
+		return index;
+	}
+	
+	// Returns true if this node has no children, false otherwise.
+	boolean isLeaf() {
+		return children == null;
+	}
+	
+	// Gets the number of values held by this node.
+	int getKeyCount() {
+		return keyCount;
+	}
+	
+	// Gets the value of this node at the given index.
+	int getKey(int index) {
+		return keys[index];
+	}
+	
+	// Replaces the value of this node at the given index with the given value.
+	void setKey(int index, int value) {
+		keys[index] = value;
+	}
+	
+	// Gets the child of this node at the given index, or null if this node is a leaf.
+	BTreeNode getChild(int index) {
+		return (children != null) ? children[index] : null;
+	}
+	
+	// Sets the child of this node at the given index according to the parameter given.
+	void setChild(int index, BTreeNode child) {
+		children[index] = child;
+	}
+	
+	/*
+	 * Inserts the given value at the given index and, unless this node is a leaf, the given
+	 * child just after it, shifting the values and children after them one place up.
+	 */
+	void insert(int index, int value, BTreeNode rightChild) {
+		System.arraycopy(keys, index, keys, index + 1, keyCount - index);
+		keys[index] = value;
+		
+		if(children != null) {
+			System.arraycopy(children, index + 1, children, index + 2, keyCount - index);
+			children[index + 1] = rightChild;
+		}
+		
+		keyCount++;
+	}
+	
+	/*
+	 * Inserts the given value before every value of this node and, unless this node is a
+	 * leaf, the given child before every child.
+	 */
+	void insertFirst(int value, BTreeNode leftChild) {
+		System.arraycopy(keys, 0, keys, 1, keyCount);
+		keys[0] = value;
+		
+		if(children != null) {
+			System.arraycopy(children, 0, children, 1, keyCount + 1);
+			children[0] = leftChild;
+		}
+		
+		keyCount++;
+	}
+	
+	/*
+	 * Removes the value at the given index and, unless this node is a leaf, the child just
+	 * after it, shifting the values and children after them one place down.
+	 */
+	void remove(int index) {
+		System.arraycopy(keys, index + 1, keys, index, keyCount - index - 1);
+		
+		if(children != null) {
+			System.arraycopy(children, index + 2, children, index + 1, keyCount - index - 1);
+			children[keyCount] = null;
+		}
+		
+		keyCount--;
+	}
+	
+	// Removes the first value of this node and, unless it is a leaf, its first child.
+	void removeFirst() {
+		System.arraycopy(keys, 1, keys, 0, keyCount - 1);
+		
+		if(children != null) {
+			System.arraycopy(children, 1, children, 0, keyCount);
+			children[keyCount] = null;
+		}
+		
+		keyCount--;
+	}
+	
+	/*
+	 * Moves the values after the given index, and the children after them, into a new node
+	 * and returns it. This node keeps the values before the index, the value at the index
+	 * being left for the caller to move into the parent.
+	 */
+	BTreeNode split(int index) {
+		BTreeNode right = new BTreeNode(keys.length - 1, children == null);
+		
+		right.keyCount = keyCount - index - 1;
+		System.arraycopy(keys, index + 1, right.keys, 0, right.keyCount);
+		
+		if(children != null) {
+			System.arraycopy(children, index + 1, right.children, 0, right.keyCount + 1);
+			Arrays.fill(children, index + 1, keyCount + 1, null);
+		}
+		
+		keyCount = index;
+		
+		return right;
+	}
+	
+	/*
+	 * Appends the given separating value and then every value and child of the given node,
+	 * which must follow this node under the same parent, to this node.
+	 */
+	void merge(int separator, BTreeNode right) {
+		keys[keyCount] = separator;
+		System.arraycopy(right.keys, 0, keys, keyCount + 1, right.keyCount);
+		
+		if(children != null)
+			System.arraycopy(right.children, 0, children, keyCount + 1, right.keyCount + 1);
+		
+		keyCount += right.keyCount + 1;
+	}
+	
+	/*
+	 * Appends the values from the given index of the given array, in ascending order, to
+	 * this node. Used to build a tree from sorted values.
+	 */
+	void appendKeys(int[] values, int from, int count) {
+		System.arraycopy(values, from, keys, keyCount, count);
+		keyCount += count;
+	}
+}
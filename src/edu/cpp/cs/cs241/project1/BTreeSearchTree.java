@@ -0,0 +1,581 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a B-tree of integers, a search tree whose nodes each hold many values in
+ * ascending order instead of one. A BinarySearchTree of n values is about log2(n) nodes
+ * deep, and each node on a lookup's path is a pointer load that must finish before the
+ * next can start, most of them missing the cache once the tree outgrows it. With the
+ * default node capacity of DEFAULT_NODE_CAPACITY values, a node has up to 32 children,
+ * so a tree of ten million values is only five or six nodes deep, and the values within
+ * a node lie next to each other in memory and are scanned in order.
+ *
+ * Every node but the root holds between half of the node capacity and the node capacity
+ * of values, and every leaf is at the same depth. An insertion that overflows a node
+ * splits it in two, moving its middle value up into its parent, and a removal that leaves
+ * a node less than half full borrows a value from a sibling through their parent or, if
+ * neither sibling has a value to spare, merges with one of them, taking a value from the
+ * parent. Either may carry on up to the root, so the tree grows and shrinks at the root.
+ */
+public class BTreeSearchTree {
+	/*
+	 * Number of values a node holds at most, unless another is given. 31 values and the
+	 * count of them fill two 64-byte cache lines of an int array, and the array of 32
+	 * children the same.
+	 */
+	public static final int DEFAULT_NODE_CAPACITY = 31;
+	
+	// Field containing the root node of this tree.
+	private BTreeNode rootNode;
+	// Number of values a node holds at most.
+	private int nodeCapacity;
+	// Number of values every node but the root holds at least.
+	private int minKeyCount;
+	// Number of values in this tree.
+	private int size;
+	// Number of levels of nodes in this tree, zero if it is empty.
+	private int height;
+	// Nodes on the path walked by the current insertion or removal, from the root down.
+	private BTreeNode[] pathNodes;
+	// Index of the child taken from each node on the path walked by the current insertion or removal.
+	private int[] pathIndexes;
+	
+	// Default constructor, creating an empty tree whose nodes hold DEFAULT_NODE_CAPACITY values.
+	public BTreeSearchTree() {
+		this(DEFAULT_NODE_CAPACITY);
+	}
+	
+	/*
+	 * Constructor that creates an empty tree whose nodes hold at most the given number of
+	 * values. An IllegalArgumentException is thrown if the capacity is less than three.
+	 */
+	public BTreeSearchTree(int nodeCapacity) {
+		if(nodeCapacity < 3)
+			throw new IllegalArgumentException("The node capacity must be at least 3.");
+		
+		rootNode = null;
+		this.nodeCapacity = nodeCapacity;
+		minKeyCount = (nodeCapacity - 1) / 2;
+		size = 0;
+		height = 0;
+		pathNodes = new BTreeNode[8];
+		pathIndexes = new int[8];
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, whose nodes hold
+	 * DEFAULT_NODE_CAPACITY values. Duplicates are ignored the same way addNewNode ignores
+	 * them. The given array is not modified.
+	 */
+	public static BTreeSearchTree fromUnsorted(int[] values) {
+		return fromUnsorted(values, DEFAULT_NODE_CAPACITY);
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, whose nodes hold at most the
+	 * given number of values. The values are sorted and the tree is built from the bottom
+	 * up in linear time, as shallow as the capacity allows, with the values spread evenly
+	 * over the nodes of each level. Duplicates are ignored and the given array is not modified.
+	 */
+	public static BTreeSearchTree fromUnsorted(int[] values, int nodeCapacity) {
+		BTreeSearchTree tree = new BTreeSearchTree(nodeCapacity);
+		int[] sortedValues = Arrays.copyOf(values, values.length);
+		int count = 0;
+		
+		Arrays.sort(sortedValues);
+		
+		for(int i = 0; i < sortedValues.length; i++)
+			if(i == 0 || sortedValues[i] != sortedValues[i - 1])
+				sortedValues[count++] = sortedValues[i];
+		
+		if(count == 0)
+			return tree;
+		
+		tree.height = 1;
+		
+		while(maxKeyCount(nodeCapacity, tree.height) < count)
+			tree.height++;
+		
+		tree.rootNode = tree.build(sortedValues, 0, count, tree.height);
+		tree.size = count;
+		
+		return tree;
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		BTreeNode target = rootNode;
+		int index;
+		
+		while(target != null) {
+			index = target.findIndex(searchValue);
+			
+			if(index < target.getKeyCount() && target.getKey(index) == searchValue)
+				return true;
+			
+			target = target.getChild(index);
+		}
+		
+		return false;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	// Returns the number of values in this tree.
+	public int size() {
+		return size;
+	}
+	
+	// Returns the number of levels of nodes in this tree. An empty tree has a height of zero.
+	public int getHeight() {
+		return height;
+	}
+	
+	// Returns the number of values a node of this tree holds at most.
+	public int getNodeCapacity() {
+		return nodeCapacity;
+	}
+	
+	/*
+	 * Adds the given data to this tree. The given data can be any integer, zero included.
+	 * If it already exists within this tree, the tree is left unaffected. The data is put
+	 * into the leaf it belongs in, and every node it overflows on the way up is split.
+	 */
+	public void addNewNode(int nodeData) {
+		BTreeNode target = rootNode;
+		BTreeNode newRoot;
+		BTreeNode right;
+		int index;
+		int middleValue;
+		int depth = 0;
+		
+		if(target == null) {
+			rootNode = new BTreeNode(nodeCapacity, true);
+			rootNode.insert(0, nodeData, null);
+			size = 1;
+			height = 1;
+			return;
+		}
+		
+		ensurePathLength();
+		
+		while(true) {
+			index = target.findIndex(nodeData);
+			
+			// nodeData already exists within the tree.
+			if(index < target.getKeyCount() && target.getKey(index) == nodeData) {
+				clearPath();
+				return;
+			}
+			
+			pathNodes[depth] = target;
+			pathIndexes[depth] = index;
+			
+			if(target.isLeaf())
+				break;
+			
+			target = target.getChild(index);
+			depth++;
+		}
+		
+		target.insert(index, nodeData, null);
+		size++;
+		
+		// Each overflowing node is split around its middle value, which is moved into its parent.
+		while(target.getKeyCount() > nodeCapacity) {
+			middleValue = target.getKey(target.getKeyCount() / 2);
+			right = target.split(target.getKeyCount() / 2);
+			
+			if(depth == 0) {
+				newRoot = new BTreeNode(nodeCapacity, false);
+				newRoot.setChild(0, target);
+				newRoot.insert(0, middleValue, right);
+				rootNode = newRoot;
+				height++;
+				break;
+			}
+			
+			depth--;
+			target = pathNodes[depth];
+			target.insert(pathIndexes[depth], middleValue, right);
+		}
+		
+		clearPath();
+	}
+	
+	/*
+	 * Removes the given nodeData from the tree, if it exists. A value in an inner node is
+	 * replaced by its predecessor, which is removed from its leaf instead, and every node left
+	 * with too few values on the way up borrows from or merges with a sibling. An empty tree
+	 * or a tree that does not contain the given nodeData is left unaffected.
+	 */
+	public void removeNode(int nodeData) {
+		BTreeNode target = rootNode;
+		BTreeNode holder = null;
+		int holderIndex = 0;
+		int index;
+		int depth = 0;
+		
+		if(target == null)
+			return;
+		
+		ensurePathLength();
+		
+		while(true) {
+			index = target.findIndex(nodeData);
+			
+			if(holder == null && index < target.getKeyCount() && target.getKey(index) == nodeData) {
+				holder = target;
+				holderIndex = index;
+			}
+			
+			pathNodes[depth] = target;
+			pathIndexes[depth] = index;
+			
+			if(target.isLeaf())
+				break;
+			
+			target = target.getChild(index);
+			depth++;
+			
+			// Below the holder, the path follows the right edge of its left subtree to the predecessor.
+			if(holder != null)
+				nodeData = Integer.MAX_VALUE;
+		}
+		
+		// nodeData does not exist within the tree.
+		if(holder == null) {
+			clearPath();
+			return;
+		}
+		
+		if(target == holder) {
+			target.remove(holderIndex);
+		} else {
+			holder.setKey(holderIndex, target.getKey(target.getKeyCount() - 1));
+			target.remove(target.getKeyCount() - 1);
+		}
+		
+		size--;
+		fixUnderflow(depth);
+		clearPath();
+	}
+	
+	/*
+	 * Restores the minimum number of values in the node at the given depth of the path and
+	 * every node above it. A node with too few values takes one from a sibling with values to
+	 * spare, through their parent, which ends the repair. Otherwise it is merged with a
+	 * sibling and the value between them in their parent, which may leave the parent with too
+	 * few values in turn. A root left with no values is replaced by its only child.
+	 */
+	private void fixUnderflow(int depth) {
+		BTreeNode node;
+		BTreeNode parent;
+		BTreeNode left;
+		BTreeNode right;
+		int childIndex;
+		
+		while(depth > 0) {
+			node = pathNodes[depth];
+			
+			if(node.getKeyCount() >= minKeyCount)
+				return;
+			
+			parent = pathNodes[depth - 1];
+			childIndex = pathIndexes[depth - 1];
+			left = (childIndex > 0) ? parent.getChild(childIndex - 1) : null;
+			right = (childIndex < parent.getKeyCount()) ? parent.getChild(childIndex + 1) : null;
+			
+			if(left != null && left.getKeyCount() > minKeyCount) {
+				// The left sibling's last value moves up into the parent, and the parent's value down into the node.
+				node.insertFirst(parent.getKey(childIndex - 1), left.getChild(left.getKeyCount()));
+				parent.setKey(childIndex - 1, left.getKey(left.getKeyCount() - 1));
+				left.remove(left.getKeyCount() - 1);
+				return;
+			}
+			
+			if(right != null && right.getKeyCount() > minKeyCount) {
+				node.insert(node.getKeyCount(), parent.getKey(childIndex), right.getChild(0));
+				parent.setKey(childIndex, right.getKey(0));
+				right.removeFirst();
+				return;
+			}
+			
+			if(left != null) {
+				left.merge(parent.getKey(childIndex - 1), node);
+				parent.remove(childIndex - 1);
+			} else {
+				node.merge(parent.getKey(childIndex), right);
+				parent.remove(childIndex);
+			}
+			
+			depth--;
+		}
+		
+		if(rootNode.getKeyCount() == 0) {
+			rootNode = rootNode.getChild(0);
+			height--;
+		}
+	}
+	
+	/*
+	 * Gets the data of the predecessor of the given nodeData, being the largest value in
+	 * this tree below it. An integer value of zero is returned if this tree is empty or
+	 * nodeData does not exist in this tree, otherwise the predecessor's data is returned.
+	 * Zero can also be a real predecessor, so getNodePredecessor(int, IntResult) should be
+	 * used to tell the two apart.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		IntResult result = new IntResult();
+		
+		getNodePredecessor(nodeData, result);
+		
+		return result.isPresent() ? result.getValue() : 0;
+	}
+	
+	/*
+	 * Finds the predecessor of the given nodeData, as getNodePredecessor(int) does, and stores
+	 * its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult). The predecessor is the largest
+	 * value of the left subtree of nodeData if it has one, or otherwise the value before it
+	 * in its leaf or the last value passed on the way down that is below it.
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		BTreeNode target = rootNode;
+		BTreeNode candidate = null;
+		int candidateIndex = 0;
+		int index;
+		
+		while(target != null) {
+			index = target.findIndex(nodeData);
+			
+			if(index < target.getKeyCount() && target.getKey(index) == nodeData) {
+				if(!target.isLeaf()) {
+					candidate = target.getChild(index);
+					
+					while(!candidate.isLeaf())
+						candidate = candidate.getChild(candidate.getKeyCount());
+					
+					candidateIndex = candidate.getKeyCount() - 1;
+				} else if(index > 0) {
+					candidate = target;
+					candidateIndex = index - 1;
+				}
+				
+				if(candidate == null) {
+					result.clear();
+					return false;
+				}
+				
+				result.set(candidate.getKey(candidateIndex));
+				
+				return true;
+			}
+			
+			if(index > 0) {
+				candidate = target;
+				candidateIndex = index - 1;
+			}
+			
+			target = target.getChild(index);
+		}
+		
+		// nodeData does not exist within the tree.
+		result.clear();
+		
+		return false;
+	}
+	
+	/*
+	 * Gets the data of the successor of the given nodeData, being the smallest value in this
+	 * tree above it. An integer value of zero is returned if this tree is empty or nodeData
+	 * does not exist in this tree, otherwise the successor's data is returned. Zero can also
+	 * be a real successor, so getNodeSuccessor(int, IntResult) should be used to tell the two
+	 * apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		IntResult result = new IntResult();
+		
+		getNodeSuccessor(nodeData, result);
+		
+		return result.isPresent() ? result.getValue() : 0;
+	}
+	
+	/*
+	 * Finds the successor of the given nodeData, as getNodeSuccessor(int) does, and stores
+	 * its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult), mirroring getNodePredecessor.
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		BTreeNode target = rootNode;
+		BTreeNode candidate = null;
+		int candidateIndex = 0;
+		int index;
+		
+		while(target != null) {
+			index = target.findIndex(nodeData);
+			
+			if(index < target.getKeyCount() && target.getKey(index) == nodeData) {
+				if(!target.isLeaf()) {
+					candidate = target.getChild(index + 1);
+					
+					while(!candidate.isLeaf())
+						candidate = candidate.getChild(0);
+					
+					candidateIndex = 0;
+				} else if(index + 1 < target.getKeyCount()) {
+					candidate = target;
+					candidateIndex = index + 1;
+				}
+				
+				if(candidate == null) {
+					result.clear();
+					return false;
+				}
+				
+				result.set(candidate.getKey(candidateIndex));
+				
+				return true;
+			}
+			
+			if(index < target.getKeyCount()) {
+				candidate = target;
+				candidateIndex = index;
+			}
+			
+			target = target.getChild(index);
+		}
+		
+		// nodeData does not exist within the tree.
+		result.clear();
+		
+		return false;
+	}
+	
+	/*
+	 * Passes every value of this tree to the given action, visiting the nodes in the given
+	 * order. In order, the values come out in ascending order. In pre-order, the values of a
+	 * node come before those of its children, and in post-order after them, each node's
+	 * values being in ascending order and its children visited from left to right.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		visit(rootNode, order, action);
+	}
+	
+	// Returns the pre-order sequence of this tree, in the same format as BinarySearchTree.getPreOrderSequence.
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	// Returns the in-order sequence of this tree, in the same format as BinarySearchTree.getInOrderSequence.
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	// Returns the post-order sequence of this tree, in the same format as BinarySearchTree.getPostOrderSequence.
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Returns every value of this tree, visited in the given order and each followed by a space.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder sequence = new StringBuilder();
+		
+		visit(rootNode, order, value -> sequence.append(value).append(' '));
+		
+		return sequence.toString();
+	}
+	
+	/*
+	 * Passes every value of the subtree rooted at the given node to the given action, in the
+	 * given order. The recursion is only as deep as the tree, which is a handful of levels.
+	 */
+	private static void visit(BTreeNode node, TraversalOrder order, IntConsumer action) {
+		if(node == null)
+			return;
+		
+		if(node.isLeaf() || order == TraversalOrder.PRE_ORDER)
+			for(int i = 0; i < node.getKeyCount(); i++)
+				action.accept(node.getKey(i));
+		
+		if(node.isLeaf())
+			return;
+		
+		for(int i = 0; i <= node.getKeyCount(); i++) {
+			visit(node.getChild(i), order, action);
+			
+			if(order == TraversalOrder.IN_ORDER && i < node.getKeyCount())
+				action.accept(node.getKey(i));
+		}
+		
+		if(order == TraversalOrder.POST_ORDER)
+			for(int i = 0; i < node.getKeyCount(); i++)
+				action.accept(node.getKey(i));
+	}
+	
+	/*
+	 * Builds a subtree of the given height holding the given number of the given sorted
+	 * values, starting from the given index. The values left after the separating values
+	 * are spread as evenly as possible over the fewest children that can hold them, but at
+	 * least two, so that every child holds at least the minimum number of values.
+	 */
+	private BTreeNode build(int[] values, int from, int count, int subtreeHeight) {
+		BTreeNode node = new BTreeNode(nodeCapacity, subtreeHeight == 1);
+		long childCapacity;
+		int childCount;
+		int childValues;
+		int childSize;
+		int position = from;
+		
+		if(subtreeHeight == 1) {
+			node.appendKeys(values, from, count);
+			return node;
+		}
+		
+		childCapacity = maxKeyCount(nodeCapacity, subtreeHeight - 1);
+		childCount = (int) Math.max(2, (count + 1 + childCapacity) / (childCapacity + 1));
+		childValues = count - (childCount - 1);
+		
+		for(int i = 0; i < childCount; i++) {
+			childSize = childValues / childCount + ((i < childValues % childCount) ? 1 : 0);
+			node.setChild(i, build(values, position, childSize, subtreeHeight - 1));
+			position += childSize;
+			
+			if(i < childCount - 1)
+				node.appendKeys(values, position++, 1);
+		}
+		
+		return node;
+	}
+	
+	// Returns the number of values a subtree of the given height holds at most with nodes of the given capacity.
+	private static long maxKeyCount(int nodeCapacity, int subtreeHeight) {
+		long count = 1;
+		
+		for(int i = 0; i < subtreeHeight && count <= Integer.MAX_VALUE; i++)
+			count *= nodeCapacity + 1;
+		
+		return count - 1;
+	}
+	
+	// Makes sure the path arrays can hold a path from the root to a leaf.
+	private void ensurePathLength() {
+		if(pathNodes.length <= height) {
+			pathNodes = Arrays.copyOf(pathNodes, 2 * (height + 1));
+			pathIndexes = Arrays.copyOf(pathIndexes, 2 * (height + 1));
+		}
+	}
+	
+	// Clears the path array so that it keeps no nodes reachable once they have left the tree.
+	private void clearPath() {
+		Arrays.fill(pathNodes, null);
+	}
+}
@@ -0,0 +1,360 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/*
+ * This class runs the commands of Project1 non-interactively, reading them from a file or
+ * a pipe and writing their results to another, for running large command files quickly.
+ * Each line holds one command, being I, D, P or S, in either case, followed by an integer,
+ * or H or E on its own, with the same meanings as in Project1. Blank lines are skipped and
+ * anything following a command's integer on its line is ignored.
+ *
+ * Unlike Project1, the tree's in-order sequence is not printed after every insertion and
+ * deletion, which would make the output grow with the square of the number of commands.
+ * P and S write their result on a line of its own, I, D and H write nothing, and E stops
+ * the run. A command that fails writes its error, in the same words as Project1, on a line
+ * starting with "Error: ", so the output stays in step with the commands.
+ *
+ * The input is read in large blocks and the integers are parsed straight from the bytes,
+ * and every result is written into one large buffer that is flushed only when it is full
+ * and at the end of the run. No objects are created per command.
+ */
+public class BatchProcessor {
+	// Size of the input and output buffers, in bytes.
+	private static final int BUFFER_SIZE = 1 << 16;
+	// Result of readCommand once the input has ended.
+	private static final int END_OF_INPUT = -1;
+	// Result of readCommand for a line holding nothing but whitespace.
+	private static final int BLANK_LINE = 0;
+	
+	// Tree the commands are run on.
+	private BinarySearchTree tree;
+	// Holds the answer of every predecessor and successor lookup.
+	private IntResult lookupResult;
+	// Stream the commands are read from.
+	private InputStream input;
+	// Bytes read from the input that have not been parsed yet, from inputPosition up to inputLimit.
+	private byte[] inputBuffer;
+	// Position of the next byte to parse in inputBuffer.
+	private int inputPosition;
+	// Number of bytes in inputBuffer.
+	private int inputLimit;
+	// Stream the results are written to.
+	private OutputStream output;
+	// Bytes of results that have not been written to the output yet, up to outputPosition.
+	private byte[] outputBuffer;
+	// Number of bytes in outputBuffer.
+	private int outputPosition;
+	// Value read by the last call to readValue.
+	private int value;
+	
+	// Constructor that creates a processor running commands on the given tree.
+	public BatchProcessor(BinarySearchTree tree) {
+		this.tree = tree;
+		lookupResult = new IntResult();
+		inputBuffer = new byte[BUFFER_SIZE];
+		outputBuffer = new byte[BUFFER_SIZE];
+	}
+	
+	/*
+	 * Runs every command read from the given input, until it ends or an E command is read,
+	 * and writes the results to the given output, which is flushed but not closed. Returns
+	 * the number of commands run, not counting blank lines. Any IOException thrown by the
+	 * input or output is passed on to the caller.
+	 */
+	public long run(InputStream input, OutputStream output) throws IOException {
+		long commandCount = 0;
+		int command;
+		
+		this.input = input;
+		this.output = output;
+		inputPosition = 0;
+		inputLimit = 0;
+		outputPosition = 0;
+		
+		try {
+			while((command = readCommand()) != END_OF_INPUT) {
+				if(command == BLANK_LINE)
+					continue;
+				
+				commandCount++;
+				
+				if(command == 'E')
+					break;
+				
+				runCommand(command);
+				skipLine();
+			}
+			
+			flushOutput();
+			output.flush();
+		} finally {
+			this.input = null;
+			this.output = null;
+		}
+		
+		return commandCount;
+	}
+	
+	/*
+	 * Runs the given command, which is an upper case letter other than E, reading its value
+	 * from the rest of the line if it needs one. Nothing is read past the end of the line.
+	 */
+	private void runCommand(int command) throws IOException {
+		int oldSize;
+		
+		switch(command) {
+		case 'H':
+			// The list of options is only useful interactively.
+			return;
+		case 'I':
+		case 'D':
+		case 'P':
+		case 'S':
+			if(!readValue())
+				return;
+			break;
+		default:
+			writeError("Invalid command.");
+			return;
+		}
+		
+		if(command == 'I') {
+			// A single walk adds the value, and the size tells whether it was already there.
+			oldSize = tree.size();
+			tree.addNewNode(value);
+			
+			if(tree.size() == oldSize)
+				writeError(value, " already exists in this tree.");
+			return;
+		}
+		
+		if(tree.isEmpty()) {
+			writeError("This tree is empty.");
+			return;
+		}
+		
+		if(command == 'D') {
+			oldSize = tree.size();
+			tree.removeNode(value);
+			
+			if(tree.size() == oldSize)
+				writeError(value, " does not exist in this tree.");
+		} else if(command == 'P' ? tree.getNodePredecessor(value, lookupResult)
+				: tree.getNodeSuccessor(value, lookupResult)) {
+			writeInt(lookupResult.getValue());
+			writeByte('\n');
+		} else if(!tree.contains(value))
+			// Only a failed lookup needs a second walk, to tell a missing value from a missing neighbour.
+			writeError(value, " does not exist in this tree.");
+		else {
+			writeInt(value);
+			writeString((command == 'P') ? " has no predecessor.\n" : " has no successor.\n");
+		}
+	}
+	
+	/*
+	 * Reads the command at the start of the next line, skipping any whitespace before it.
+	 * Returns the command, converted to upper case, or BLANK_LINE if the line holds nothing
+	 * else, or END_OF_INPUT if the input has ended. A command longer than a single character
+	 * is returned as X, which is not a valid command.
+	 */
+	private int readCommand() throws IOException {
+		int next = skipSpaces();
+		int command;
+		
+		if(next == END_OF_INPUT)
+			return END_OF_INPUT;
+		
+		if(next == '\n') {
+			inputPosition++;
+			return BLANK_LINE;
+		}
+		
+		command = Character.toUpperCase(next);
+		inputPosition++;
+		next = peekByte();
+		
+		if(next != END_OF_INPUT && !isWhitespace(next))
+			return 'X';
+		
+		return command;
+	}
+	
+	/*
+	 * Reads the integer following a command on the current line into value and returns true.
+	 * If the line holds no integer, or something other than an integer, the error is written
+	 * to the output and false is returned. As in Integer.parseInt, the digits are accumulated
+	 * as a negative number, so that Integer.MIN_VALUE can be read without overflowing.
+	 */
+	private boolean readValue() throws IOException {
+		int next = skipSpaces();
+		boolean negative = false;
+		// Lowest value the accumulated digits may reach, depending on the sign.
+		int limit = -Integer.MAX_VALUE;
+		int result = 0;
+		int digit;
+		int digits = 0;
+		
+		if(next == END_OF_INPUT || next == '\n') {
+			writeError("Please enter a value for this command.");
+			return false;
+		}
+		
+		if(next == '-' || next == '+') {
+			negative = next == '-';
+			limit = negative ? Integer.MIN_VALUE : limit;
+			inputPosition++;
+			next = peekByte();
+		}
+		
+		while(next != END_OF_INPUT && !isWhitespace(next)) {
+			digit = next - '0';
+			
+			// Not a digit, or too large in magnitude for an int.
+			if(digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+				writeError("Please enter an integer.");
+				return false;
+			}
+			
+			result = result * 10 - digit;
+			digits++;
+			inputPosition++;
+			next = peekByte();
+		}
+		
+		if(digits == 0) {
+			writeError("Please enter an integer.");
+			return false;
+		}
+		
+		value = negative ? result : -result;
+		
+		return true;
+	}
+	
+	/*
+	 * Skips spaces, tabs and carriage returns, stopping at the end of the line. Returns the
+	 * next byte, which is not consumed, or END_OF_INPUT if the input has ended.
+	 */
+	private int skipSpaces() throws IOException {
+		int next = peekByte();
+		
+		while(next != END_OF_INPUT && next != '\n' && isWhitespace(next)) {
+			inputPosition++;
+			next = peekByte();
+		}
+		
+		return next;
+	}
+	
+	// Skips the rest of the current line, including the line break that ends it.
+	private void skipLine() throws IOException {
+		int next = peekByte();
+		
+		while(next != END_OF_INPUT) {
+			inputPosition++;
+			
+			if(next == '\n')
+				return;
+			
+			next = peekByte();
+		}
+	}
+	
+	// Returns true if the given byte is a space, a tab, a carriage return or a line break.
+	private static boolean isWhitespace(int next) {
+		return next == ' ' || next == '\t' || next == '\r' || next == '\n';
+	}
+	
+	/*
+	 * Returns the next byte of the input without consuming it, reading the next block of
+	 * the input if every byte read so far has been parsed, or END_OF_INPUT if the input has
+	 * ended.
+	 */
+	private int peekByte() throws IOException {
+		if(inputPosition == inputLimit) {
+			inputPosition = 0;
+			inputLimit = input.read(inputBuffer, 0, inputBuffer.length);
+			
+			// A stream may return no bytes without having ended, so keep reading until it does either.
+			while(inputLimit == 0)
+				inputLimit = input.read(inputBuffer, 0, inputBuffer.length);
+			
+			if(inputLimit < 0) {
+				inputLimit = 0;
+				return END_OF_INPUT;
+			}
+		}
+		
+		return inputBuffer[inputPosition];
+	}
+	
+	// Writes the given message as an error on a line of its own.
+	private void writeError(String message) throws IOException {
+		writeString("Error: ");
+		writeString(message);
+		writeByte('\n');
+	}
+	
+	// Writes the given value followed by the given message as an error on a line of its own.
+	private void writeError(int errorValue, String message) throws IOException {
+		writeString("Error: ");
+		writeInt(errorValue);
+		writeString(message);
+		writeByte('\n');
+	}
+	
+	// Writes the characters of the given string, which must be ASCII, to the output buffer.
+	private void writeString(String text) throws IOException {
+		for(int i = 0; i < text.length(); i++)
+			writeByte(text.charAt(i));
+	}
+	
+	/*
+	 * Writes the digits of the given integer to the output buffer, working with a nonpositive
+	 * value as BinarySearchTree.appendSequence does, so that Integer.MIN_VALUE does not overflow.
+	 */
+	private void writeInt(int number) throws IOException {
+		int remaining = (number > 0) ? -number : number;
+		int start;
+		int end;
+		byte swap;
+		
+		// At most 11 bytes are written, including the sign.
+		if(outputBuffer.length - outputPosition < 11)
+			flushOutput();
+		
+		if(number < 0)
+			outputBuffer[outputPosition++] = '-';
+		
+		// Digits are produced from the least significant one, then reversed in place.
+		start = outputPosition;
+		do {
+			outputBuffer[outputPosition++] = (byte) ('0' - (remaining % 10));
+			remaining /= 10;
+		} while(remaining != 0);
+		
+		for(end = outputPosition - 1; start < end; start++, end--) {
+			swap = outputBuffer[start];
+			outputBuffer[start] = outputBuffer[end];
+			outputBuffer[end] = swap;
+		}
+	}
+	
+	// Writes the given byte to the output buffer, flushing it first if it is full.
+	private void writeByte(int next) throws IOException {
+		if(outputPosition == outputBuffer.length)
+			flushOutput();
+		
+		outputBuffer[outputPosition++] = (byte) next;
+	}
+	
+	// Writes every byte in the output buffer to the output and empties the buffer.
+	private void flushOutput() throws IOException {
+		output.write(outputBuffer, 0, outputPosition);
+		outputPosition = 0;
+	}
+}
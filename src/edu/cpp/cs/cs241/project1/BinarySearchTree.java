@@ -1,194 +1,1171 @@
 package edu.cpp.cs.cs241.project1;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 /*
  * This class is the implementation of the binary search tree data structure.
  * It implements basic properties of a binary search tree such as adding a new
  * value to the tree, removing a value, checking if the tree contains a certain
  * value, checking if the tree is empty or not, as well as providing the tree's
  * pre-order, in-order and post-order sequences.
+ * 
+ * A tree may optionally be self-balancing, in which case it is kept as an AVL tree:
+ * after every insertion or removal the heights of the two subtrees of any node differ
+ * by at most one, so the tree's height stays below 1.44 * log2(n + 2) even when the
+ * values are added in sorted order.
  */
 public class BinarySearchTree {
+	// State of a node on the stack of removeAllInOneDescent that has not been visited yet.
+	private static final int UNVISITED = 0;
+	// State of a node on the stack of removeAllInOneDescent that is kept in the tree.
+	private static final int KEPT = 1;
+	// State of a node on the stack of removeAllInOneDescent that is removed from the tree.
+	private static final int REMOVED = 2;
+	
 	// Field containing the root node of this tree.
 	private TreeNode rootNode;
+	// True if this tree rebalances itself after every insertion and removal, false otherwise.
+	private boolean selfBalancing;
+	// Nodes walked by the current insertion or removal, used only when self-balancing.
+	private TreeNode[] searchPath;
+	// Metrics gathered for this tree, or null if TreeMetrics.ENABLED is false.
+	private TreeMetrics metrics;
+	
+	// Default constructor, creating an empty binary search tree.
+	public BinarySearchTree() {
+		rootNode = null;
+		selfBalancing = false;
+		searchPath = new TreeNode[32];
+		metrics = TreeMetrics.ENABLED ? new TreeMetrics(this) : null;
+	}
+	
+	// Constructor that creates a new tree with a root node containing the given data.
+	public BinarySearchTree(int rootData) {
+		rootNode = new TreeNode(rootData);
+		selfBalancing = false;
+		searchPath = new TreeNode[32];
+		metrics = TreeMetrics.ENABLED ? new TreeMetrics(this) : null;
+	}
+	
+	/*
+	 * Constructor that creates an empty binary search tree, which will keep itself balanced
+	 * if selfBalancing is true.
+	 */
+	public BinarySearchTree(boolean selfBalancing) {
+		rootNode = null;
+		this.selfBalancing = selfBalancing;
+		searchPath = new TreeNode[32];
+		metrics = TreeMetrics.ENABLED ? new TreeMetrics(this) : null;
+	}
+	
+	/*
+	 * Creates a tree holding the given values, which must be in ascending order, without
+	 * self-balancing. See fromSorted(int[], boolean).
+	 */
+	public static BinarySearchTree fromSorted(int[] values) {
+		return fromSorted(values, false);
+	}
+	
+	/*
+	 * Creates a tree holding the given values, which must be in ascending order, and which
+	 * will keep itself balanced if selfBalancing is true. Duplicates are ignored the same
+	 * way addNewNode ignores them. The tree is built directly in a perfectly
+	 * balanced shape in linear time, rather than by adding the values one at a time.
+	 * An IllegalArgumentException is thrown if the values are not in ascending order.
+	 * The given array is not modified.
+	 */
+	public static BinarySearchTree fromSorted(int[] values, boolean selfBalancing) {
+		BinarySearchTree tree = new BinarySearchTree(selfBalancing);
+		int[] distinctValues;
+		
+		for(int i = 1; i < values.length; i++)
+			if(values[i] < values[i - 1])
+				throw new IllegalArgumentException("Values are not in ascending order at index " + i + ".");
+		
+		distinctValues = removeDuplicates(values);
+		tree.rootNode = buildBalanced(distinctValues, 0, distinctValues.length - 1);
+		
+		return tree;
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, without self-balancing.
+	 * See fromUnsorted(int[], boolean).
+	 */
+	public static BinarySearchTree fromUnsorted(int[] values) {
+		return fromUnsorted(values, false);
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, which will keep itself
+	 * balanced if selfBalancing is true. A sorted copy of the values is made and the tree
+	 * is then built from it as fromSorted does, ignoring duplicates. The given
+	 * array is not modified.
+	 */
+	public static BinarySearchTree fromUnsorted(int[] values, boolean selfBalancing) {
+		int[] sortedValues = Arrays.copyOf(values, values.length);
+		
+		Arrays.sort(sortedValues);
+		
+		return fromSorted(sortedValues, selfBalancing);
+	}
+	
+	/*
+	 * Returns the given ascending values without any duplicates. The given array itself is
+	 * returned if it holds none.
+	 */
+	private static int[] removeDuplicates(int[] sortedValues) {
+		int[] result;
+		int count = 0;
+		
+		for(int i = 0; i < sortedValues.length; i++)
+			if(i == 0 || sortedValues[i] != sortedValues[i - 1])
+				count++;
+		
+		if(count == sortedValues.length)
+			return sortedValues;
+		
+		result = new int[count];
+		count = 0;
+		
+		for(int i = 0; i < sortedValues.length; i++)
+			if(i == 0 || sortedValues[i] != sortedValues[i - 1])
+				result[count++] = sortedValues[i];
+		
+		return result;
+	}
+	
+	/*
+	 * Builds a perfectly balanced tree out of the ascending values from index low to index
+	 * high, inclusive, and returns its root. The middle value becomes the root, and the
+	 * values on either side of it become its left and right subtrees, so the recursion is
+	 * only as deep as the resulting tree. A root of null is returned when low > high.
+	 */
+	private static TreeNode buildBalanced(int[] sortedValues, int low, int high) {
+		int middle;
+		TreeNode leftChild;
+		TreeNode rightChild;
+		
+		if(low > high)
+			return null;
+		
+		middle = (low + high) >>> 1;
+		leftChild = buildBalanced(sortedValues, low, middle - 1);
+		rightChild = buildBalanced(sortedValues, middle + 1, high);
+		
+		return new TreeNode(sortedValues[middle], leftChild, rightChild);
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		boolean result = false;
+		TreeNode target = rootNode;
+		int targetData;
+		// The metrics code is removed by the JIT when TreeMetrics.ENABLED is false.
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		int nodesVisited = 0;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(TreeMetrics.ENABLED)
+				nodesVisited++;
+			
+			// If some data within the tree matches the search value.
+			if(searchValue == targetData) {
+				result = true;
+				break;
+			}
+			
+			// Otherwise keep traversing the tree.
+			if(searchValue > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordLookup(startTime, nodesVisited);
+		
+		return result;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return rootNode == null;
+	}
+	
+	/*
+	 * Gets a reference to the root node of this tree, for classes in this package that
+	 * walk the tree themselves.
+	 */
+	TreeNode getRootNode() {
+		return rootNode;
+	}
+	
+	// Returns the number of values in this tree, read off the size of the root node.
+	public int size() {
+		return (rootNode != null) ? rootNode.getSize() : 0;
+	}
+	
+	/*
+	 * Returns the metrics gathered for this tree, which can also be registered with JMX,
+	 * or null if metrics are not enabled. See TreeMetrics.
+	 */
+	public TreeMetrics getMetrics() {
+		return metrics;
+	}
+	
+	// Returns true if this tree keeps itself balanced, false otherwise.
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	/*
+	 * Returns the height of this tree, being the number of nodes on its longest
+	 * root-to-leaf path. An empty tree has a height of zero. The height is read
+	 * directly off the root node for a self-balancing tree, otherwise it is
+	 * measured with a level-order walk of the tree.
+	 */
+	public int getHeight() {
+		ArrayDeque<TreeNode> currentLevel;
+		TreeNode target;
+		int height = 0;
+		int levelSize;
+		
+		if(isEmpty())
+			return 0;
+		
+		if(selfBalancing)
+			return rootNode.getHeight();
+		
+		currentLevel = new ArrayDeque<TreeNode>();
+		currentLevel.add(rootNode);
+		
+		while(!currentLevel.isEmpty()) {
+			height++;
+			levelSize = currentLevel.size();
+			
+			// Replace every node on this level with its children.
+			for(int i = 0; i < levelSize; i++) {
+				target = currentLevel.poll();
+				
+				if(target.hasLeftChild())
+					currentLevel.add(target.getLeftChild());
+				
+				if(target.hasRightChild())
+					currentLevel.add(target.getRightChild());
+			}
+		}
+		
+		return height;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be
+	 * any integer, zero included. If a node containing the given data already
+	 * exists within this tree, then the tree is left unaffected.
+	 */
+	public void addNewNode(int nodeData) {
+		long startTime;
+		
+		if(!TreeMetrics.ENABLED) {
+			insertNode(nodeData);
+			return;
+		}
+		
+		startTime = System.nanoTime();
+		insertNode(nodeData);
+		metrics.recordOperation(TreeMetrics.ADD_NEW_NODE, startTime);
+		metrics.recordModification();
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data, as addNewNode does.
+	 * 
+	 * The tree is walked iteratively, so a degenerate tree of any depth cannot
+	 * overflow the call stack. Without self-balancing the only link written is the
+	 * one that attaches the new node to its parent. With self-balancing the nodes
+	 * on the walked path are kept in searchPath so they can be rebalanced on the way
+	 * back up. The size of every subtree the new node joins is counted up on the way
+	 * down, and counted back down in a second walk if the data turns out to be a duplicate.
+	 */
+	private void insertNode(int nodeData) {
+		TreeNode target;
+		TreeNode parent = null;
+		int targetData;
+		int pathLength = 0;
+		
+		target = rootNode;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			// Data already exists in the tree, no duplicates allowed.
+			if(nodeData == targetData) {
+				adjustPathSizes(nodeData, -1);
+				clearPath(pathLength);
+				return;
+			}
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			target.setSize(target.getSize() + 1);
+			parent = target;
+			
+			if(nodeData > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// Spot in the tree for the new node to occupy is found.
+		if(parent == null)
+			rootNode = new TreeNode(nodeData);
+		else if(nodeData > parent.getData())
+			parent.setRightChild(new TreeNode(nodeData));
+		else
+			parent.setLeftChild(new TreeNode(nodeData));
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists.
+	 * An empty tree or a tree that does not contain the given nodeData is
+	 * left unaffected.
+	 */
+	public void removeNode(int nodeData) {
+		long startTime;
+		
+		if(!TreeMetrics.ENABLED) {
+			deleteNode(nodeData);
+			return;
+		}
+		
+		startTime = System.nanoTime();
+		deleteNode(nodeData);
+		metrics.recordOperation(TreeMetrics.REMOVE_NODE, startTime);
+		metrics.recordModification();
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists, as removeNode does.
+	 * 
+	 * A target node with two children takes the data of the rightmost child in its
+	 * left subtree, and that child is removed instead. Like addNewNode, the tree is
+	 * walked iteratively and, without self-balancing, only the single link that
+	 * bypasses the removed node is written. Subtree sizes are counted down on the way
+	 * down, and counted back up in a second walk if nodeData is not in the tree.
+	 */
+	private void deleteNode(int nodeData) {
+		TreeNode target = rootNode;
+		TreeNode parent = null;
+		TreeNode rightMostParent;
+		TreeNode rightMostChild;
+		int targetData;
+		int pathLength = 0;
+		
+		// Find the target node along with its parent.
+		while(target != null) {
+			targetData = target.getData();
+			
+			// Target node found.
+			if(nodeData == targetData)
+				break;
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			target.setSize(target.getSize() - 1);
+			parent = target;
+			
+			// True if nodeData is greater than target, false if target is greater.
+			if(nodeData > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// nodeData does not exist within the tree.
+		if(target == null) {
+			adjustPathSizes(nodeData, 1);
+			clearPath(pathLength);
+			return;
+		}
+		
+		if(target.hasLeftChild() && target.hasRightChild()) {
+			rightMostParent = target;
+			rightMostChild = target.getLeftChild();
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			target.setSize(target.getSize() - 1);
+			
+			// Find the rightmost child in the target's left subtree, along with its parent.
+			while(rightMostChild.hasRightChild()) {
+				if(selfBalancing)
+					pathLength = pushPath(pathLength, rightMostChild);
+				
+				rightMostChild.setSize(rightMostChild.getSize() - 1);
+				rightMostParent = rightMostChild;
+				rightMostChild = rightMostChild.getRightChild();
+			}
+			
+			// Set the target's data to the same as the rightmost child, then bypass that child.
+			target.setData(rightMostChild.getData());
+			
+			if(rightMostParent == target)
+				target.setLeftChild(rightMostChild.getLeftChild());
+			else
+				rightMostParent.setRightChild(rightMostChild.getLeftChild());
+		} else if(target.hasLeftChild())
+			replaceChild(parent, target, target.getLeftChild());
+		else
+			replaceChild(parent, target, target.getRightChild());
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Checks which of the given values this tree contains. The returned BitSet has the bit
+	 * at index i set if and only if the value at index i of the given array is in this tree.
+	 * 
+	 * Rather than walking down from the root once for every value, the values are sorted
+	 * once and then sent down the tree together: at each node, the values smaller than the
+	 * node's data continue into its left subtree and the larger ones into its right subtree.
+	 * Each node is therefore visited at most once, however many of the values pass through it.
+	 */
+	public BitSet containsAll(int[] values) {
+		BitSet result = new BitSet(values.length);
+		// Every value is packed with its index, the value in the high half, so that sorting
+		// the packed values sorts them by value while remembering where each came from.
+		long[] packedValues = new long[values.length];
+		TreeNode[] nodeStack = new TreeNode[32];
+		int[] rangeStack = new int[64];
+		int stackSize = 0;
+		TreeNode target;
+		int low;
+		int high;
+		int firstEqual;
+		int firstGreater;
+		
+		for(int i = 0; i < values.length; i++)
+			packedValues[i] = ((long) values[i] << 32) | i;
+		
+		Arrays.sort(packedValues);
+		
+		if(isEmpty() || values.length == 0)
+			return result;
+		
+		nodeStack[0] = rootNode;
+		rangeStack[0] = 0;
+		rangeStack[1] = values.length;
+		stackSize = 1;
+		
+		while(stackSize > 0) {
+			stackSize--;
+			target = nodeStack[stackSize];
+			nodeStack[stackSize] = null;
+			low = rangeStack[2 * stackSize];
+			high = rangeStack[2 * stackSize + 1];
+			
+			firstEqual = firstPackedIndexAtLeast(packedValues, low, high, target.getData());
+			firstGreater = firstEqual;
+			
+			// Every copy of the node's data is found in this tree.
+			while(firstGreater < high && (int) (packedValues[firstGreater] >> 32) == target.getData())
+				result.set((int) packedValues[firstGreater++]);
+			
+			if(stackSize + 2 > nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+				rangeStack = Arrays.copyOf(rangeStack, rangeStack.length * 2);
+			}
+			
+			if(low < firstEqual && target.hasLeftChild()) {
+				nodeStack[stackSize] = target.getLeftChild();
+				rangeStack[2 * stackSize] = low;
+				rangeStack[2 * stackSize + 1] = firstEqual;
+				stackSize++;
+			}
+			
+			if(firstGreater < high && target.hasRightChild()) {
+				nodeStack[stackSize] = target.getRightChild();
+				rangeStack[2 * stackSize] = firstGreater;
+				rangeStack[2 * stackSize + 1] = high;
+				stackSize++;
+			}
+		}
+		
+		return result;
+	}
+	
+	/*
+	 * Returns the first index from low up to, but not including, high of the sorted packed
+	 * values whose value is at least the given value, or high if there is none.
+	 */
+	private static int firstPackedIndexAtLeast(long[] packedValues, int low, int high, int value) {
+		long packedValue = (long) value << 32;
+		int middle;
+		
+		while(low < high) {
+			middle = (low + high) >>> 1;
+			
+			if(packedValues[middle] < packedValue)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		
+		return low;
+	}
+	
+	/*
+	 * Adds every one of the given values to this tree, ignoring duplicates the same way
+	 * addNewNode does. The given array is not modified.
+	 * 
+	 * The values are sorted once first. An empty tree is then bulk loaded as fromSorted
+	 * does. A tree that is not self-balancing receives all of the values in one descent:
+	 * the values are split at each node as in containsAll, and every run of values that
+	 * reaches an empty spot is attached there as a balanced subtree. A self-balancing tree
+	 * is rebuilt from the merge of its values and the new ones when the batch is large
+	 * compared to the tree, and otherwise has the values added one at a time in ascending
+	 * order, so that consecutive insertions share most of their path.
+	 */
+	public void addAll(int[] values) {
+		int[] sortedValues = Arrays.copyOf(values, values.length);
+		
+		Arrays.sort(sortedValues);
+		sortedValues = removeDuplicates(sortedValues);
+		
+		if(isEmpty())
+			rootNode = buildBalanced(sortedValues, 0, sortedValues.length - 1);
+		else if(!selfBalancing)
+			addAllInOneDescent(sortedValues);
+		else if(prefersRebuild(sortedValues.length))
+			rebuild(mergeWithTree(sortedValues, true));
+		else
+			for(int value : sortedValues)
+				addNewNode(value);
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordModification();
+	}
+	
+	/*
+	 * Removes every one of the given values from this tree, if it exists. The given array
+	 * is not modified.
+	 * 
+	 * The values are sorted once first. A tree that is not self-balancing has all of the
+	 * values removed in one descent: the values are split at each node as in containsAll,
+	 * and every node holding one of them is replaced by the join of its two subtrees once
+	 * they have been dealt with. A self-balancing tree is rebuilt without the values when
+	 * the batch is large compared to the tree, and otherwise has them removed one at a time
+	 * in ascending order, so that consecutive removals share most of their path.
+	 */
+	public void removeAll(int[] values) {
+		int[] sortedValues = Arrays.copyOf(values, values.length);
+		
+		Arrays.sort(sortedValues);
+		
+		if(isEmpty())
+			return;
+		
+		if(!selfBalancing)
+			removeAllInOneDescent(sortedValues);
+		else if(prefersRebuild(sortedValues.length))
+			rebuild(mergeWithTree(sortedValues, false));
+		else
+			for(int value : sortedValues)
+				removeNode(value);
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordModification();
+	}
+	
+	/*
+	 * Adds the given ascending, distinct values to this nonempty tree in a single
+	 * descent, splitting them at each node and attaching every run of values that reaches
+	 * an empty spot as a balanced subtree. An explicit stack is used, so a tree of any depth
+	 * can be descended. Values already in the tree are dropped by containsAll first, so that
+	 * every value sent to a node is known to end up in its subtree.
+	 */
+	private void addAllInOneDescent(int[] values) {
+		BitSet contained = containsAll(values);
+		int[] sortedValues = new int[values.length - contained.cardinality()];
+		TreeNode[] nodeStack = new TreeNode[32];
+		int[] rangeStack = new int[64];
+		int stackSize = 1;
+		int newCount = 0;
+		TreeNode target;
+		int low;
+		int high;
+		int split;
+		
+		for(int i = 0; i < values.length; i++)
+			if(!contained.get(i))
+				sortedValues[newCount++] = values[i];
+		
+		if(newCount == 0)
+			return;
+		
+		nodeStack[0] = rootNode;
+		rangeStack[0] = 0;
+		rangeStack[1] = newCount;
+		
+		while(stackSize > 0) {
+			stackSize--;
+			target = nodeStack[stackSize];
+			nodeStack[stackSize] = null;
+			low = rangeStack[2 * stackSize];
+			high = rangeStack[2 * stackSize + 1];
+			
+			// None of the values are in the tree, so the search gives where the target's data would go.
+			split = -(Arrays.binarySearch(sortedValues, low, high, target.getData()) + 1);
+			target.setSize(target.getSize() + (high - low));
+			
+			if(stackSize + 2 > nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+				rangeStack = Arrays.copyOf(rangeStack, rangeStack.length * 2);
+			}
+			
+			if(low < split) {
+				if(target.hasLeftChild()) {
+					nodeStack[stackSize] = target.getLeftChild();
+					rangeStack[2 * stackSize] = low;
+					rangeStack[2 * stackSize + 1] = split;
+					stackSize++;
+				} else
+					target.setLeftChild(buildBalanced(sortedValues, low, split - 1));
+			}
+			
+			if(split < high) {
+				if(target.hasRightChild()) {
+					nodeStack[stackSize] = target.getRightChild();
+					rangeStack[2 * stackSize] = split;
+					rangeStack[2 * stackSize + 1] = high;
+					stackSize++;
+				} else
+					target.setRightChild(buildBalanced(sortedValues, split, high - 1));
+			}
+		}
+	}
+	
+	/*
+	 * Removes the given ascending values from this nonempty tree in a single descent. Each
+	 * node is visited at most once on the way down, and the values that reach an empty spot
+	 * are not in the tree and are dropped. A node holding one of the values that has at most
+	 * one child is bypassed on the way down. On the way back up, every other node holding one
+	 * of the values is replaced by the join of its subtrees, whose own removals are finished
+	 * by then, and every node kept has its size recounted from its children. An explicit
+	 * stack is used, so a tree of any depth can be descended.
+	 */
+	private void removeAllInOneDescent(int[] values) {
+		int[] sortedValues = removeDuplicates(values);
+		TreeNode[] nodeStack = new TreeNode[32];
+		TreeNode[] parentStack = new TreeNode[32];
+		// Lowest and highest index of the values sent to each node, and its state: unvisited, kept or removed.
+		int[] rangeStack = new int[96];
+		int stackSize = 1;
+		TreeNode target;
+		TreeNode child;
+		int low;
+		int high;
+		int index;
+		int split;
+		
+		if(sortedValues.length == 0)
+			return;
+		
+		nodeStack[0] = rootNode;
+		parentStack[0] = null;
+		rangeStack[0] = 0;
+		rangeStack[1] = sortedValues.length;
+		rangeStack[2] = UNVISITED;
+		
+		while(stackSize > 0) {
+			target = nodeStack[stackSize - 1];
+			
+			// Back up at a node whose subtrees are done, which is replaced by their join if it is removed.
+			if(rangeStack[3 * stackSize - 1] != UNVISITED) {
+				if(rangeStack[3 * stackSize - 1] == REMOVED)
+					replaceChild(parentStack[stackSize - 1], target, join(target.getLeftChild(), target.getRightChild()));
+				else
+					target.updateSize();
+				
+				stackSize--;
+				nodeStack[stackSize] = null;
+				parentStack[stackSize] = null;
+				continue;
+			}
+			
+			low = rangeStack[3 * stackSize - 3];
+			high = rangeStack[3 * stackSize - 2];
+			index = searchRange(sortedValues, low, high, target.getData());
+			split = (index >= 0) ? index : -(index + 1);
+			
+			// A removed node with at most one child is bypassed at once, and its place on the stack is given to the child.
+			if(index >= 0 && !(target.hasLeftChild() && target.hasRightChild())) {
+				child = target.hasLeftChild() ? target.getLeftChild() : target.getRightChild();
+				replaceChild(parentStack[stackSize - 1], target, child);
+				
+				if(child == null) {
+					stackSize--;
+					nodeStack[stackSize] = null;
+					parentStack[stackSize] = null;
+				} else {
+					nodeStack[stackSize - 1] = child;
+					
+					if(child == target.getLeftChild())
+						rangeStack[3 * stackSize - 2] = split;
+					else
+						rangeStack[3 * stackSize - 3] = split + 1;
+				}
+				
+				continue;
+			}
+			
+			rangeStack[3 * stackSize - 1] = (index >= 0) ? REMOVED : KEPT;
+			
+			if(stackSize + 2 > nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+				parentStack = Arrays.copyOf(parentStack, parentStack.length * 2);
+				rangeStack = Arrays.copyOf(rangeStack, rangeStack.length * 2);
+			}
+			
+			// Values below or above the target that have no subtree to go to are not in the tree.
+			if(low < split && target.hasLeftChild())
+				stackSize = pushRemoval(nodeStack, parentStack, rangeStack, stackSize, target.getLeftChild(), target,
+						low, split);
+			
+			if(index >= 0)
+				split++;
+			
+			if(split < high && target.hasRightChild())
+				stackSize = pushRemoval(nodeStack, parentStack, rangeStack, stackSize, target.getRightChild(), target,
+						split, high);
+		}
+	}
+	
+	/*
+	 * Searches the given ascending values between the low index, inclusive, and the high
+	 * index, exclusive, for the given key, returning the same result as Arrays.binarySearch.
+	 * Both ends of the range are checked first: in a tree that has degenerated into a list,
+	 * every node sits at one end of the values sent to it, so no binary search is needed.
+	 */
+	private static int searchRange(int[] values, int low, int high, int key) {
+		if(low == high || key < values[low])
+			return -(low + 1);
+		
+		if(key == values[low])
+			return low;
+		
+		if(key > values[high - 1])
+			return -(high + 1);
+		
+		if(key == values[high - 1])
+			return high - 1;
+		
+		return Arrays.binarySearch(values, low, high, key);
+	}
+	
+	/*
+	 * Pushes the given node, its parent and the range of values to remove from its subtree
+	 * onto the stacks of removeAllInOneDescent, marking it as unvisited, and returns the new
+	 * stack size.
+	 */
+	private static int pushRemoval(TreeNode[] nodeStack, TreeNode[] parentStack, int[] rangeStack, int stackSize,
+			TreeNode node, TreeNode parent, int low, int high) {
+		nodeStack[stackSize] = node;
+		parentStack[stackSize] = parent;
+		rangeStack[3 * stackSize] = low;
+		rangeStack[3 * stackSize + 1] = high;
+		rangeStack[3 * stackSize + 2] = UNVISITED;
+		
+		return stackSize + 1;
+	}
+	
+	/*
+	 * Returns the root of a subtree holding the nodes of the two given subtrees, every value
+	 * of the left one being smaller than every value of the right one. The smallest node of
+	 * the right subtree is unlinked and becomes the root, with the sizes on its path counted
+	 * down, so only that path is walked and no node is allocated.
+	 */
+	private static TreeNode join(TreeNode left, TreeNode right) {
+		TreeNode parent;
+		TreeNode smallest;
+		
+		if(left == null)
+			return right;
+		
+		if(right == null)
+			return left;
+		
+		if(!right.hasLeftChild()) {
+			right.setLeftChild(left);
+			right.setSize(right.getSize() + left.getSize());
+			return right;
+		}
+		
+		parent = right;
+		smallest = right.getLeftChild();
+		parent.setSize(parent.getSize() - 1);
+		
+		while(smallest.hasLeftChild()) {
+			parent = smallest;
+			parent.setSize(parent.getSize() - 1);
+			smallest = smallest.getLeftChild();
+		}
+		
+		parent.setLeftChild(smallest.getRightChild());
+		smallest.setLeftChild(left);
+		smallest.setRightChild(right);
+		smallest.setSize(left.getSize() + right.getSize() + 1);
+		
+		return smallest;
+	}
+	
+	/*
+	 * Returns a new tree holding every value that is in this tree, the given other tree or
+	 * both. The in-order sequences of the two trees are merged in a single pass and the
+	 * result is built in a perfectly balanced shape as fromSorted does, so this takes
+	 * O(n + m) time for trees of n and m values. The new tree keeps itself balanced if this
+	 * one does. Neither tree is modified.
+	 */
+	public BinarySearchTree union(BinarySearchTree other) {
+		return combine(other, true, true, true);
+	}
+	
+	/*
+	 * Returns a new tree holding every value that is in both this tree and the given other
+	 * tree, built in O(n + m) time as union does.
+	 */
+	public BinarySearchTree intersect(BinarySearchTree other) {
+		return combine(other, false, false, true);
+	}
+	
+	/*
+	 * Returns a new tree holding every value of this tree that is not in the given other
+	 * tree, built in O(n + m) time as union does.
+	 */
+	public BinarySearchTree difference(BinarySearchTree other) {
+		return combine(other, true, false, false);
+	}
+	
+	/*
+	 * Returns true if every value of this tree is also in the given other tree, false
+	 * otherwise. An empty tree is a subset of any tree. The in-order sequences of the two
+	 * trees are walked side by side, stopping at the first value of this tree that the other
+	 * is found to lack, so this takes O(n + m) time and allocates nothing but the iterators.
+	 */
+	public boolean isSubsetOf(BinarySearchTree other) {
+		TreeIterator iterator = new TreeIterator(rootNode, TraversalOrder.IN_ORDER);
+		TreeIterator otherIterator = new TreeIterator(other.rootNode, TraversalOrder.IN_ORDER);
+		int value;
+		int otherValue;
+		
+		if(size() > other.size())
+			return false;
+		
+		while(iterator.hasNext()) {
+			value = iterator.nextInt();
+			
+			// Skip the other tree's values below this one, which this tree does not need.
+			do {
+				if(!otherIterator.hasNext())
+					return false;
+				otherValue = otherIterator.nextInt();
+			} while(otherValue < value);
+			
+			if(otherValue != value)
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Merges the values of this tree with those of the given other tree and returns a new
+	 * perfectly balanced tree of the values kept, which keeps itself balanced if this one
+	 * does. A value only in this tree is kept if keepOnlyThis is true, a value only in the
+	 * other tree if keepOnlyOther is true, and a value in both if keepBoth is true.
+	 */
+	private BinarySearchTree combine(BinarySearchTree other, boolean keepOnlyThis, boolean keepOnlyOther,
+			boolean keepBoth) {
+		BinarySearchTree tree = new BinarySearchTree(selfBalancing);
+		int[] values = toSortedArray();
+		int[] otherValues = other.toSortedArray();
+		int[] result = new int[(keepOnlyOther ? otherValues.length : 0) + values.length];
+		int resultSize = 0;
+		int index = 0;
+		int otherIndex = 0;
+		
+		while(index < values.length && otherIndex < otherValues.length) {
+			if(values[index] < otherValues[otherIndex]) {
+				if(keepOnlyThis)
+					result[resultSize++] = values[index];
+				index++;
+			} else if(values[index] > otherValues[otherIndex]) {
+				if(keepOnlyOther)
+					result[resultSize++] = otherValues[otherIndex];
+				otherIndex++;
+			} else {
+				if(keepBoth)
+					result[resultSize++] = values[index];
+				index++;
+				otherIndex++;
+			}
+		}
+		
+		// Whatever is left of either tree is only in that tree.
+		for(; keepOnlyThis && index < values.length; index++)
+			result[resultSize++] = values[index];
+		
+		for(; keepOnlyOther && otherIndex < otherValues.length; otherIndex++)
+			result[resultSize++] = otherValues[otherIndex];
+		
+		tree.rootNode = buildBalanced(result, 0, resultSize - 1);
+		
+		return tree;
+	}
+	
+	// Returns the values of this tree in ascending order.
+	private int[] toSortedArray() {
+		int[] sortedValues = new int[size()];
+		TreeIterator iterator = new TreeIterator(rootNode, TraversalOrder.IN_ORDER);
+		
+		for(int i = 0; iterator.hasNext(); i++)
+			sortedValues[i] = iterator.nextInt();
+		
+		return sortedValues;
+	}
+	
+	/*
+	 * Returns true if rebuilding this nonempty self-balancing tree is expected to be cheaper
+	 * than changing batchSize values one at a time. A rebuild merges the values of the tree
+	 * with the batch, costing time linear in size() + batchSize, while the single changes
+	 * cost about log2(size() + batchSize) steps each. The size is kept in the root node, so
+	 * it is read in constant time.
+	 */
+	private boolean prefersRebuild(int batchSize) {
+		long resultSize = (long) size() + batchSize;
+		int logResultSize = 64 - Long.numberOfLeadingZeros(resultSize);
+		
+		return (long) batchSize * logResultSize >= resultSize;
+	}
+	
+	/*
+	 * Merges the values of this tree, in ascending order, with the given ascending values.
+	 * The values of both are returned if keepBoth is true, otherwise only the values of this
+	 * tree that are not among the given values are returned. The result is ascending and
+	 * holds no duplicates.
+	 */
+	private int[] mergeWithTree(int[] sortedValues, boolean keepBoth) {
+		TreeIterator iterator = new TreeIterator(rootNode, TraversalOrder.IN_ORDER);
+		int[] result = new int[Math.max(16, sortedValues.length)];
+		int resultSize = 0;
+		int index = 0;
+		int treeValue;
+		
+		while(iterator.hasNext()) {
+			treeValue = iterator.nextInt();
+			
+			// Given values below the tree's value are only kept when merging both.
+			while(index < sortedValues.length && sortedValues[index] < treeValue) {
+				if(keepBoth && (resultSize == 0 || result[resultSize - 1] != sortedValues[index])) {
+					if(resultSize == result.length)
+						result = Arrays.copyOf(result, resultSize * 2);
+					result[resultSize++] = sortedValues[index];
+				}
+				index++;
+			}
+			
+			// A tree value is dropped when removing and it is among the given values.
+			if(keepBoth || index == sortedValues.length || sortedValues[index] != treeValue) {
+				if(resultSize == result.length)
+					result = Arrays.copyOf(result, resultSize * 2);
+				result[resultSize++] = treeValue;
+			}
+		}
+		
+		for(; keepBoth && index < sortedValues.length; index++) {
+			if(resultSize == 0 || result[resultSize - 1] != sortedValues[index]) {
+				if(resultSize == result.length)
+					result = Arrays.copyOf(result, resultSize * 2);
+				result[resultSize++] = sortedValues[index];
+			}
+		}
+		
+		return Arrays.copyOf(result, resultSize);
+	}
 	
-	// Default constructor, creating an empty binary search tree.
-	public BinarySearchTree() {
-		rootNode = null;
+	// Replaces the contents of this tree with a perfectly balanced tree of the given ascending values.
+	private void rebuild(int[] sortedValues) {
+		rootNode = buildBalanced(sortedValues, 0, sortedValues.length - 1);
 	}
 	
-	// Constructor that creates a new tree with a root node containing the given data.
-	public BinarySearchTree(int rootData) {
-		rootNode = new TreeNode(rootData);
+	/*
+	 * Makes newChild take the place of oldChild underneath the given parent. A parent
+	 * of null means oldChild is the root node of this tree.
+	 */
+	private void replaceChild(TreeNode parent, TreeNode oldChild, TreeNode newChild) {
+		if(parent == null)
+			rootNode = newChild;
+		else if(parent.getLeftChild() == oldChild)
+			parent.setLeftChild(newChild);
+		else
+			parent.setRightChild(newChild);
 	}
 	
 	/*
-	 * Checks whether or not the tree contains a node containing the given searchValue.
-	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 * Adds the given delta to the size of every node on the path from the root towards the
+	 * given nodeData, stopping before the node containing it or at the end of the path. This
+	 * undoes the size changes of an insertion or removal that found nothing to do.
 	 */
-	public boolean contains(int searchValue) {
-		boolean result = false;
+	private void adjustPathSizes(int nodeData, int delta) {
 		TreeNode target = rootNode;
-		int comparisonValue;
+		int targetData;
 		
 		while(target != null) {
-			comparisonValue = searchValue - target.getData();
+			targetData = target.getData();
 			
-			// If some data within the tree matches the search value.
-			if(comparisonValue == 0) {
-				result = true;
-				break;
-			}
+			if(nodeData == targetData)
+				return;
 			
-			// Otherwise keep traversing the tree.
-			if(comparisonValue > 0)
+			target.setSize(target.getSize() + delta);
+			
+			if(nodeData > targetData)
 				target = target.getRightChild();
 			else
 				target = target.getLeftChild();
 		}
-		
-		return result;
 	}
 	
-	// Returns true if the tree is empty, false otherwise.
-	public boolean isEmpty() {
-		return rootNode == null;
+	// Clears the first pathLength nodes of searchPath without rebalancing them.
+	private void clearPath(int pathLength) {
+		for(int i = 0; i < pathLength; i++)
+			searchPath[i] = null;
 	}
 	
 	/*
-	 * Adds a new node to this tree with the given data. The given data can be
-	 * any nonzero integer. A given value of zero will not affect the tree in any
-	 * way.
+	 * Pushes the given node onto searchPath, which currently holds pathLength nodes,
+	 * growing it if needed. The new length of the path is returned.
 	 */
-	public void addNewNode(int nodeData) {
-		// A value of zero cannot be added to the tree, as getNodePredecessor/Successor
-		// would possibly malfunction.
-		if(nodeData == 0)
-			return;
+	private int pushPath(int pathLength, TreeNode node) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
 		
-		TreeNode newNode = new TreeNode(nodeData);
+		searchPath[pathLength] = node;
 		
-		rootNode = addNewNode(rootNode, newNode);
+		return pathLength + 1;
 	}
 	
 	/*
-	 * Recursive method for adding a new node to this tree.
-	 * If a node containing the new node's data already exists within
-	 * this tree, then the tree is left unaffected. This method returns
-	 * a root node for the affected tree containing the new node, assuming
-	 * the new value did not already exist in the tree.
-	 * 
-	 * The base cases for the recursion are:
-	 * 		1. A node containing the same value as newNode is found.
-	 * 		2. An empty spot in the tree for the newNode to occupy is found.
+	 * Rebalances the first pathLength nodes of searchPath, from the deepest node back up
+	 * to the root of this tree, after an insertion or removal below them. The walk stops
+	 * early once a subtree keeps both its root and its height, as nothing above it can
+	 * have changed. The path is cleared as it is walked.
 	 */
-	private TreeNode addNewNode(TreeNode root, TreeNode newNode) {
-		int comparisonValue;
-		TreeNode rightChild;
-		TreeNode leftChild;
+	private void rebalancePath(int pathLength) {
+		TreeNode node;
+		TreeNode balancedNode;
+		int oldHeight;
+		int i;
 		
-		if(root != null) {
-			comparisonValue = newNode.getData() - root.getData();
-			
-			// Data already exists in the tree, no duplicates allowed.
-			if(comparisonValue == 0)
-				return root;
+		for(i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			searchPath[i] = null;
+			oldHeight = node.getHeight();
+			balancedNode = rebalance(node);
 			
-			if(comparisonValue > 0) {
-				rightChild = addNewNode(root.getRightChild(), newNode);
-				root.setRightChild(rightChild);
-			} else {
-				leftChild = addNewNode(root.getLeftChild(), newNode);
-				root.setLeftChild(leftChild);
-			}
+			if(balancedNode != node)
+				replaceChild((i > 0) ? searchPath[i - 1] : null, node, balancedNode);
 			
-			return root;
+			if(balancedNode.getHeight() == oldHeight)
+				break;
 		}
 		
-		// root == null, spot in the tree for newNode to occupy is found.
-		return newNode;
-	}
-	
-	/*
-	 * Removes a node with the given nodeData from the tree, if it exists.
-	 * An empty tree or a tree that does not contain the given nodeData is
-	 * left unaffected.
-	 */
-	public void removeNode(int nodeData) {
-		if(!isEmpty())
-			rootNode = removeNode(rootNode, nodeData);
+		// Clear what remains of the path if the walk stopped early.
+		for(i = i - 1; i >= 0; i--)
+			searchPath[i] = null;
 	}
 	
 	/*
-	 * Recursive method for removing a value from this tree. If the given value, nodeData,
-	 * is found within the tree, then it is properly removed from the tree, otherwise the tree
-	 * is left unaffected. If the node to be removed is the root of the entire tree, then removeRootNode()
-	 * is invoked.
-	 * 
-	 * The base cases for the recursion are:
-	 * 		1. The target node to be removed is found.
-	 * 		2. A null reference is encountered when traversing the tree.
+	 * Restores the AVL property of the subtree rooted at the given root parameter, assuming
+	 * both of its own subtrees are already balanced and their heights differ by at most two.
+	 * The root of the resulting subtree is returned.
 	 */
-	private TreeNode removeNode(TreeNode root, int nodeData) {
-		int comparisonValue;
+	private TreeNode rebalance(TreeNode root) {
+		int balanceFactor;
 		
-		if(root != null) {
-			comparisonValue = nodeData - root.getData();
-			
-			// Target node found.
-			if(comparisonValue == 0) {
-				if(root == rootNode)
-					return removeRootNode();
-				else if(root.hasLeftChild() && root.hasRightChild()) {
-					// Set the node's data to the same as rightmost child in its left subtree.
-					root.setData(getRightMostChild(root.getLeftChild()).getData());
-					// Set the node's left child to resulting subtree after removing its rightmost child.
-					root.setLeftChild(removeRightMostChild(root.getLeftChild()));
-					return root;
-				} else if(root.hasLeftChild())
-					return root.getLeftChild();
-				else
-					return root.getRightChild();
-				
-			// True if nodeData is greater than root, false if root is greater.
-			} else if(comparisonValue > 0)
-				root.setRightChild(removeNode(root.getRightChild(), nodeData));
-			else
-				root.setLeftChild(removeNode(root.getLeftChild(), nodeData));
+		root.updateHeight();
+		balanceFactor = root.getBalanceFactor();
+		
+		if(balanceFactor > 1) {
+			// Left subtree is too tall, a left-right case needs a rotation of the left child first.
+			if(root.getLeftChild().getBalanceFactor() < 0)
+				root.setLeftChild(rotateLeft(root.getLeftChild()));
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			// Right subtree is too tall, a right-left case needs a rotation of the right child first.
+			if(root.getRightChild().getBalanceFactor() > 0)
+				root.setRightChild(rotateRight(root.getRightChild()));
+			return rotateLeft(root);
 		}
 		
-		// root == null, nodeData does not exist within the tree.
 		return root;
 	}
 	
 	/*
-	 * This method is invoked when a node to be removed from this tree happens to be
-	 * the root node. The root node of this tree is changed appropriately after the removal
-	 * and then returned.
+	 * Rotates the subtree rooted at the given root parameter to the left, so that its right
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
 	 */
-	private TreeNode removeRootNode() {
-		if(rootNode.hasLeftChild() && rootNode.hasRightChild()) {
-			// Set the root node's data to the same as rightmost child in its left subtree.
-			rootNode.setData(getRightMostChild(rootNode.getLeftChild()).getData());
-			// Set root node's left child to resulting subtree after removing its rightmost child.
-			rootNode.setLeftChild(removeRightMostChild(rootNode.getLeftChild()));
-		} else if(rootNode.hasLeftChild())
-			rootNode = rootNode.getLeftChild();
-		else
-			rootNode = rootNode.getRightChild();
+	private TreeNode rotateLeft(TreeNode root) {
+		TreeNode newRoot = root.getRightChild();
 		
-		return rootNode;
+		root.setRightChild(newRoot.getLeftChild());
+		newRoot.setLeftChild(root);
+		root.updateHeight();
+		root.updateSize();
+		newRoot.updateHeight();
+		newRoot.updateSize();
+		
+		return newRoot;
 	}
 	
 	/*
-	 * Removes the rightmost child of a tree that is rooted at the given root parameter.
-	 * The root of the affected tree is then returned.
+	 * Rotates the subtree rooted at the given root parameter to the right, so that its left
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
 	 */
-	private TreeNode removeRightMostChild(TreeNode root) {
-		if(root.hasRightChild()) {
-			root.setRightChild(removeRightMostChild(root.getRightChild()));
-			return root;
-		} else
-			return root.getLeftChild();
+	private TreeNode rotateRight(TreeNode root) {
+		TreeNode newRoot = root.getLeftChild();
+		
+		root.setLeftChild(newRoot.getRightChild());
+		newRoot.setRightChild(root);
+		root.updateHeight();
+		root.updateSize();
+		newRoot.updateHeight();
+		newRoot.updateSize();
+		
+		return newRoot;
 	}
 	
 	/*
@@ -223,149 +1200,317 @@ public class BinarySearchTree {
 	 * will return an empty string.
 	 */
 	public String getPreOrderSequence() {
-		if(isEmpty())
-			return "";
-		else
-			return getPreOrderSequence(rootNode);
+		return getSequence(TraversalOrder.PRE_ORDER);
 	}
 	
 	/*
-	 * Builds the pre-order sequence string and then returns it.
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in an in-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
 	 */
-	private String getPreOrderSequence(TreeNode root) {
-		String result;
-		
-		result = Integer.toString(root.getData()) + " ";
-		
-		if(root.hasLeftChild())
-			result = result + getPreOrderSequence(root.getLeftChild());
-		
-		if(root.hasRightChild())
-			result = result + getPreOrderSequence(root.getRightChild());
-		
-		return result;
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
 	}
 	
 	/*
 	 * Returns a string containing the sequence of printed output when traversing this tree
-	 * in an in-order traversal. Each printed value is separated by a space. An empty tree
+	 * in a post-order traversal. Each printed value is separated by a space. An empty tree
 	 * will return an empty string.
 	 */
-	public String getInOrderSequence() {
-		if(isEmpty())
-			return "";
-		else
-			return getInOrderSequence(rootNode);
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
 	}
 	
 	/*
-	 * Builds the in-order sequence string and then returns it.
+	 * Builds the sequence string for a traversal of this tree in the given order and then
+	 * returns it. Every value is appended straight into a single StringBuilder.
 	 */
-	private String getInOrderSequence(TreeNode root) {
-		String result = "";
-		
-		if(root.hasLeftChild())
-			result = result + getInOrderSequence(root.getLeftChild());
+	private String getSequence(TraversalOrder order) {
+		StringBuilder result = new StringBuilder();
 		
-		result = result + Integer.toString(root.getData()) + " ";
+		forEach(order, value -> result.append(value).append(' '));
 		
-		if(root.hasRightChild())
-			result = result + getInOrderSequence(root.getRightChild());
-		
-		return result;
+		return result.toString();
 	}
 	
 	/*
-	 * Returns a string containing the sequence of printed output when traversing this tree
-	 * in a post-order traversal. Each printed value is separated by a space. An empty tree
-	 * will return an empty string.
+	 * Returns an iterator over the data of this tree, visiting its nodes in the given order.
+	 * The iterator keeps its own stack, so a tree of any depth can be iterated over, and
+	 * no value is boxed. The tree must not be modified while the iterator is in use.
 	 */
-	public String getPostOrderSequence() {
-		if(isEmpty())
-			return "";
-		else
-			return getPostOrderSequence(rootNode);
+	public PrimitiveIterator.OfInt iterator(TraversalOrder order) {
+		return new TreeIterator(rootNode, order);
 	}
 	
 	/*
-	 * Builds the post-order sequence string and then returns it.
+	 * Passes the data of every node in this tree to the given action, visiting the nodes
+	 * in the given order.
 	 */
-	private String getPostOrderSequence(TreeNode root) {
-		String result = "";
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		TreeIterator iterator = new TreeIterator(rootNode, order);
 		
-		if(root.hasLeftChild())
-			result = result + getPostOrderSequence(root.getLeftChild());
+		while(iterator.hasNext())
+			action.accept(iterator.nextInt());
+	}
+	
+	/*
+	 * Writes the sequence of printed output when traversing this tree in the given order
+	 * to the given output, in the same format as getPreOrderSequence, getInOrderSequence
+	 * and getPostOrderSequence. The digits of each value are written directly, so no
+	 * intermediate strings are created. Any IOException thrown by the output is passed
+	 * on to the caller.
+	 */
+	public void appendSequence(TraversalOrder order, Appendable output) throws IOException {
+		TreeIterator iterator = new TreeIterator(rootNode, order);
+		// Holds the characters of one value, which is at most 11 characters long including its sign.
+		char[] digits = new char[11];
+		int position;
+		int value;
+		int remaining;
 		
-		if(root.hasRightChild())
-			result = result + getPostOrderSequence(root.getRightChild());
+		while(iterator.hasNext()) {
+			value = iterator.nextInt();
+			position = digits.length;
+			// Digits are produced from the least significant one, working with a nonpositive
+			// value so that Integer.MIN_VALUE does not overflow.
+			remaining = (value > 0) ? -value : value;
+			
+			do {
+				digits[--position] = (char) ('0' - (remaining % 10));
+				remaining /= 10;
+			} while(remaining != 0);
+			
+			if(value < 0)
+				digits[--position] = '-';
+			
+			for(int i = position; i < digits.length; i++)
+				output.append(digits[i]);
+			
+			output.append(' ');
+		}
+	}
+	
+	/*
+	 * Returns a spliterator over the data of this tree, in ascending order. It splits at
+	 * subtrees in constant time, so a parallel stream over it fans out across the tree
+	 * rather than reading it in one thread first. Every part knows exactly how many values
+	 * it holds from the subtree sizes. The tree must not be modified while the spliterator
+	 * is in use.
+	 */
+	public Spliterator.OfInt spliterator() {
+		return new TreeSpliterator(rootNode);
+	}
+	
+	/*
+	 * Returns a sequential stream of the data of this tree, in ascending order. The tree
+	 * must not be modified while the stream is in use.
+	 */
+	public IntStream stream() {
+		return StreamSupport.intStream(spliterator(), false);
+	}
+	
+	/*
+	 * Returns a parallel stream of the data of this tree, in ascending order, whose work is
+	 * split between the threads of the common ForkJoinPool. The tree must not be modified
+	 * while the stream is in use.
+	 */
+	public IntStream parallelStream() {
+		return StreamSupport.intStream(spliterator(), true);
+	}
+	
+	// Returns the number of values in this tree, the same as size.
+	public long count() {
+		return size();
+	}
+	
+	// Returns the sum of the values in this tree, added up in parallel without overflowing an int.
+	public long sum() {
+		return parallelStream().asLongStream().sum();
+	}
+	
+	/*
+	 * Returns the smallest value in this tree, which is the data of its leftmost child,
+	 * or an empty OptionalInt if the tree is empty.
+	 */
+	public OptionalInt min() {
+		if(isEmpty())
+			return OptionalInt.empty();
 		
-		result = result + Integer.toString(root.getData()) + " ";
+		return OptionalInt.of(getLeftMostChild(rootNode).getData());
+	}
+	
+	/*
+	 * Returns the largest value in this tree, which is the data of its rightmost child,
+	 * or an empty OptionalInt if the tree is empty.
+	 */
+	public OptionalInt max() {
+		if(isEmpty())
+			return OptionalInt.empty();
 		
-		return result;
+		return OptionalInt.of(getRightMostChild(rootNode).getData());
+	}
+	
+	/*
+	 * Combines the values of this tree in parallel with the given operator, starting from
+	 * the given identity, as IntStream.reduce does. The operator must be associative and
+	 * the identity must leave any value unchanged when combined with it.
+	 */
+	public int reduce(int identity, IntBinaryOperator operator) {
+		return parallelStream().reduce(identity, operator);
+	}
+	
+	/*
+	 * Returns an immutable copy of this tree laid out for fast lookups, as described in
+	 * FrozenBinarySearchTree. The copy is made in linear time and is not affected by any
+	 * later change to this tree. An IllegalArgumentException is thrown if this tree holds
+	 * more than FrozenBinarySearchTree.MAX_SIZE values.
+	 */
+	public FrozenBinarySearchTree freeze() {
+		return new FrozenBinarySearchTree(toSortedArray());
+	}
+	
+	/*
+	 * Saves the values of this tree to a snapshot file at the given path, replacing any
+	 * file already there. The snapshot can later be opened with TreeSnapshot.open, which
+	 * maps the file into memory and answers lookups from it without rebuilding a tree.
+	 * Any IOException thrown while writing the file is passed on to the caller.
+	 */
+	public void saveSnapshot(Path path) throws IOException {
+		TreeSnapshot.write(new TreeIterator(rootNode, TraversalOrder.IN_ORDER), path);
 	}
 	
 	/*
 	 * Gets the data of a predecessor of a node within this tree that contains the given nodeData, if it exists.
 	 * A predecessor of a node is defined as being the node that prints its data immediately before that node in
 	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not exist
-	 * in this tree, otherwise the predecessor's data is returned.
+	 * in this tree, otherwise the predecessor's data is returned. Zero can also be a real predecessor, so
+	 * getNodePredecessor(int, IntResult) should be used to tell the two apart.
 	 */
 	public int getNodePredecessor(int nodeData) {
-		TreeNode target;
-		TreeNode predecessor = new TreeNode();
-		int comparisonValue;
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeNode predecessor = findPredecessor(nodeData);
 		
-		if(isEmpty())
-			return 0;
+		if(TreeMetrics.ENABLED)
+			metrics.recordOperation(TreeMetrics.PREDECESSOR, startTime);
 		
-		target = rootNode;
+		return (predecessor != null) ? predecessor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData, as
+	 * getNodePredecessor(int) does, and stores its data in the given result. Returns true if
+	 * the predecessor exists. Otherwise, if this tree is empty, nodeData does not exist in this
+	 * tree or its node has no predecessor, the result is cleared and false is returned. Nothing
+	 * is allocated, so the same result can be reused for any number of lookups.
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeNode predecessor = findPredecessor(nodeData);
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordOperation(TreeMetrics.PREDECESSOR, startTime);
+		
+		if(predecessor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(predecessor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of a successor of a node within this tree that contains the given nodeData, if it exists.
+	 * A successor of a node is defined as being the node that prints its data immediately after that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not
+	 * exist in this tree, otherwise the successor's data is returned. Zero can also be a real successor, so
+	 * getNodeSuccessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeNode successor = findSuccessor(nodeData);
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordOperation(TreeMetrics.SUCCESSOR, startTime);
+		
+		return (successor != null) ? successor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData, as
+	 * getNodeSuccessor(int) does, and stores its data in the given result. Returns true if
+	 * the successor exists. Otherwise, if this tree is empty, nodeData does not exist in this
+	 * tree or its node has no successor, the result is cleared and false is returned. Nothing
+	 * is allocated, so the same result can be reused for any number of lookups.
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		TreeNode successor = findSuccessor(nodeData);
+		
+		if(TreeMetrics.ENABLED)
+			metrics.recordOperation(TreeMetrics.SUCCESSOR, startTime);
+		
+		if(successor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(successor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Returns the predecessor of the node within this tree that contains the given nodeData,
+	 * or null if this tree is empty, nodeData does not exist in this tree or its node has no
+	 * predecessor. It is visible to the classes in this package that wrap a tree.
+	 */
+	TreeNode findPredecessor(int nodeData) {
+		TreeNode target = rootNode;
+		TreeNode predecessor = null;
+		int targetData;
 		
-		do {
-			comparisonValue = nodeData - target.getData();
+		while(target != null) {
+			targetData = target.getData();
 			
-			if(comparisonValue == 0) {
+			if(nodeData == targetData) {
 				if(target.hasLeftChild())
 					// Predecessor will be rightmost child in target's left subtree.
 					predecessor = getRightMostChild(target.getLeftChild());
-				return predecessor.getData();
-			} else if(comparisonValue > 0) {
+				return predecessor;
+			} else if(nodeData > targetData) {
 				// Possible predecessor if the node does exist in the tree and does not have a left child
 				// and is the leftmost child in some other node's right subtree.
 				predecessor = target;
 				target = target.getRightChild();
 			} else
 				target = target.getLeftChild();
-		} while(target != null);
+		}
 		
 		// The desired node does not exist in this tree.
-		return 0;
+		return null;
 	}
 	
 	/*
-	 * Gets the data of a successor of a node within this tree that contains the given nodeData, if it exists.
-	 * A successor of a node is defined as being the node that prints its data immediately after that node in
-	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not
-	 * exist in this tree, otherwise the successor's data is returned.
+	 * Returns the successor of the node within this tree that contains the given nodeData,
+	 * or null if this tree is empty, nodeData does not exist in this tree or its node has no
+	 * successor. It is visible to the classes in this package that wrap a tree.
 	 */
-	public int getNodeSuccessor(int nodeData) {
-		TreeNode target;
-		TreeNode successor = new TreeNode();
-		int comparisonValue;
-		
-		if(isEmpty())
-			return 0;
-		
-		target = rootNode;
+	TreeNode findSuccessor(int nodeData) {
+		TreeNode target = rootNode;
+		TreeNode successor = null;
+		int targetData;
 		
-		do {
-			comparisonValue = nodeData - target.getData();
+		while(target != null) {
+			targetData = target.getData();
 			
-			if(comparisonValue == 0) {
+			if(nodeData == targetData) {
 				if(target.hasRightChild())
 					// Successor will be leftmost child in target's right subtree.
 					successor = getLeftMostChild(target.getRightChild());
-				return successor.getData();
-			} else if(comparisonValue > 0)
+				return successor;
+			} else if(nodeData > targetData)
 				target = target.getRightChild();
 			else {
 				// Possible successor if the node does exist in the tree and does not have a right child
@@ -373,9 +1518,157 @@ public class BinarySearchTree {
 				successor = target;
 				target = target.getLeftChild();
 			}
-		} while(target != null);
+		}
 		
 		// The desired node does not exist in this tree.
-		return 0;
+		return null;
+	}
+	
+	/*
+	 * Returns the largest value in this tree that is less than or equal to the given key,
+	 * or an empty OptionalInt if there is none. The key does not need to be in the tree.
+	 */
+	public OptionalInt floor(int key) {
+		return nearest(key, true, true);
+	}
+	
+	/*
+	 * Returns the smallest value in this tree that is greater than or equal to the given
+	 * key, or an empty OptionalInt if there is none. The key does not need to be in the tree.
+	 */
+	public OptionalInt ceiling(int key) {
+		return nearest(key, false, true);
+	}
+	
+	/*
+	 * Returns the largest value in this tree that is strictly less than the given key,
+	 * or an empty OptionalInt if there is none. The key does not need to be in the tree.
+	 */
+	public OptionalInt lower(int key) {
+		return nearest(key, true, false);
+	}
+	
+	/*
+	 * Returns the smallest value in this tree that is strictly greater than the given key,
+	 * or an empty OptionalInt if there is none. The key does not need to be in the tree.
+	 */
+	public OptionalInt higher(int key) {
+		return nearest(key, false, false);
+	}
+	
+	/*
+	 * Returns an iterator over the values of this tree from low to high, both inclusive,
+	 * in ascending order. The values are produced lazily: creating the iterator takes a
+	 * single descent from the root, and every value after that takes amortized constant
+	 * time, so scanning k values costs O(log n + k). A low greater than high results in an
+	 * empty iteration. The tree must not be modified while the iterator is in use.
+	 */
+	public PrimitiveIterator.OfInt range(int low, int high) {
+		return new TreeRangeIterator(rootNode, low, high);
+	}
+	
+	/*
+	 * Finds the value in this tree closest to the given key on one side of it, in a single
+	 * descent. The closest value below the key is found if below is true, otherwise the
+	 * closest value above it. The key itself is an answer only if inclusive is true.
+	 */
+	private OptionalInt nearest(int key, boolean below, boolean inclusive) {
+		TreeNode target = rootNode;
+		TreeNode candidate = null;
+		int targetData;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(targetData == key && inclusive)
+				return OptionalInt.of(targetData);
+			
+			// Every value on the correct side of the key is closer than the previous candidate.
+			if(below ? targetData < key : targetData > key) {
+				candidate = target;
+				target = below ? target.getRightChild() : target.getLeftChild();
+			} else
+				target = below ? target.getLeftChild() : target.getRightChild();
+		}
+		
+		if(candidate == null)
+			return OptionalInt.empty();
+		
+		return OptionalInt.of(candidate.getData());
+	}
+	
+	/*
+	 * Returns the number of values in this tree that are less than the given key, which
+	 * does not need to be in the tree. For a key in the tree this is its index in the
+	 * in-order sequence, starting from zero. Only the path to the key is walked, adding up
+	 * the sizes of the left subtrees passed on the way.
+	 */
+	public int rank(int key) {
+		return countBelow(key, false);
+	}
+	
+	/*
+	 * Returns the value at the given index of this tree's in-order sequence, so that an
+	 * index of zero gives the smallest value and an index of size() - 1 the largest. Only
+	 * one path down the tree is walked, guided by the sizes of the left subtrees. An
+	 * IndexOutOfBoundsException is thrown if the index is negative or not less than size().
+	 */
+	public int select(int index) {
+		TreeNode target = rootNode;
+		int remaining = index;
+		int leftSize;
+		
+		if(index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a tree of size " + size() + ".");
+		
+		while(true) {
+			leftSize = target.hasLeftChild() ? target.getLeftChild().getSize() : 0;
+			
+			if(remaining == leftSize)
+				return target.getData();
+			
+			if(remaining < leftSize)
+				target = target.getLeftChild();
+			else {
+				// Skip the left subtree and the target itself.
+				remaining -= leftSize + 1;
+				target = target.getRightChild();
+			}
+		}
+	}
+	
+	/*
+	 * Returns the number of values in this tree from low to high, both inclusive, with two
+	 * walks down the tree rather than by visiting the values. A low greater than high gives
+	 * a count of zero.
+	 */
+	public int countInRange(int low, int high) {
+		if(low > high)
+			return 0;
+		
+		return countBelow(high, true) - countBelow(low, false);
+	}
+	
+	/*
+	 * Returns the number of values in this tree that are less than the given key, also
+	 * counting the key itself if inclusive is true and it is in the tree.
+	 */
+	private int countBelow(int key, boolean inclusive) {
+		TreeNode target = rootNode;
+		int count = 0;
+		int leftSize;
+		
+		while(target != null) {
+			leftSize = target.hasLeftChild() ? target.getLeftChild().getSize() : 0;
+			
+			if(target.getData() < key || (inclusive && target.getData() == key)) {
+				// The target and its whole left subtree come before the key.
+				count += leftSize + 1;
+				target = target.getRightChild();
+			} else
+				target = target.getLeftChild();
+		}
+		
+		return count;
 	}
 }
@@ -0,0 +1,422 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a thread-safe binary search tree that can be shared between many threads.
+ * It wraps a self-balancing BinarySearchTree and guards it with a StampedLock. Insertions
+ * and removals take the write lock. Lookups first walk the tree without taking any lock
+ * at all, and then check that no write happened while they were walking. Only if one did
+ * is the lookup repeated under the read lock, so reads never wait on each other and only
+ * wait on a writer when they actually overlap with one.
+ *
+ * An optimistic walk may observe the tree in the middle of a write, so it reads every
+ * link once, never trusts what it has read until the lock has validated it, and gives up
+ * after MAX_OPTIMISTIC_STEPS nodes. An AVL tree of any size that fits in memory is far
+ * shallower than that, so a longer walk can only be the result of a concurrent write.
+ *
+ * When TreeMetrics.ENABLED is true, every lookup is recorded in the metrics of the wrapped
+ * tree, whichever way it was answered, so they can be read through the wrapped tree's
+ * TreeMetrics as for a tree used on its own.
+ */
+public class ConcurrentBinarySearchTree {
+	// Most nodes an optimistic walk visits before falling back to the read lock.
+	private static final int MAX_OPTIMISTIC_STEPS = 64;
+	// Result of an optimistic walk that could not reach an answer.
+	private static final long RETRY = Long.MIN_VALUE;
+	// Result of a predecessor or successor lookup that found none, outside the range of an int.
+	private static final long NONE = Long.MAX_VALUE;
+	
+	// Tree holding the values, only ever modified under the write lock.
+	private BinarySearchTree tree;
+	// Lock guarding the tree.
+	private StampedLock lock;
+	
+	// Default constructor, creating an empty tree.
+	public ConcurrentBinarySearchTree() {
+		tree = new BinarySearchTree(true);
+		lock = new StampedLock();
+	}
+	
+	/*
+	 * Constructor that wraps the given tree, which must be self-balancing and must not be
+	 * used directly once it has been wrapped.
+	 */
+	ConcurrentBinarySearchTree(BinarySearchTree tree) {
+		this.tree = tree;
+		lock = new StampedLock();
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		// The metrics code is removed by the JIT when TreeMetrics.ENABLED is false.
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		long stamp = lock.tryOptimisticRead();
+		long result;
+		
+		if(stamp != 0) {
+			result = optimisticContains(searchValue);
+			if(result != RETRY && lock.validate(stamp)) {
+				if(TreeMetrics.ENABLED)
+					tree.getMetrics().recordLookup(startTime, (int) (result >> 1));
+				return (result & 1) != 0;
+			}
+		}
+		
+		// A lookup under the read lock is recorded by the wrapped tree's own contains.
+		stamp = lock.readLock();
+		try {
+			return tree.contains(searchValue);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		long stamp = lock.tryOptimisticRead();
+		boolean result = tree.getRootNode() == null;
+		
+		if(stamp != 0 && lock.validate(stamp))
+			return result;
+		
+		stamp = lock.readLock();
+		try {
+			return tree.isEmpty();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	// Returns the number of values in this tree, read off the size of the root node.
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		TreeNode root = tree.getRootNode();
+		int result = (root != null) ? root.getSize() : 0;
+		
+		if(stamp != 0 && lock.validate(stamp))
+			return result;
+		
+		stamp = lock.readLock();
+		try {
+			return tree.size();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data, following the same contract as
+	 * BinarySearchTree.addNewNode.
+	 */
+	public void addNewNode(int nodeData) {
+		long stamp = lock.writeLock();
+		
+		try {
+			tree.addNewNode(nodeData);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists, following the
+	 * same contract as BinarySearchTree.removeNode.
+	 */
+	public void removeNode(int nodeData) {
+		long stamp = lock.writeLock();
+		
+		try {
+			tree.removeNode(nodeData);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/*
+	 * Gets the data of the predecessor of the node containing the given nodeData, following
+	 * the same contract as BinarySearchTree.getNodePredecessor(int).
+	 */
+	public int getNodePredecessor(int nodeData) {
+		long predecessor = findPredecessor(nodeData);
+		
+		return (predecessor == NONE) ? 0 : (int) predecessor;
+	}
+	
+	/*
+	 * Finds the predecessor of the node containing the given nodeData and stores its data in
+	 * the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		long predecessor = findPredecessor(nodeData);
+		
+		if(predecessor == NONE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set((int) predecessor);
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of the successor of the node containing the given nodeData, following
+	 * the same contract as BinarySearchTree.getNodeSuccessor(int).
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		long successor = findSuccessor(nodeData);
+		
+		return (successor == NONE) ? 0 : (int) successor;
+	}
+	
+	/*
+	 * Finds the successor of the node containing the given nodeData and stores its data in
+	 * the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		long successor = findSuccessor(nodeData);
+		
+		if(successor == NONE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set((int) successor);
+		
+		return true;
+	}
+	
+	/*
+	 * Returns the data of the predecessor of the node containing the given nodeData, or NONE
+	 * if there is none, trying an optimistic walk before falling back to the read lock.
+	 */
+	private long findPredecessor(int nodeData) {
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		long stamp = lock.tryOptimisticRead();
+		long result = RETRY;
+		TreeNode predecessor;
+		
+		if(stamp != 0) {
+			result = optimisticPredecessor(nodeData);
+			if(!lock.validate(stamp))
+				result = RETRY;
+		}
+		
+		if(result == RETRY) {
+			stamp = lock.readLock();
+			try {
+				predecessor = tree.findPredecessor(nodeData);
+				result = (predecessor != null) ? predecessor.getData() : NONE;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		
+		if(TreeMetrics.ENABLED)
+			tree.getMetrics().recordOperation(TreeMetrics.PREDECESSOR, startTime);
+		
+		return result;
+	}
+	
+	/*
+	 * Returns the data of the successor of the node containing the given nodeData, or NONE
+	 * if there is none, trying an optimistic walk before falling back to the read lock.
+	 */
+	private long findSuccessor(int nodeData) {
+		long startTime = TreeMetrics.ENABLED ? System.nanoTime() : 0;
+		long stamp = lock.tryOptimisticRead();
+		long result = RETRY;
+		TreeNode successor;
+		
+		if(stamp != 0) {
+			result = optimisticSuccessor(nodeData);
+			if(!lock.validate(stamp))
+				result = RETRY;
+		}
+		
+		if(result == RETRY) {
+			stamp = lock.readLock();
+			try {
+				successor = tree.findSuccessor(nodeData);
+				result = (successor != null) ? successor.getData() : NONE;
+			} finally {
+				lock.unlockRead(stamp);
+			}
+		}
+		
+		if(TreeMetrics.ENABLED)
+			tree.getMetrics().recordOperation(TreeMetrics.SUCCESSOR, startTime);
+		
+		return result;
+	}
+	
+	// Returns the pre-order sequence of this tree, read under the read lock.
+	public String getPreOrderSequence() {
+		long stamp = lock.readLock();
+		
+		try {
+			return tree.getPreOrderSequence();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	// Returns the in-order sequence of this tree, read under the read lock.
+	public String getInOrderSequence() {
+		long stamp = lock.readLock();
+		
+		try {
+			return tree.getInOrderSequence();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	// Returns the post-order sequence of this tree, read under the read lock.
+	public String getPostOrderSequence() {
+		long stamp = lock.readLock();
+		
+		try {
+			return tree.getPostOrderSequence();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * Passes the data of every node in this tree to the given action, visiting the nodes in
+	 * the given order. The read lock is held for the whole traversal, so writers wait until
+	 * it is over and the action must not modify this tree.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		long stamp = lock.readLock();
+		
+		try {
+			tree.forEach(order, action);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * Saves the values of this tree to a snapshot file at the given path, as
+	 * BinarySearchTree.saveSnapshot does. The read lock is held while the file is written,
+	 * so writers wait until it is saved.
+	 */
+	public void saveSnapshot(Path path) throws IOException {
+		long stamp = lock.readLock();
+		
+		try {
+			tree.saveSnapshot(path);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/*
+	 * Walks the tree without any lock looking for the given searchValue. Returns the number
+	 * of nodes visited shifted left by one, with the lowest bit set if the value was found,
+	 * or RETRY if the walk was too long to be trusted.
+	 */
+	private long optimisticContains(int searchValue) {
+		TreeNode target = tree.getRootNode();
+		int targetData;
+		
+		for(int steps = 0; steps < MAX_OPTIMISTIC_STEPS; steps++) {
+			if(target == null)
+				return (long) steps << 1;
+			
+			targetData = target.getData();
+			
+			if(searchValue == targetData)
+				return ((long) (steps + 1) << 1) | 1;
+			
+			if(searchValue > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		return RETRY;
+	}
+	
+	/*
+	 * Walks the tree without any lock looking for the predecessor of the given nodeData.
+	 * Returns its data, NONE if it does not exist, or RETRY if the walk was too long to be
+	 * trusted.
+	 */
+	private long optimisticPredecessor(int nodeData) {
+		TreeNode target = tree.getRootNode();
+		TreeNode next;
+		long predecessor = NONE;
+		int targetData;
+		
+		for(int steps = 0; steps < MAX_OPTIMISTIC_STEPS; steps++) {
+			if(target == null)
+				return NONE;
+			
+			targetData = target.getData();
+			
+			if(nodeData == targetData) {
+				// Predecessor will be rightmost child in target's left subtree.
+				next = target.getLeftChild();
+				while(next != null && steps++ < MAX_OPTIMISTIC_STEPS) {
+					predecessor = next.getData();
+					next = next.getRightChild();
+				}
+				return (next == null) ? predecessor : RETRY;
+			} else if(nodeData > targetData) {
+				predecessor = targetData;
+				target = target.getRightChild();
+			} else
+				target = target.getLeftChild();
+		}
+		
+		return RETRY;
+	}
+	
+	/*
+	 * Walks the tree without any lock looking for the successor of the given nodeData.
+	 * Returns its data, NONE if it does not exist, or RETRY if the walk was too long to be
+	 * trusted.
+	 */
+	private long optimisticSuccessor(int nodeData) {
+		TreeNode target = tree.getRootNode();
+		TreeNode next;
+		long successor = NONE;
+		int targetData;
+		
+		for(int steps = 0; steps < MAX_OPTIMISTIC_STEPS; steps++) {
+			if(target == null)
+				return NONE;
+			
+			targetData = target.getData();
+			
+			if(nodeData == targetData) {
+				// Successor will be leftmost child in target's right subtree.
+				next = target.getRightChild();
+				while(next != null && steps++ < MAX_OPTIMISTIC_STEPS) {
+					successor = next.getData();
+					next = next.getLeftChild();
+				}
+				return (next == null) ? successor : RETRY;
+			} else if(nodeData > targetData)
+				target = target.getRightChild();
+			else {
+				successor = targetData;
+				target = target.getLeftChild();
+			}
+		}
+		
+		return RETRY;
+	}
+}
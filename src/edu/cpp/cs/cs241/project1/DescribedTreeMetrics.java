@@ -0,0 +1,39 @@
+package edu.cpp.cs.cs241.project1;
+
+import javax.management.MBeanAttributeInfo;
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+/*
+ * This class is the MBean TreeMetrics.register registers for a TreeMetrics object. It
+ * exposes the attributes and operations of TreeMetricsMBean unchanged, but gives the
+ * Height and RootBalanceFactor attributes descriptions saying what reading them costs, so
+ * that whoever points a monitoring tool at them can see it.
+ */
+class DescribedTreeMetrics extends StandardMBean {
+	// Cost of reading the Height or RootBalanceFactor attribute, ending each of their descriptions.
+	private static final String SHAPE_COST = " Read off the root of a self-balancing tree. For a tree that is not"
+			+ " self-balancing, measured by walking every node, in time linear in the size of the tree, on the"
+			+ " first read after each modification, and cached until the next.";
+	
+	/*
+	 * Constructor that creates an MBean for the given metrics. A NotCompliantMBeanException
+	 * is thrown if TreeMetricsMBean is not a valid MBean interface.
+	 */
+	DescribedTreeMetrics(TreeMetrics metrics) throws NotCompliantMBeanException {
+		super(metrics, TreeMetricsMBean.class);
+	}
+	
+	// Returns the description of the given attribute.
+	@Override
+	protected String getDescription(MBeanAttributeInfo info) {
+		switch(info.getName()) {
+		case "Height":
+			return "Current height of the tree." + SHAPE_COST;
+		case "RootBalanceFactor":
+			return "Height of the left subtree of the root minus that of its right subtree." + SHAPE_COST;
+		default:
+			return super.getDescription(info);
+		}
+	}
+}
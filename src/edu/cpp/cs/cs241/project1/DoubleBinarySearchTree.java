@@ -0,0 +1,445 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/*
+ * This class is a binary search tree of double values, providing the same operations as
+ * LongBinarySearchTree. Like BinarySearchTree it may optionally be self-balancing, in
+ * which case it is kept as an AVL tree.
+ *
+ * Its nodes hold their data as a primitive double, so no value is ever boxed. Values are
+ * ordered by Double.compare, which, unlike the < and == operators, is a total order: -0.0
+ * comes before 0.0, and NaN comes after positive infinity and is equal to itself, so every
+ * double, NaN included, can be added, found and removed. A lookup allocates nothing, and a
+ * lookup that may or may not find a value reports it through a reusable DoubleResult.
+ */
+public class DoubleBinarySearchTree {
+	// Field containing the root node of this tree.
+	private DoubleTreeNode rootNode;
+	// True if this tree rebalances itself after every insertion and removal, false otherwise.
+	private boolean selfBalancing;
+	// Number of values in this tree.
+	private int size;
+	// Nodes walked by the current insertion or removal, used only when self-balancing.
+	private DoubleTreeNode[] searchPath;
+	
+	// Default constructor, creating an empty binary search tree.
+	public DoubleBinarySearchTree() {
+		this(false);
+	}
+	
+	/*
+	 * Constructor that creates an empty binary search tree, which will keep itself balanced
+	 * if selfBalancing is true.
+	 */
+	public DoubleBinarySearchTree(boolean selfBalancing) {
+		rootNode = null;
+		this.selfBalancing = selfBalancing;
+		size = 0;
+		searchPath = new DoubleTreeNode[32];
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(double searchValue) {
+		DoubleTreeNode target = rootNode;
+		int comparison;
+		
+		while(target != null) {
+			comparison = Double.compare(searchValue, target.getData());
+			
+			if(comparison == 0)
+				return true;
+			
+			if(comparison > 0)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		return false;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return rootNode == null;
+	}
+	
+	// Returns the number of values in this tree.
+	public int size() {
+		return size;
+	}
+	
+	// Returns true if this tree keeps itself balanced, false otherwise.
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. If a node containing the given
+	 * data already exists within this tree, then the tree is left unaffected. The tree is
+	 * walked iteratively, as in BinarySearchTree.addNewNode.
+	 */
+	public void addNewNode(double nodeData) {
+		DoubleTreeNode target = rootNode;
+		DoubleTreeNode parent = null;
+		int comparison;
+		int pathLength = 0;
+		
+		while(target != null) {
+			comparison = Double.compare(nodeData, target.getData());
+			
+			// Data already exists in the tree, no duplicates allowed.
+			if(comparison == 0) {
+				clearPath(pathLength);
+				return;
+			}
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(comparison > 0)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// Spot in the tree for the new node to occupy is found.
+		if(parent == null)
+			rootNode = new DoubleTreeNode(nodeData);
+		else if(Double.compare(nodeData, parent.getData()) > 0)
+			parent.setRightChild(new DoubleTreeNode(nodeData));
+		else
+			parent.setLeftChild(new DoubleTreeNode(nodeData));
+		
+		size++;
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists. An empty tree or
+	 * a tree that does not contain the given nodeData is left unaffected. A target node with
+	 * two children takes the data of the rightmost child in its left subtree, and that child
+	 * is removed instead, as in BinarySearchTree.removeNode.
+	 */
+	public void removeNode(double nodeData) {
+		DoubleTreeNode target = rootNode;
+		DoubleTreeNode parent = null;
+		DoubleTreeNode rightMostParent;
+		DoubleTreeNode rightMostChild;
+		int comparison;
+		int pathLength = 0;
+		
+		// Find the target node along with its parent.
+		while(target != null) {
+			comparison = Double.compare(nodeData, target.getData());
+			
+			// Target node found.
+			if(comparison == 0)
+				break;
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(comparison > 0)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// nodeData does not exist within the tree.
+		if(target == null) {
+			clearPath(pathLength);
+			return;
+		}
+		
+		if(target.getLeftChild() != null && target.getRightChild() != null) {
+			rightMostParent = target;
+			rightMostChild = target.getLeftChild();
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			// Find the rightmost child in the target's left subtree, along with its parent.
+			while(rightMostChild.getRightChild() != null) {
+				if(selfBalancing)
+					pathLength = pushPath(pathLength, rightMostChild);
+				
+				rightMostParent = rightMostChild;
+				rightMostChild = rightMostChild.getRightChild();
+			}
+			
+			// Set the target's data to the same as the rightmost child, then bypass that child.
+			target.setData(rightMostChild.getData());
+			
+			if(rightMostParent == target)
+				target.setLeftChild(rightMostChild.getLeftChild());
+			else
+				rightMostParent.setRightChild(rightMostChild.getLeftChild());
+		} else if(target.getLeftChild() != null)
+			replaceChild(parent, target, target.getLeftChild());
+		else
+			replaceChild(parent, target, target.getRightChild());
+		
+		size--;
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData,
+	 * being the node that prints its data immediately before that node in an in-order
+	 * traversal, and stores its data in the given result. Returns true if the predecessor
+	 * exists. Otherwise, if this tree is empty, nodeData does not exist in this tree or its
+	 * node has no predecessor, the result is cleared and false is returned.
+	 */
+	public boolean getNodePredecessor(double nodeData, DoubleResult result) {
+		DoubleTreeNode target = rootNode;
+		DoubleTreeNode predecessor = null;
+		int comparison;
+		
+		while(target != null) {
+			comparison = Double.compare(nodeData, target.getData());
+			
+			if(comparison == 0) {
+				// Predecessor will be rightmost child in target's left subtree, if it has one.
+				if(target.getLeftChild() != null)
+					predecessor = getRightMostChild(target.getLeftChild());
+				break;
+			} else if(comparison > 0) {
+				predecessor = target;
+				target = target.getRightChild();
+			} else
+				target = target.getLeftChild();
+		}
+		
+		// The desired node or its predecessor does not exist in this tree.
+		if(target == null || predecessor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(predecessor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData,
+	 * being the node that prints its data immediately after that node in an in-order
+	 * traversal, and stores its data in the given result. Returns true if the successor
+	 * exists. Otherwise, if this tree is empty, nodeData does not exist in this tree or its
+	 * node has no successor, the result is cleared and false is returned.
+	 */
+	public boolean getNodeSuccessor(double nodeData, DoubleResult result) {
+		DoubleTreeNode target = rootNode;
+		DoubleTreeNode successor = null;
+		int comparison;
+		
+		while(target != null) {
+			comparison = Double.compare(nodeData, target.getData());
+			
+			if(comparison == 0) {
+				// Successor will be leftmost child in target's right subtree, if it has one.
+				if(target.getRightChild() != null)
+					successor = getLeftMostChild(target.getRightChild());
+				break;
+			} else if(comparison > 0)
+				target = target.getRightChild();
+			else {
+				successor = target;
+				target = target.getLeftChild();
+			}
+		}
+		
+		// The desired node or its successor does not exist in this tree.
+		if(target == null || successor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(successor.getData());
+		
+		return true;
+	}
+	
+	// Passes every value of this tree to the given action, in ascending order.
+	public void forEach(DoubleConsumer action) {
+		DoubleTreeNode[] stack = new DoubleTreeNode[32];
+		DoubleTreeNode target = rootNode;
+		int stackSize = 0;
+		
+		while(target != null || stackSize > 0) {
+			// Push the path to the leftmost child that has not been visited yet.
+			while(target != null) {
+				if(stackSize == stack.length)
+					stack = Arrays.copyOf(stack, stackSize * 2);
+				
+				stack[stackSize++] = target;
+				target = target.getLeftChild();
+			}
+			
+			target = stack[--stackSize];
+			action.accept(target.getData());
+			target = target.getRightChild();
+		}
+	}
+	
+	/*
+	 * Returns the in-order sequence of this tree, in the same format as
+	 * BinarySearchTree.getInOrderSequence.
+	 */
+	public String getInOrderSequence() {
+		StringBuilder sequence = new StringBuilder();
+		
+		forEach(value -> sequence.append(value).append(' '));
+		
+		return sequence.toString();
+	}
+	
+	/*
+	 * Makes newChild take the place of oldChild underneath the given parent. A parent
+	 * of null means oldChild is the root node of this tree.
+	 */
+	private void replaceChild(DoubleTreeNode parent, DoubleTreeNode oldChild, DoubleTreeNode newChild) {
+		if(parent == null)
+			rootNode = newChild;
+		else if(parent.getLeftChild() == oldChild)
+			parent.setLeftChild(newChild);
+		else
+			parent.setRightChild(newChild);
+	}
+	
+	// Clears the first pathLength nodes of searchPath without rebalancing them.
+	private void clearPath(int pathLength) {
+		for(int i = 0; i < pathLength; i++)
+			searchPath[i] = null;
+	}
+	
+	/*
+	 * Pushes the given node onto searchPath, which currently holds pathLength nodes,
+	 * growing it if needed. The new length of the path is returned.
+	 */
+	private int pushPath(int pathLength, DoubleTreeNode node) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
+		
+		searchPath[pathLength] = node;
+		
+		return pathLength + 1;
+	}
+	
+	/*
+	 * Rebalances the first pathLength nodes of searchPath, from the deepest node back up
+	 * to the root of this tree, as in BinarySearchTree. The path is cleared as it is walked.
+	 */
+	private void rebalancePath(int pathLength) {
+		DoubleTreeNode node;
+		DoubleTreeNode balancedNode;
+		int oldHeight;
+		int i;
+		
+		for(i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			searchPath[i] = null;
+			oldHeight = node.getHeight();
+			balancedNode = rebalance(node);
+			
+			if(balancedNode != node)
+				replaceChild((i > 0) ? searchPath[i - 1] : null, node, balancedNode);
+			
+			if(balancedNode.getHeight() == oldHeight)
+				break;
+		}
+		
+		// Clear what remains of the path if the walk stopped early.
+		for(i = i - 1; i >= 0; i--)
+			searchPath[i] = null;
+	}
+	
+	/*
+	 * Restores the AVL property of the subtree rooted at the given root parameter, assuming
+	 * both of its own subtrees are already balanced and their heights differ by at most two.
+	 * The root of the resulting subtree is returned.
+	 */
+	private DoubleTreeNode rebalance(DoubleTreeNode root) {
+		int balanceFactor;
+		
+		root.updateHeight();
+		balanceFactor = root.getBalanceFactor();
+		
+		if(balanceFactor > 1) {
+			// Left subtree is too tall, a left-right case needs a rotation of the left child first.
+			if(root.getLeftChild().getBalanceFactor() < 0)
+				root.setLeftChild(rotateLeft(root.getLeftChild()));
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			// Right subtree is too tall, a right-left case needs a rotation of the right child first.
+			if(root.getRightChild().getBalanceFactor() > 0)
+				root.setRightChild(rotateRight(root.getRightChild()));
+			return rotateLeft(root);
+		}
+		
+		return root;
+	}
+	
+	/*
+	 * Rotates the subtree rooted at the given root parameter to the left, so that its right
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
+	 */
+	private DoubleTreeNode rotateLeft(DoubleTreeNode root) {
+		DoubleTreeNode newRoot = root.getRightChild();
+		
+		root.setRightChild(newRoot.getLeftChild());
+		newRoot.setLeftChild(root);
+		root.updateHeight();
+		newRoot.updateHeight();
+		
+		return newRoot;
+	}
+	
+	/*
+	 * Rotates the subtree rooted at the given root parameter to the right, so that its left
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
+	 */
+	private DoubleTreeNode rotateRight(DoubleTreeNode root) {
+		DoubleTreeNode newRoot = root.getLeftChild();
+		
+		root.setLeftChild(newRoot.getRightChild());
+		newRoot.setRightChild(root);
+		root.updateHeight();
+		newRoot.updateHeight();
+		
+		return newRoot;
+	}
+	
+	// Returns a reference to the leftmost child of a tree rooted at the given root parameter.
+	private DoubleTreeNode getLeftMostChild(DoubleTreeNode root) {
+		DoubleTreeNode target = root;
+		
+		while(target.getLeftChild() != null)
+			target = target.getLeftChild();
+		
+		return target;
+	}
+	
+	// Returns a reference to the rightmost child of a tree rooted at the given root parameter.
+	private DoubleTreeNode getRightMostChild(DoubleTreeNode root) {
+		DoubleTreeNode target = root;
+		
+		while(target.getRightChild() != null)
+			target = target.getRightChild();
+		
+		return target;
+	}
+}
@@ -0,0 +1,63 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.NoSuchElementException;
+
+/*
+ * This class holds the result of a lookup that may or may not find a double value, such as
+ * DoubleBinarySearchTree.getNodePredecessor(double, DoubleResult). It is the double counterpart of
+ * IntResult, and can likewise be reused for any number of lookups without allocating.
+ */
+public class DoubleResult {
+	// True if the last lookup found a value, false otherwise.
+	private boolean present;
+	// Value found by the last lookup, only meaningful when present is true.
+	private double value;
+	
+	// Default constructor, creating a result holding no value.
+	public DoubleResult() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Records that a lookup found the given value.
+	 */
+	public void set(double newValue) {
+		present = true;
+		value = newValue;
+	}
+	
+	/*
+	 * Records that a lookup found no value.
+	 */
+	public void clear() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Returns true if the last lookup found a value, false otherwise.
+	 */
+	public boolean isPresent() {
+		return present;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup. A NoSuchElementException is thrown if the
+	 * last lookup found no value.
+	 */
+	public double getValue() {
+		if(!present)
+			throw new NoSuchElementException("No value is present.");
+		
+		return value;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup, or the given other value if the last lookup
+	 * found no value.
+	 */
+	public double getValueOrElse(double other) {
+		return present ? value : other;
+	}
+}
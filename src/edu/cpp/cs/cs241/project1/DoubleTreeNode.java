@@ -0,0 +1,79 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class represents a node of a DoubleBinarySearchTree. It holds the same children and
+ * height as a TreeNode, but its data is a double, kept as a primitive so that no value in
+ * the tree is ever boxed.
+ */
+class DoubleTreeNode {
+	private double data;
+	private DoubleTreeNode leftChild;
+	private DoubleTreeNode rightChild;
+	// Height of the subtree rooted at this node, a lone leaf having a height of one.
+	private int height;
+	
+	/*
+	 * Constructor that creates a new DoubleTreeNode object with a data value according to
+	 * the parameter given and no left or right children.
+	 */
+	DoubleTreeNode(double data) {
+		this.data = data;
+		leftChild = null;
+		rightChild = null;
+		height = 1;
+	}
+	
+	// Sets the data of this node according to the parameter given.
+	void setData(double newData) {
+		data = newData;
+	}
+	
+	// Sets the left child of this node according to the parameter given.
+	void setLeftChild(DoubleTreeNode newNode) {
+		leftChild = newNode;
+	}
+	
+	// Sets the right child of this node according to the parameter given.
+	void setRightChild(DoubleTreeNode newNode) {
+		rightChild = newNode;
+	}
+	
+	// Recalculates the height of this node from the heights of its children.
+	void updateHeight() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		height = Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Gets the data of this node.
+	double getData() {
+		return data;
+	}
+	
+	// Gets a reference to this node's left child.
+	DoubleTreeNode getLeftChild() {
+		return leftChild;
+	}
+	
+	// Gets a reference to this node's right child.
+	DoubleTreeNode getRightChild() {
+		return rightChild;
+	}
+	
+	// Gets the height of the subtree rooted at this node.
+	int getHeight() {
+		return height;
+	}
+	
+	/*
+	 * Returns the balance factor of this node, being the height of its left subtree minus
+	 * the height of its right subtree.
+	 */
+	int getBalanceFactor() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		return leftHeight - rightHeight;
+	}
+}
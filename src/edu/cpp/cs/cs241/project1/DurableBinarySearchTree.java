@@ -0,0 +1,241 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * This class is a thread-safe binary search tree whose insertions and removals survive a
+ * crash. It keeps its values in a ConcurrentBinarySearchTree, so lookups never touch the
+ * disk, and records every insertion and removal that changes the tree in a WriteAheadLog
+ * before returning. How soon a mutation is forced to the storage device is set by the
+ * SyncPolicy the tree is opened with: forcing every mutation loses nothing in a crash, while
+ * forcing once per time or size window can lose the mutations of the current window but
+ * logs mutations far faster.
+ *
+ * open rebuilds the tree from the snapshot saved by the last checkpoint, if there is one,
+ * and then replays the log on top of it. checkpoint forces the log, saves a new snapshot and
+ * empties the log, so that the log, and the time taken to replay it, stay short. If a crash
+ * happens after a new snapshot has been saved but before the log has been emptied, the log
+ * is replayed on top of a snapshot that already holds its mutations. Since the log was
+ * forced first, it holds every mutation the snapshot does, so each value it mentions ends as
+ * its last mutation in the log left it, which is how the snapshot holds it. Replaying only
+ * part of those mutations would not be safe: a value removed and then inserted again could
+ * be left as an older mutation left it, which is why the log must be forced first.
+ *
+ * Insertions and removals are made one at a time, and the log is written in the same order.
+ * Under EVERY_OPERATION, a mutation waits for its force without blocking other mutations, so
+ * the mutations of many threads are forced together.
+ */
+public class DurableBinarySearchTree implements Closeable {
+	// Tree holding the values.
+	private ConcurrentBinarySearchTree tree;
+	// Log every mutation of the tree is appended to.
+	private WriteAheadLog log;
+	// Path of the snapshot saved by checkpoint.
+	private Path snapshotPath;
+	
+	// Constructor that creates a tree of the given values logging its mutations to the given log.
+	private DurableBinarySearchTree(ConcurrentBinarySearchTree tree, WriteAheadLog log, Path snapshotPath) {
+		this.tree = tree;
+		this.log = log;
+		this.snapshotPath = snapshotPath;
+	}
+	
+	/*
+	 * Opens the tree saved at the given snapshot and log paths, creating an empty tree if
+	 * neither file exists. The tree is built from the snapshot, if there is one, and every
+	 * intact batch of the log is then replayed on top of it. Its mutations are logged from
+	 * then on according to the given policy and window, which must be positive for every
+	 * policy but EVERY_OPERATION, being a number of milliseconds for TIME_WINDOW and a number
+	 * of mutations for SIZE_WINDOW. An IOException is thrown if either file cannot be read,
+	 * is corrupt or is not of the right kind.
+	 */
+	public static DurableBinarySearchTree open(Path snapshotPath, Path logPath, SyncPolicy policy, long window)
+			throws IOException {
+		BinarySearchTree values;
+		WriteAheadLog log;
+		boolean newLog = !Files.exists(logPath);
+		
+		if(Files.exists(snapshotPath))
+			values = TreeSnapshot.open(snapshotPath).toBinarySearchTree(true);
+		else
+			values = new BinarySearchTree(true);
+		
+		log = WriteAheadLog.open(logPath, policy, window, values);
+		
+		// The new log file must be in its directory for any mutation logged to it to be found after a crash.
+		if(newLog)
+			forceDirectory(logPath);
+		
+		return new DurableBinarySearchTree(new ConcurrentBinarySearchTree(values), log, snapshotPath);
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		return tree.contains(searchValue);
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return tree.isEmpty();
+	}
+	
+	// Returns the number of values in this tree.
+	public int size() {
+		return tree.size();
+	}
+	
+	/*
+	 * Finds the predecessor of the node containing the given nodeData and stores its data in
+	 * the given result, following the same contract as BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		return tree.getNodePredecessor(nodeData, result);
+	}
+	
+	/*
+	 * Finds the successor of the node containing the given nodeData and stores its data in
+	 * the given result, following the same contract as BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		return tree.getNodeSuccessor(nodeData, result);
+	}
+	
+	// Returns the in-order sequence of this tree.
+	public String getInOrderSequence() {
+		return tree.getInOrderSequence();
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data, following the same contract as
+	 * BinarySearchTree.addNewNode, and logs the insertion if it changed the tree. Returns
+	 * once the insertion is as durable as the policy requires. If the insertion cannot be
+	 * logged, it is undone and an IOException is thrown. If it was logged but could not be
+	 * forced, it stays in the tree but an IOException is thrown, and it may be lost in a crash.
+	 */
+	public void addNewNode(int nodeData) throws IOException {
+		long sequence;
+		
+		synchronized(this) {
+			sequence = logMutation(WriteAheadLog.INSERT, nodeData);
+		}
+		
+		if(sequence != 0)
+			log.commit(sequence);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists, following the same
+	 * contract as BinarySearchTree.removeNode, and logs the removal if it changed the tree.
+	 * Returns once the removal is as durable as the policy requires, and fails in the same
+	 * ways as addNewNode.
+	 */
+	public void removeNode(int nodeData) throws IOException {
+		long sequence;
+		
+		synchronized(this) {
+			sequence = logMutation(WriteAheadLog.REMOVE, nodeData);
+		}
+		
+		if(sequence != 0)
+			log.commit(sequence);
+	}
+	
+	/*
+	 * Applies the mutation of the given type to the given value and appends it to the log,
+	 * undoing it if it cannot be appended. Returns its sequence number in the log, or zero if
+	 * it did not change the tree and was not logged. Must be called while holding the lock of
+	 * this tree, so that mutations are logged in the order they are applied.
+	 */
+	private long logMutation(byte type, int value) throws IOException {
+		int oldSize = tree.size();
+		
+		if(type == WriteAheadLog.INSERT)
+			tree.addNewNode(value);
+		else
+			tree.removeNode(value);
+		
+		if(tree.size() == oldSize)
+			return 0;
+		
+		try {
+			return log.append(type, value);
+		} catch(IOException e) {
+			if(type == WriteAheadLog.INSERT)
+				tree.removeNode(value);
+			else
+				tree.addNewNode(value);
+			throw e;
+		}
+	}
+	
+	/*
+	 * Forces every mutation made so far to the storage device, whatever the policy. An
+	 * IOException is thrown if they cannot be forced.
+	 */
+	public void sync() throws IOException {
+		log.sync();
+	}
+	
+	/*
+	 * Saves the values of this tree to its snapshot and empties its log. The snapshot is
+	 * written to a temporary file, which then replaces the old snapshot, so a crash leaves
+	 * either the old or the new snapshot in place. Mutations wait until the checkpoint is
+	 * over, but lookups do not. An IOException is thrown if the log cannot be forced, the
+	 * snapshot cannot be saved or the log cannot be emptied, in which case the old log is
+	 * kept and still replayed.
+	 */
+	public synchronized void checkpoint() throws IOException {
+		saveCheckpointSnapshot();
+		log.truncate();
+	}
+	
+	/*
+	 * Makes every step of a checkpoint but emptying the log: forces the log, so that it holds
+	 * every mutation the snapshot will, and then saves the snapshot. Must be called while
+	 * holding the lock of this tree, so that no mutation is logged in between.
+	 */
+	synchronized void saveCheckpointSnapshot() throws IOException {
+		Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+		
+		log.sync();
+		tree.saveSnapshot(temporaryPath);
+		Files.move(temporaryPath, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		// The log may only be emptied once the new snapshot is certain to be found after a crash.
+		forceDirectory(snapshotPath);
+	}
+	
+	/*
+	 * Forces every mutation made so far to the storage device and closes the log. The tree
+	 * can still be read afterwards, but any mutation throws an IOException.
+	 */
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+	
+	/*
+	 * Forces the directory holding the file at the given path to the storage device, so that
+	 * a file just created or renamed there is found after a crash. This is skipped on systems
+	 * that cannot open a directory, such as Windows, which make such changes durable themselves.
+	 */
+	private static void forceDirectory(Path path) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		
+		try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch(IOException e) {
+			if(Files.isDirectory(directory) && System.getProperty("os.name").startsWith("Windows"))
+				return;
+			throw e;
+		}
+	}
+}
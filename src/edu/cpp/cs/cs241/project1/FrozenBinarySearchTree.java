@@ -0,0 +1,227 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.function.IntConsumer;
+
+/*
+ * This class is an immutable, read-only copy of a binary search tree, made by
+ * BinarySearchTree.freeze, for trees that are looked up far more often than they change.
+ * Its values are stored in a single int array in Eytzinger order, the order of a
+ * breadth-first walk of a perfectly balanced tree: the root is at index 1, and the
+ * children of the value at index k are at indices 2k and 2k + 1. Index 0 is unused.
+ *
+ * A lookup therefore follows no references at all. The index of the next value to
+ * compare is computed from the result of the last comparison without a branch, so
+ * the processor never mispredicts the direction of the search. The first levels of
+ * the tree sit together at the start of the array where they stay cached, and the
+ * sixteen possible values four levels below any value sit next to each other in
+ * a single cache line, so lookups miss the cache far less often than in a tree of
+ * TreeNodes scattered through the heap.
+ */
+public class FrozenBinarySearchTree {
+	// Most values a frozen tree can hold, so that every index a lookup computes stays below 2^31 - 1.
+	public static final int MAX_SIZE = (1 << 30) - 2;
+	
+	// Values of the tree in Eytzinger order, from index 1 to index size.
+	private int[] values;
+	// Number of values in the tree.
+	private int size;
+	
+	/*
+	 * Constructor that creates a frozen tree holding the given values, which must be
+	 * ascending and distinct. An IllegalArgumentException is thrown if there are more
+	 * than MAX_SIZE values.
+	 */
+	FrozenBinarySearchTree(int[] sortedValues) {
+		if(sortedValues.length > MAX_SIZE)
+			throw new IllegalArgumentException("A frozen tree cannot hold more than " + MAX_SIZE + " values.");
+		
+		size = sortedValues.length;
+		values = new int[size + 1];
+		
+		if(size > 0)
+			fill(sortedValues, 0, 1);
+	}
+	
+	/*
+	 * Places the ascending values starting from the given position into the subtree whose
+	 * root is at the given index, in the order of an in-order traversal of that subtree, and
+	 * returns the position of the first value left over. The recursion is only as deep as
+	 * the tree, which is at most 32 levels.
+	 */
+	private int fill(int[] sortedValues, int position, int index) {
+		int next = position;
+		
+		if(index > size)
+			return next;
+		
+		next = fill(sortedValues, next, 2 * index);
+		values[index] = sortedValues[next++];
+		
+		return fill(sortedValues, next, 2 * index + 1);
+	}
+	
+	// Returns the number of values in this tree.
+	public int size() {
+		return size;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/*
+	 * Checks whether or not the tree contains the given searchValue. Returns true if the
+	 * given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		int index = lowerBound(searchValue);
+		
+		return index != 0 && values[index] == searchValue;
+	}
+	
+	/*
+	 * Gets the data of the predecessor of the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int). An integer value of zero is returned if
+	 * nodeData does not exist in this tree or has no predecessor.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		int index = lowerBound(nodeData);
+		
+		if(index == 0 || values[index] != nodeData)
+			return 0;
+		
+		// values[0] is never written, so a missing predecessor reads as zero.
+		return values[predecessorIndex(index)];
+	}
+	
+	/*
+	 * Finds the predecessor of the given nodeData and stores it in the given result,
+	 * following the same contract as BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		int index = lowerBound(nodeData);
+		
+		if(index != 0 && values[index] == nodeData) {
+			index = predecessorIndex(index);
+			
+			if(index != 0) {
+				result.set(values[index]);
+				return true;
+			}
+		}
+		
+		result.clear();
+		
+		return false;
+	}
+	
+	/*
+	 * Gets the data of the successor of the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int). An integer value of zero is returned if
+	 * nodeData does not exist in this tree or has no successor.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		int index = lowerBound(nodeData);
+		
+		if(index == 0 || values[index] != nodeData)
+			return 0;
+		
+		// values[0] is never written, so a missing successor reads as zero.
+		return values[successorIndex(index)];
+	}
+	
+	/*
+	 * Finds the successor of the given nodeData and stores it in the given result,
+	 * following the same contract as BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		int index = lowerBound(nodeData);
+		
+		if(index != 0 && values[index] == nodeData) {
+			index = successorIndex(index);
+			
+			if(index != 0) {
+				result.set(values[index]);
+				return true;
+			}
+		}
+		
+		result.clear();
+		
+		return false;
+	}
+	
+	// Passes every value of this tree to the given action, in ascending order.
+	public void forEach(IntConsumer action) {
+		int index;
+		
+		if(size == 0)
+			return;
+		
+		// Start from the leftmost value, then step from each value to its successor.
+		index = 1;
+		while(2 * index <= size)
+			index = 2 * index;
+		
+		while(index != 0) {
+			action.accept(values[index]);
+			index = successorIndex(index);
+		}
+	}
+	
+	/*
+	 * Returns the index of the smallest value that is greater than or equal to the given key,
+	 * or zero if every value is smaller. Each step moves to the left child of the current value
+	 * when the key is not greater than it and to the right child otherwise, computing the next
+	 * index from the comparison rather than branching on it. Once the walk falls off the
+	 * bottom of the tree, the index of the last value that went left is recovered by shifting
+	 * away the trailing right turns and the final left turn.
+	 */
+	private int lowerBound(int key) {
+		int index = 1;
+		
+		while(index <= size)
+			index = 2 * index + ((values[index] < key) ? 1 : 0);
+		
+		return index >>> (Integer.numberOfTrailingZeros(~index) + 1);
+	}
+	
+	/*
+	 * Returns the index of the value that comes before the value at the given index in
+	 * ascending order, or zero if there is none. That is the rightmost value of its left
+	 * subtree, or else the nearest ancestor whose right subtree it is in.
+	 */
+	private int predecessorIndex(int index) {
+		int target = index;
+		
+		if(2 * target <= size) {
+			target = 2 * target;
+			while(2 * target + 1 <= size)
+				target = 2 * target + 1;
+			return target;
+		}
+		
+		// Climb past every left turn, then once more past the right turn above them.
+		return target >>> (Integer.numberOfTrailingZeros(target) + 1);
+	}
+	
+	/*
+	 * Returns the index of the value that comes after the value at the given index in
+	 * ascending order, or zero if there is none. That is the leftmost value of its right
+	 * subtree, or else the nearest ancestor whose left subtree it is in.
+	 */
+	private int successorIndex(int index) {
+		int target = index;
+		
+		if(2 * target + 1 <= size) {
+			target = 2 * target + 1;
+			while(2 * target <= size)
+				target = 2 * target;
+			return target;
+		}
+		
+		// Climb past every right turn, then once more past the left turn above them.
+		return target >>> (Integer.numberOfTrailingZeros(~target) + 1);
+	}
+}
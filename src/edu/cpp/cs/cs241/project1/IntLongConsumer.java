@@ -0,0 +1,12 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This interface represents an action taking an integer key and the long value mapped to
+ * it, such as the action passed to IntLongTreeMap.forEach. It is the primitive counterpart
+ * of a BiConsumer<Integer, Long>, so neither argument is ever boxed.
+ */
+@FunctionalInterface
+public interface IntLongConsumer {
+	// Performs this action on the given key and value.
+	void accept(int key, long value);
+}
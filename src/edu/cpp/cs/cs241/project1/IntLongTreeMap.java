@@ -0,0 +1,415 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/*
+ * This class is a map from integer keys to long values, kept as a binary search tree of
+ * its keys in the same way as BinarySearchTree, with each value stored in the node of its
+ * key. It takes the place of a BinarySearchTree paired with a HashMap<Integer, Long>,
+ * without the second copy of every key and without boxing any key or value. Like
+ * BinarySearchTree it may optionally be self-balancing, in which case it is kept as an
+ * AVL tree.
+ *
+ * A value can be updated in place with merge or compute, which find the key's node, or
+ * add it if it is missing, in a single walk down the tree. With a primitive operator
+ * such as Long::sum, an update of a key that is already mapped allocates nothing.
+ */
+public class IntLongTreeMap {
+	// Field containing the root node of this tree.
+	private IntLongTreeNode rootNode;
+	// True if this tree rebalances itself after every insertion and removal, false otherwise.
+	private boolean selfBalancing;
+	// Number of keys in this map.
+	private int size;
+	// Nodes walked by the current insertion or removal, used only when self-balancing.
+	private IntLongTreeNode[] searchPath;
+	
+	// Default constructor, creating an empty map.
+	public IntLongTreeMap() {
+		this(false);
+	}
+	
+	/*
+	 * Constructor that creates an empty map, whose tree will keep itself balanced if
+	 * selfBalancing is true.
+	 */
+	public IntLongTreeMap(boolean selfBalancing) {
+		rootNode = null;
+		this.selfBalancing = selfBalancing;
+		size = 0;
+		searchPath = new IntLongTreeNode[32];
+	}
+	
+	// Returns true if the map is empty, false otherwise.
+	public boolean isEmpty() {
+		return rootNode == null;
+	}
+	
+	// Returns the number of keys in this map.
+	public int size() {
+		return size;
+	}
+	
+	// Returns true if this map's tree keeps itself balanced, false otherwise.
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	// Returns true if the given key is mapped to a value in this map, false otherwise.
+	public boolean containsKey(int key) {
+		return findNode(key) != null;
+	}
+	
+	/*
+	 * Finds the value mapped to the given key and stores it in the given result. Returns true
+	 * if the key is mapped to a value, otherwise the result is cleared and false is returned.
+	 */
+	public boolean get(int key, LongResult result) {
+		IntLongTreeNode node = findNode(key);
+		
+		if(node == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(node.getValue());
+		
+		return true;
+	}
+	
+	/*
+	 * Returns the value mapped to the given key, or the given defaultValue if the key is not
+	 * mapped to a value.
+	 */
+	public long getOrDefault(int key, long defaultValue) {
+		IntLongTreeNode node = findNode(key);
+		
+		return (node != null) ? node.getValue() : defaultValue;
+	}
+	
+	// Maps the given key to the given value, replacing any value it was mapped to before.
+	public void put(int key, long value) {
+		int oldSize = size;
+		IntLongTreeNode node = findOrAddNode(key, value);
+		
+		// The key was already in the map, so its node still holds the old value.
+		if(size == oldSize)
+			node.setValue(value);
+	}
+	
+	/*
+	 * Maps the given key to the given value if it is not mapped to a value yet. Otherwise it
+	 * is mapped to the result of applying the given operator to its current value and the
+	 * given value, such as merge(key, 1, Long::sum) to count occurrences of a key. The value
+	 * the key ends up mapped to is returned.
+	 */
+	public long merge(int key, long value, LongBinaryOperator operator) {
+		int oldSize = size;
+		IntLongTreeNode node = findOrAddNode(key, value);
+		
+		if(size != oldSize)
+			return value;
+		
+		node.setValue(operator.applyAsLong(node.getValue(), value));
+		
+		return node.getValue();
+	}
+	
+	/*
+	 * Maps the given key to the result of applying the given operator to its current value,
+	 * or to the given initialValue if it is not mapped to a value yet. The value the key ends
+	 * up mapped to is returned.
+	 */
+	public long compute(int key, long initialValue, LongUnaryOperator operator) {
+		// A new key's node starts out holding the initial value, which the operator is then applied to.
+		IntLongTreeNode node = findOrAddNode(key, initialValue);
+		
+		node.setValue(operator.applyAsLong(node.getValue()));
+		
+		return node.getValue();
+	}
+	
+	/*
+	 * Removes the given key and its value from this map, if it is mapped to a value. A key
+	 * whose node has two children takes the key and value of the rightmost child in its left
+	 * subtree, and that child is removed instead, as in BinarySearchTree.removeNode.
+	 */
+	public void remove(int key) {
+		IntLongTreeNode target = rootNode;
+		IntLongTreeNode parent = null;
+		IntLongTreeNode rightMostParent;
+		IntLongTreeNode rightMostChild;
+		int targetKey;
+		int pathLength = 0;
+		
+		// Find the target node along with its parent.
+		while(target != null) {
+			targetKey = target.getKey();
+			
+			// Target node found.
+			if(key == targetKey)
+				break;
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(key > targetKey)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// The key is not in the map.
+		if(target == null) {
+			clearPath(pathLength);
+			return;
+		}
+		
+		if(target.getLeftChild() != null && target.getRightChild() != null) {
+			rightMostParent = target;
+			rightMostChild = target.getLeftChild();
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			// Find the rightmost child in the target's left subtree, along with its parent.
+			while(rightMostChild.getRightChild() != null) {
+				if(selfBalancing)
+					pathLength = pushPath(pathLength, rightMostChild);
+				
+				rightMostParent = rightMostChild;
+				rightMostChild = rightMostChild.getRightChild();
+			}
+			
+			// Move the rightmost child's key and value into the target, then bypass that child.
+			target.setKey(rightMostChild.getKey());
+			target.setValue(rightMostChild.getValue());
+			
+			if(rightMostParent == target)
+				target.setLeftChild(rightMostChild.getLeftChild());
+			else
+				rightMostParent.setRightChild(rightMostChild.getLeftChild());
+		} else if(target.getLeftChild() != null)
+			replaceChild(parent, target, target.getLeftChild());
+		else
+			replaceChild(parent, target, target.getRightChild());
+		
+		size--;
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	// Passes every key of this map and its value to the given action, in ascending order of the keys.
+	public void forEach(IntLongConsumer action) {
+		IntLongTreeNode[] stack = new IntLongTreeNode[32];
+		IntLongTreeNode target = rootNode;
+		int stackSize = 0;
+		
+		while(target != null || stackSize > 0) {
+			// Push the path to the leftmost child that has not been visited yet.
+			while(target != null) {
+				if(stackSize == stack.length)
+					stack = Arrays.copyOf(stack, stackSize * 2);
+				
+				stack[stackSize++] = target;
+				target = target.getLeftChild();
+			}
+			
+			target = stack[--stackSize];
+			action.accept(target.getKey(), target.getValue());
+			target = target.getRightChild();
+		}
+	}
+	
+	// Returns the node holding the given key, or null if the key is not in the map.
+	private IntLongTreeNode findNode(int key) {
+		IntLongTreeNode target = rootNode;
+		int targetKey;
+		
+		while(target != null) {
+			targetKey = target.getKey();
+			
+			if(key == targetKey)
+				return target;
+			
+			if(key > targetKey)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		return null;
+	}
+	
+	/*
+	 * Returns the node holding the given key, first adding a node mapping it to the given
+	 * absentValue if the key is not in the map. Callers can tell whether the node was added
+	 * by whether the size of the map has changed. The tree is walked once, iteratively, as in
+	 * BinarySearchTree.addNewNode, and a self-balancing tree is rebalanced after an addition.
+	 * Rotations only relink nodes, so the returned node still holds the key afterwards.
+	 */
+	private IntLongTreeNode findOrAddNode(int key, long absentValue) {
+		IntLongTreeNode target = rootNode;
+		IntLongTreeNode parent = null;
+		IntLongTreeNode newNode;
+		int targetKey;
+		int pathLength = 0;
+		
+		while(target != null) {
+			targetKey = target.getKey();
+			
+			if(key == targetKey) {
+				clearPath(pathLength);
+				return target;
+			}
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(key > targetKey)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// Spot in the tree for the new node to occupy is found.
+		newNode = new IntLongTreeNode(key, absentValue);
+		
+		if(parent == null)
+			rootNode = newNode;
+		else if(key > parent.getKey())
+			parent.setRightChild(newNode);
+		else
+			parent.setLeftChild(newNode);
+		
+		size++;
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+		
+		return newNode;
+	}
+	
+	/*
+	 * Makes newChild take the place of oldChild underneath the given parent. A parent
+	 * of null means oldChild is the root node of this tree.
+	 */
+	private void replaceChild(IntLongTreeNode parent, IntLongTreeNode oldChild, IntLongTreeNode newChild) {
+		if(parent == null)
+			rootNode = newChild;
+		else if(parent.getLeftChild() == oldChild)
+			parent.setLeftChild(newChild);
+		else
+			parent.setRightChild(newChild);
+	}
+	
+	// Clears the first pathLength nodes of searchPath without rebalancing them.
+	private void clearPath(int pathLength) {
+		for(int i = 0; i < pathLength; i++)
+			searchPath[i] = null;
+	}
+	
+	/*
+	 * Pushes the given node onto searchPath, which currently holds pathLength nodes,
+	 * growing it if needed. The new length of the path is returned.
+	 */
+	private int pushPath(int pathLength, IntLongTreeNode node) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
+		
+		searchPath[pathLength] = node;
+		
+		return pathLength + 1;
+	}
+	
+	/*
+	 * Rebalances the first pathLength nodes of searchPath, from the deepest node back up
+	 * to the root of this tree, as in BinarySearchTree. The path is cleared as it is walked.
+	 */
+	private void rebalancePath(int pathLength) {
+		IntLongTreeNode node;
+		IntLongTreeNode balancedNode;
+		int oldHeight;
+		int i;
+		
+		for(i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			searchPath[i] = null;
+			oldHeight = node.getHeight();
+			balancedNode = rebalance(node);
+			
+			if(balancedNode != node)
+				replaceChild((i > 0) ? searchPath[i - 1] : null, node, balancedNode);
+			
+			if(balancedNode.getHeight() == oldHeight)
+				break;
+		}
+		
+		// Clear what remains of the path if the walk stopped early.
+		for(i = i - 1; i >= 0; i--)
+			searchPath[i] = null;
+	}
+	
+	/*
+	 * Restores the AVL property of the subtree rooted at the given root parameter, assuming
+	 * both of its own subtrees are already balanced and their heights differ by at most two.
+	 * The root of the resulting subtree is returned.
+	 */
+	private IntLongTreeNode rebalance(IntLongTreeNode root) {
+		int balanceFactor;
+		
+		root.updateHeight();
+		balanceFactor = root.getBalanceFactor();
+		
+		if(balanceFactor > 1) {
+			// Left subtree is too tall, a left-right case needs a rotation of the left child first.
+			if(root.getLeftChild().getBalanceFactor() < 0)
+				root.setLeftChild(rotateLeft(root.getLeftChild()));
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			// Right subtree is too tall, a right-left case needs a rotation of the right child first.
+			if(root.getRightChild().getBalanceFactor() > 0)
+				root.setRightChild(rotateRight(root.getRightChild()));
+			return rotateLeft(root);
+		}
+		
+		return root;
+	}
+	
+	/*
+	 * Rotates the subtree rooted at the given root parameter to the left, so that its right
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
+	 */
+	private IntLongTreeNode rotateLeft(IntLongTreeNode root) {
+		IntLongTreeNode newRoot = root.getRightChild();
+		
+		root.setRightChild(newRoot.getLeftChild());
+		newRoot.setLeftChild(root);
+		root.updateHeight();
+		newRoot.updateHeight();
+		
+		return newRoot;
+	}
+	
+	/*
+	 * Rotates the subtree rooted at the given root parameter to the right, so that its left
+	 * child becomes the new root of the subtree. The new root of the subtree is returned.
+	 */
+	private IntLongTreeNode rotateRight(IntLongTreeNode root) {
+		IntLongTreeNode newRoot = root.getLeftChild();
+		
+		root.setLeftChild(newRoot.getRightChild());
+		newRoot.setRightChild(root);
+		root.updateHeight();
+		newRoot.updateHeight();
+		
+		return newRoot;
+	}
+}
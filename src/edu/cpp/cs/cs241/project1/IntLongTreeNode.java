@@ -0,0 +1,91 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class represents a node of an IntLongTreeMap. It holds the same children and height
+ * as a TreeNode, and along with its integer key it holds the long value mapped to that key.
+ * Both are kept as primitives, so no key or value in the map is ever boxed.
+ */
+class IntLongTreeNode {
+	private int key;
+	private long value;
+	private IntLongTreeNode leftChild;
+	private IntLongTreeNode rightChild;
+	// Height of the subtree rooted at this node, a lone leaf having a height of one.
+	private int height;
+	
+	/*
+	 * Constructor that creates a new IntLongTreeNode object with a key and value according to
+	 * the parameters given and no left or right children.
+	 */
+	IntLongTreeNode(int key, long value) {
+		this.key = key;
+		this.value = value;
+		leftChild = null;
+		rightChild = null;
+		height = 1;
+	}
+	
+	// Sets the key of this node according to the parameter given.
+	void setKey(int newKey) {
+		key = newKey;
+	}
+	
+	// Sets the value of this node according to the parameter given.
+	void setValue(long newValue) {
+		value = newValue;
+	}
+	
+	// Sets the left child of this node according to the parameter given.
+	void setLeftChild(IntLongTreeNode newNode) {
+		leftChild = newNode;
+	}
+	
+	// Sets the right child of this node according to the parameter given.
+	void setRightChild(IntLongTreeNode newNode) {
+		rightChild = newNode;
+	}
+	
+	// Recalculates the height of this node from the heights of its children.
+	void updateHeight() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		height = Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Gets the key of this node.
+	int getKey() {
+		return key;
+	}
+	
+	// Gets the value of this node.
+	long getValue() {
+		return value;
+	}
+	
+	// Gets a reference to this node's left child.
+	IntLongTreeNode getLeftChild() {
+		return leftChild;
+	}
+	
+	// Gets a reference to this node's right child.
+	IntLongTreeNode getRightChild() {
+		return rightChild;
+	}
+	
+	// Gets the height of the subtree rooted at this node.
+	int getHeight() {
+		return height;
+	}
+	
+	/*
+	 * Returns the balance factor of this node, being the height of its left subtree minus
+	 * the height of its right subtree.
+	 */
+	int getBalanceFactor() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		return leftHeight - rightHeight;
+	}
+}
@@ -0,0 +1,65 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.NoSuchElementException;
+
+/*
+ * This class holds the result of a lookup that may or may not find an integer value, such
+ * as BinarySearchTree.getNodePredecessor(int, IntResult). Every integer, zero included,
+ * can be a real result, so whether a value was found is kept separately from the value.
+ * Unlike an OptionalInt, a single IntResult can be reused for any number of lookups, so
+ * reporting a result never allocates anything.
+ */
+public class IntResult {
+	// True if the last lookup found a value, false otherwise.
+	private boolean present;
+	// Value found by the last lookup, only meaningful when present is true.
+	private int value;
+	
+	// Default constructor, creating a result holding no value.
+	public IntResult() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Records that a lookup found the given value.
+	 */
+	public void set(int newValue) {
+		present = true;
+		value = newValue;
+	}
+	
+	/*
+	 * Records that a lookup found no value.
+	 */
+	public void clear() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Returns true if the last lookup found a value, false otherwise.
+	 */
+	public boolean isPresent() {
+		return present;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup. A NoSuchElementException is thrown if the
+	 * last lookup found no value.
+	 */
+	public int getValue() {
+		if(!present)
+			throw new NoSuchElementException("No value is present.");
+		
+		return value;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup, or the given other value if the last lookup
+	 * found no value.
+	 */
+	public int getValueOrElse(int other) {
+		return present ? value : other;
+	}
+}
@@ -0,0 +1,682 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a self-balancing binary search tree that removes values lazily. removeNode
+ * does not unlink a node, which for a node with two children means moving the data of
+ * another node into it and rebalancing the path to that node. It only marks the node as
+ * a tombstone and counts it in the subtrees above it, so a removal writes nothing but the
+ * counts on its path. Adding a value that is still there as a tombstone brings the node
+ * back to life in place. Every lookup and traversal skips tombstones, passing over any
+ * subtree that holds nothing else without visiting it.
+ *
+ * Tombstones are cleared by compaction, which is amortized over the removals. After each
+ * removal, the highest subtree on the removal's path of at least MIN_COMPACTION_SIZE nodes
+ * in which more than the compaction threshold of the nodes are tombstones is rebuilt from
+ * its live nodes alone, in a perfectly balanced shape, and joined back into the tree.
+ * Rebuilding a subtree of n nodes takes O(n) time but clears more than threshold * n
+ * tombstones, each of which took a removal to make, so each removal pays O(1 / threshold)
+ * for compaction on average. compact clears every tombstone at once.
+ *
+ * The tree is kept as an AVL tree with tombstones counted as nodes, so its height is
+ * O(log n) in the number of nodes. The root is on the path of every removal, so with the
+ * default threshold of one half there are never more than about twice as many nodes as
+ * values once the tree has MIN_COMPACTION_SIZE nodes.
+ */
+public class LazyBinarySearchTree {
+	// Fraction of tombstones above which a subtree is compacted, unless another is given.
+	public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+	/*
+	 * Fewest nodes a subtree must have, tombstones included, to be compacted after a removal.
+	 * Compacting a subtree takes time proportional to its size, so this is large enough that
+	 * compactions happen on well under one in a hundred removals, keeping them out of the
+	 * 99th percentile latency of removeNode.
+	 */
+	private static final int MIN_COMPACTION_SIZE = 4096;
+	
+	// Field containing the root node of this tree.
+	private LazyTreeNode rootNode;
+	// Fraction of tombstones above which a subtree is compacted.
+	private double compactionThreshold;
+	// Nodes on the path walked by the current insertion or removal, from the root down.
+	private LazyTreeNode[] searchPath;
+	
+	// Default constructor, creating an empty tree compacted at DEFAULT_COMPACTION_THRESHOLD.
+	public LazyBinarySearchTree() {
+		this(DEFAULT_COMPACTION_THRESHOLD);
+	}
+	
+	/*
+	 * Constructor that creates an empty tree whose subtrees are compacted once more than the
+	 * given fraction of their nodes are tombstones. A threshold of one means subtrees are never
+	 * compacted after a removal, only by compact. An IllegalArgumentException is thrown if
+	 * the threshold is not greater than zero and at most one.
+	 */
+	public LazyBinarySearchTree(double compactionThreshold) {
+		if(!(compactionThreshold > 0 && compactionThreshold <= 1))
+			throw new IllegalArgumentException("The compaction threshold must be greater than 0 and at most 1.");
+		
+		rootNode = null;
+		this.compactionThreshold = compactionThreshold;
+		searchPath = new LazyTreeNode[32];
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, built in a perfectly balanced
+	 * shape and compacted at DEFAULT_COMPACTION_THRESHOLD. Duplicates are ignored the same
+	 * way addNewNode ignores them. The given array is not modified.
+	 */
+	public static LazyBinarySearchTree fromUnsorted(int[] values) {
+		LazyBinarySearchTree tree = new LazyBinarySearchTree();
+		LazyTreeNode[] nodes = new LazyTreeNode[values.length];
+		int[] sortedValues = Arrays.copyOf(values, values.length);
+		int count = 0;
+		
+		Arrays.sort(sortedValues);
+		
+		for(int i = 0; i < sortedValues.length; i++)
+			if(i == 0 || sortedValues[i] != sortedValues[i - 1])
+				nodes[count++] = new LazyTreeNode(sortedValues[i]);
+		
+		tree.rootNode = buildBalanced(nodes, 0, count - 1);
+		
+		return tree;
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise,
+	 * including when its node is a tombstone.
+	 */
+	public boolean contains(int searchValue) {
+		LazyTreeNode target = findNode(searchValue);
+		
+		return target != null && !target.isDeleted();
+	}
+	
+	// Returns true if the tree holds no values, false otherwise.
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	// Returns the number of values in this tree, not counting tombstones.
+	public int size() {
+		return (rootNode != null) ? rootNode.getSize() - rootNode.getDeadCount() : 0;
+	}
+	
+	// Returns the number of tombstones in this tree, waiting to be cleared by compaction.
+	public int getTombstoneCount() {
+		return (rootNode != null) ? rootNode.getDeadCount() : 0;
+	}
+	
+	// Returns the height of this tree, tombstones included. An empty tree has a height of zero.
+	public int getHeight() {
+		return (rootNode != null) ? rootNode.getHeight() : 0;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be any integer,
+	 * zero included. If the data is in the tree as a tombstone, that node is brought back to
+	 * life. If it already exists within this tree, the tree is left unaffected.
+	 */
+	public void addNewNode(int nodeData) {
+		LazyTreeNode target = rootNode;
+		LazyTreeNode parent;
+		int targetData;
+		int pathLength = 0;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(nodeData == targetData) {
+				// A tombstone is brought back to life in place, which changes nothing but the counts above it.
+				if(target.isDeleted()) {
+					target.setDeleted(false);
+					target.setDeadCount(target.getDeadCount() - 1);
+					
+					for(int i = 0; i < pathLength; i++)
+						searchPath[i].setDeadCount(searchPath[i].getDeadCount() - 1);
+				}
+				
+				clearPath(pathLength);
+				return;
+			}
+			
+			pathLength = pushPath(pathLength, target);
+			
+			if(nodeData > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// Spot in the tree for the new node to occupy is found.
+		if(pathLength == 0) {
+			rootNode = new LazyTreeNode(nodeData);
+			return;
+		}
+		
+		parent = searchPath[pathLength - 1];
+		
+		if(nodeData > parent.getData())
+			parent.setRightChild(new LazyTreeNode(nodeData));
+		else
+			parent.setLeftChild(new LazyTreeNode(nodeData));
+		
+		rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Removes the given nodeData from the tree, if it exists, by marking its node as a
+	 * tombstone, and then compacts the highest subtree on its path that has too many
+	 * tombstones, if there is one. An empty tree or a tree that does not contain the given
+	 * nodeData is left unaffected.
+	 */
+	public void removeNode(int nodeData) {
+		LazyTreeNode target = rootNode;
+		int targetData;
+		int pathLength = 0;
+		
+		while(target != null) {
+			targetData = target.getData();
+			pathLength = pushPath(pathLength, target);
+			
+			if(nodeData == targetData)
+				break;
+			
+			if(nodeData > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		// nodeData does not exist within the tree, or has already been removed.
+		if(target == null || target.isDeleted()) {
+			clearPath(pathLength);
+			return;
+		}
+		
+		target.setDeleted(true);
+		
+		for(int i = 0; i < pathLength; i++)
+			searchPath[i].setDeadCount(searchPath[i].getDeadCount() + 1);
+		
+		compactPath(pathLength);
+	}
+	
+	/*
+	 * Rebuilds the whole tree from its live nodes, clearing every tombstone, in time linear
+	 * in the number of nodes.
+	 */
+	public void compact() {
+		rootNode = compact(rootNode);
+	}
+	
+	/*
+	 * Gets the data of the predecessor of the given nodeData, being the largest value in
+	 * this tree below it. An integer value of zero is returned if this tree is empty or
+	 * nodeData does not exist in this tree, otherwise the predecessor's data is returned.
+	 * Zero can also be a real predecessor, so getNodePredecessor(int, IntResult) should be
+	 * used to tell the two apart.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		LazyTreeNode predecessor = contains(nodeData) ? findLower(rootNode, nodeData) : null;
+		
+		return (predecessor != null) ? predecessor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the predecessor of the given nodeData, as getNodePredecessor(int) does, and stores
+	 * its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult). Tombstones are skipped, and every
+	 * subtree holding nothing but tombstones is passed over, so this takes O(log n) time.
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		LazyTreeNode predecessor = contains(nodeData) ? findLower(rootNode, nodeData) : null;
+		
+		if(predecessor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(predecessor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of the successor of the given nodeData, being the smallest value in this
+	 * tree above it. An integer value of zero is returned if this tree is empty or nodeData
+	 * does not exist in this tree, otherwise the successor's data is returned. Zero can also
+	 * be a real successor, so getNodeSuccessor(int, IntResult) should be used to tell the two
+	 * apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		LazyTreeNode successor = contains(nodeData) ? findHigher(rootNode, nodeData) : null;
+		
+		return (successor != null) ? successor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the successor of the given nodeData, as getNodeSuccessor(int) does, and stores
+	 * its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult), in O(log n) time.
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		LazyTreeNode successor = contains(nodeData) ? findHigher(rootNode, nodeData) : null;
+		
+		if(successor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(successor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Passes the data of every live node in this tree to the given action, visiting the nodes
+	 * in the given order. Tombstones keep their place in the tree's shape, so the pre-order
+	 * and post-order sequences are those of the tree with the tombstones left out of the
+	 * visit, rather than of a tree built from the live values alone.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		visit(rootNode, order, action);
+	}
+	
+	// Returns the pre-order sequence of this tree, in the same format as BinarySearchTree.getPreOrderSequence.
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	// Returns the in-order sequence of this tree, in the same format as BinarySearchTree.getInOrderSequence.
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	// Returns the post-order sequence of this tree, in the same format as BinarySearchTree.getPostOrderSequence.
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Returns the data of every live node in this tree, visited in the given order and each followed by a space.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder sequence = new StringBuilder();
+		
+		visit(rootNode, order, value -> sequence.append(value).append(' '));
+		
+		return sequence.toString();
+	}
+	
+	/*
+	 * Passes the data of every live node in the subtree rooted at the given node to the
+	 * given action, in the given order, without entering any subtree that holds only
+	 * tombstones. The recursion is only as deep as the tree.
+	 */
+	private static void visit(LazyTreeNode node, TraversalOrder order, IntConsumer action) {
+		if(!hasLiveNodes(node))
+			return;
+		
+		if(order == TraversalOrder.PRE_ORDER && !node.isDeleted())
+			action.accept(node.getData());
+		
+		visit(node.getLeftChild(), order, action);
+		
+		if(order == TraversalOrder.IN_ORDER && !node.isDeleted())
+			action.accept(node.getData());
+		
+		visit(node.getRightChild(), order, action);
+		
+		if(order == TraversalOrder.POST_ORDER && !node.isDeleted())
+			action.accept(node.getData());
+	}
+	
+	// Returns the node holding the given data, whether it is a tombstone or not, or null if there is none.
+	private LazyTreeNode findNode(int nodeData) {
+		LazyTreeNode target = rootNode;
+		int targetData;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(nodeData == targetData)
+				return target;
+			
+			if(nodeData > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		return null;
+	}
+	
+	/*
+	 * Returns the live node holding the largest value below the given value in the subtree
+	 * rooted at the given node, or null if there is none. Only one path is followed down,
+	 * and at most one subtree is searched for its largest live value on the way back up.
+	 */
+	private static LazyTreeNode findLower(LazyTreeNode node, int value) {
+		LazyTreeNode result;
+		
+		if(!hasLiveNodes(node))
+			return null;
+		
+		if(node.getData() >= value)
+			return findLower(node.getLeftChild(), value);
+		
+		// Every value in the right subtree lies between this node's and the given value, so is closer.
+		result = findLower(node.getRightChild(), value);
+		
+		if(result != null)
+			return result;
+		
+		return node.isDeleted() ? findMaxLive(node.getLeftChild()) : node;
+	}
+	
+	/*
+	 * Returns the live node holding the smallest value above the given value in the subtree
+	 * rooted at the given node, or null if there is none, as findLower does.
+	 */
+	private static LazyTreeNode findHigher(LazyTreeNode node, int value) {
+		LazyTreeNode result;
+		
+		if(!hasLiveNodes(node))
+			return null;
+		
+		if(node.getData() <= value)
+			return findHigher(node.getRightChild(), value);
+		
+		// Every value in the left subtree lies between the given value and this node's, so is closer.
+		result = findHigher(node.getLeftChild(), value);
+		
+		if(result != null)
+			return result;
+		
+		return node.isDeleted() ? findMinLive(node.getRightChild()) : node;
+	}
+	
+	// Returns the live node holding the largest value in the subtree rooted at the given node, or null if there is none.
+	private static LazyTreeNode findMaxLive(LazyTreeNode node) {
+		LazyTreeNode target = node;
+		
+		if(!hasLiveNodes(target))
+			return null;
+		
+		// Some live node is always below the target, so a subtree of only tombstones is never entered.
+		while(true) {
+			if(hasLiveNodes(target.getRightChild()))
+				target = target.getRightChild();
+			else if(!target.isDeleted())
+				return target;
+			else
+				target = target.getLeftChild();
+		}
+	}
+	
+	// Returns the live node holding the smallest value in the subtree rooted at the given node, or null if there is none.
+	private static LazyTreeNode findMinLive(LazyTreeNode node) {
+		LazyTreeNode target = node;
+		
+		if(!hasLiveNodes(target))
+			return null;
+		
+		// Some live node is always below the target, so a subtree of only tombstones is never entered.
+		while(true) {
+			if(hasLiveNodes(target.getLeftChild()))
+				target = target.getLeftChild();
+			else if(!target.isDeleted())
+				return target;
+			else
+				target = target.getRightChild();
+		}
+	}
+	
+	// Returns true if the subtree rooted at the given node holds at least one live node.
+	private static boolean hasLiveNodes(LazyTreeNode node) {
+		return node != null && node.getSize() > node.getDeadCount();
+	}
+	
+	/*
+	 * Compacts the highest subtree on the path in searchPath, just walked by a removal, that
+	 * has at least MIN_COMPACTION_SIZE nodes and more than the compaction threshold of them
+	 * as tombstones, if there is one. Only the subtrees on the path gained a tombstone, so
+	 * no other subtree can have just passed the threshold. The compacted subtree is usually
+	 * shorter than before, so every node above it is joined back together with its other
+	 * subtree, restoring the balance of the tree. The path is cleared afterwards.
+	 */
+	private void compactPath(int pathLength) {
+		LazyTreeNode node;
+		LazyTreeNode subtree;
+		LazyTreeNode leftChild;
+		LazyTreeNode rightChild;
+		int i;
+		
+		// A tree of nothing but tombstones is simply emptied, however small it is.
+		if(!hasLiveNodes(rootNode)) {
+			rootNode = null;
+			clearPath(pathLength);
+			return;
+		}
+		
+		for(i = 0; i < pathLength; i++) {
+			node = searchPath[i];
+			
+			if(node.getSize() >= MIN_COMPACTION_SIZE && node.getDeadCount() > node.getSize() * compactionThreshold)
+				break;
+		}
+		
+		if(i == pathLength) {
+			clearPath(pathLength);
+			return;
+		}
+		
+		subtree = compact(searchPath[i]);
+		
+		for(i = i - 1; i >= 0; i--) {
+			node = searchPath[i];
+			leftChild = node.getLeftChild();
+			rightChild = node.getRightChild();
+			
+			// The subtree just rebuilt or joined takes the place of the child it came from.
+			if(leftChild == searchPath[i + 1])
+				leftChild = subtree;
+			else
+				rightChild = subtree;
+			
+			subtree = join(leftChild, node, rightChild);
+		}
+		
+		rootNode = subtree;
+		clearPath(pathLength);
+	}
+	
+	/*
+	 * Rebuilds the subtree rooted at the given node from its live nodes alone, in a perfectly
+	 * balanced shape, and returns its new root, or null if it held only tombstones. The live
+	 * nodes are relinked rather than copied.
+	 */
+	private static LazyTreeNode compact(LazyTreeNode root) {
+		LazyTreeNode[] liveNodes;
+		int[] count = new int[1];
+		
+		if(!hasLiveNodes(root))
+			return null;
+		
+		liveNodes = new LazyTreeNode[root.getSize() - root.getDeadCount()];
+		collectLiveNodes(root, liveNodes, count);
+		
+		return buildBalanced(liveNodes, 0, liveNodes.length - 1);
+	}
+	
+	/*
+	 * Stores the live nodes of the subtree rooted at the given node in the given array in
+	 * ascending order, starting at the index held by count, which is advanced past them.
+	 */
+	private static void collectLiveNodes(LazyTreeNode node, LazyTreeNode[] liveNodes, int[] count) {
+		if(!hasLiveNodes(node))
+			return;
+		
+		collectLiveNodes(node.getLeftChild(), liveNodes, count);
+		
+		if(!node.isDeleted())
+			liveNodes[count[0]++] = node;
+		
+		collectLiveNodes(node.getRightChild(), liveNodes, count);
+	}
+	
+	/*
+	 * Links the given ascending nodes from index low to index high, inclusive, into a
+	 * perfectly balanced tree and returns its root, as BinarySearchTree.buildBalanced does
+	 * with values. A root of null is returned when low > high.
+	 */
+	private static LazyTreeNode buildBalanced(LazyTreeNode[] sortedNodes, int low, int high) {
+		LazyTreeNode root;
+		int middle;
+		
+		if(low > high)
+			return null;
+		
+		middle = (low + high) >>> 1;
+		root = sortedNodes[middle];
+		root.setLeftChild(buildBalanced(sortedNodes, low, middle - 1));
+		root.setRightChild(buildBalanced(sortedNodes, middle + 1, high));
+		root.updateHeight();
+		root.updateCounts();
+		
+		return root;
+	}
+	
+	/*
+	 * Links the given node between the given left and right subtrees, whose values must be
+	 * below and above its own, and returns the root of the resulting AVL tree. The subtrees
+	 * must be AVL trees, but may differ in height by any amount. The node is then placed
+	 * down the side of the taller subtree, at the level where the shorter one fits beside
+	 * it, and the path back up is rebalanced. This takes time proportional to the difference
+	 * in height.
+	 */
+	private static LazyTreeNode join(LazyTreeNode leftChild, LazyTreeNode node, LazyTreeNode rightChild) {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		if(leftHeight > rightHeight + 1) {
+			leftChild.setRightChild(join(leftChild.getRightChild(), node, rightChild));
+			return rebalance(leftChild);
+		}
+		
+		if(rightHeight > leftHeight + 1) {
+			rightChild.setLeftChild(join(leftChild, node, rightChild.getLeftChild()));
+			return rebalance(rightChild);
+		}
+		
+		node.setLeftChild(leftChild);
+		node.setRightChild(rightChild);
+		node.updateHeight();
+		node.updateCounts();
+		
+		return node;
+	}
+	
+	/*
+	 * Brings the counts and heights of the nodes on the path in searchPath, just walked by an
+	 * insertion, up to date, rebalancing each in turn from the bottom up, and clears the path.
+	 * Every node on the path gained a node in its subtree, so the walk always reaches the root.
+	 */
+	private void rebalancePath(int pathLength) {
+		LazyTreeNode node;
+		LazyTreeNode balancedNode;
+		LazyTreeNode parent;
+		
+		for(int i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			searchPath[i] = null;
+			balancedNode = rebalance(node);
+			
+			if(balancedNode == node)
+				continue;
+			
+			parent = (i > 0) ? searchPath[i - 1] : null;
+			
+			if(parent == null)
+				rootNode = balancedNode;
+			else if(parent.getLeftChild() == node)
+				parent.setLeftChild(balancedNode);
+			else
+				parent.setRightChild(balancedNode);
+		}
+	}
+	
+	/*
+	 * Brings the height and counts of the given node up to date and, if its subtrees differ
+	 * in height by two, rotates it as BinarySearchTree.rebalance does. Returns the node that
+	 * takes its place.
+	 */
+	private static LazyTreeNode rebalance(LazyTreeNode root) {
+		int balanceFactor;
+		
+		root.updateHeight();
+		root.updateCounts();
+		balanceFactor = root.getBalanceFactor();
+		
+		if(balanceFactor > 1) {
+			// Left subtree is too tall, a left-right case needs a rotation of the left child first.
+			if(root.getLeftChild().getBalanceFactor() < 0)
+				root.setLeftChild(rotateLeft(root.getLeftChild()));
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			// Right subtree is too tall, a right-left case needs a rotation of the right child first.
+			if(root.getRightChild().getBalanceFactor() > 0)
+				root.setRightChild(rotateRight(root.getRightChild()));
+			return rotateLeft(root);
+		}
+		
+		return root;
+	}
+	
+	// Rotates the subtree rooted at the given root to the left and returns its new root.
+	private static LazyTreeNode rotateLeft(LazyTreeNode root) {
+		LazyTreeNode newRoot = root.getRightChild();
+		
+		root.setRightChild(newRoot.getLeftChild());
+		newRoot.setLeftChild(root);
+		root.updateHeight();
+		root.updateCounts();
+		newRoot.updateHeight();
+		newRoot.updateCounts();
+		
+		return newRoot;
+	}
+	
+	// Rotates the subtree rooted at the given root to the right and returns its new root.
+	private static LazyTreeNode rotateRight(LazyTreeNode root) {
+		LazyTreeNode newRoot = root.getLeftChild();
+		
+		root.setLeftChild(newRoot.getRightChild());
+		newRoot.setRightChild(root);
+		root.updateHeight();
+		root.updateCounts();
+		newRoot.updateHeight();
+		newRoot.updateCounts();
+		
+		return newRoot;
+	}
+	
+	// Clears the first pathLength entries of searchPath, so that it does not keep removed nodes reachable.
+	private void clearPath(int pathLength) {
+		for(int i = 0; i < pathLength; i++)
+			searchPath[i] = null;
+	}
+	
+	// Stores the given node at index pathLength of searchPath, growing it if needed, and returns the new path length.
+	private int pushPath(int pathLength, LazyTreeNode node) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
+		
+		searchPath[pathLength] = node;
+		
+		return pathLength + 1;
+	}
+}
@@ -0,0 +1,124 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class represents a node of a LazyBinarySearchTree. Besides the data, children and
+ * height of a TreeNode, it records whether its data has been removed from the tree, making
+ * it a tombstone, and counts the nodes and the tombstones in the subtree rooted at it.
+ */
+class LazyTreeNode {
+	private int data;
+	// True if this node's data has been removed from the tree and the node is only kept as a tombstone.
+	private boolean deleted;
+	private LazyTreeNode leftChild;
+	private LazyTreeNode rightChild;
+	// Height of the subtree rooted at this node, a lone leaf having a height of one.
+	private int height;
+	// Number of nodes in the subtree rooted at this node, tombstones included.
+	private int size;
+	// Number of tombstones in the subtree rooted at this node.
+	private int deadCount;
+	
+	/*
+	 * Constructor that creates a new LazyTreeNode object with a data value according to
+	 * the parameter given and no left or right children.
+	 */
+	LazyTreeNode(int data) {
+		this.data = data;
+		deleted = false;
+		leftChild = null;
+		rightChild = null;
+		height = 1;
+		size = 1;
+		deadCount = 0;
+	}
+	
+	// Marks this node as a tombstone if deleted is true, or as holding live data otherwise.
+	void setDeleted(boolean deleted) {
+		this.deleted = deleted;
+	}
+	
+	// Sets the left child of this node according to the parameter given.
+	void setLeftChild(LazyTreeNode newNode) {
+		leftChild = newNode;
+	}
+	
+	// Sets the right child of this node according to the parameter given.
+	void setRightChild(LazyTreeNode newNode) {
+		rightChild = newNode;
+	}
+	
+	// Sets the number of tombstones in the subtree rooted at this node.
+	void setDeadCount(int newDeadCount) {
+		deadCount = newDeadCount;
+	}
+	
+	// Recalculates the height of this node from the heights of its children.
+	void updateHeight() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		height = Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Recalculates the number of nodes and tombstones in the subtree rooted at this node from those of its children.
+	void updateCounts() {
+		size = 1;
+		deadCount = deleted ? 1 : 0;
+		
+		if(leftChild != null) {
+			size += leftChild.getSize();
+			deadCount += leftChild.getDeadCount();
+		}
+		
+		if(rightChild != null) {
+			size += rightChild.getSize();
+			deadCount += rightChild.getDeadCount();
+		}
+	}
+	
+	// Gets the data of this node.
+	int getData() {
+		return data;
+	}
+	
+	// Returns true if this node is a tombstone, false if its data is still in the tree.
+	boolean isDeleted() {
+		return deleted;
+	}
+	
+	// Gets a reference to this node's left child.
+	LazyTreeNode getLeftChild() {
+		return leftChild;
+	}
+	
+	// Gets a reference to this node's right child.
+	LazyTreeNode getRightChild() {
+		return rightChild;
+	}
+	
+	// Gets the height of the subtree rooted at this node.
+	int getHeight() {
+		return height;
+	}
+	
+	// Gets the number of nodes in the subtree rooted at this node, tombstones included.
+	int getSize() {
+		return size;
+	}
+	
+	// Gets the number of tombstones in the subtree rooted at this node.
+	int getDeadCount() {
+		return deadCount;
+	}
+	
+	/*
+	 * Returns the balance factor of this node, being the height of its left subtree minus
+	 * the height of its right subtree.
+	 */
+	int getBalanceFactor() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		return leftHeight - rightHeight;
+	}
+}
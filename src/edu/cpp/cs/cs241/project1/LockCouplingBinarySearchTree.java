@@ -0,0 +1,546 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a thread-safe binary search tree meant for write-heavy workloads shared
+ * between many threads. Instead of one lock for the whole tree, every node has its own
+ * lock, and each operation walks down the tree with hand-over-hand locking: the lock on
+ * a child is taken before the lock on its parent is released. An operation therefore
+ * only ever holds the locks of two or three neighbouring nodes, and operations working
+ * in disjoint subtrees proceed in parallel.
+ *
+ * Locks are always taken from the top of the tree downwards, so no two operations can
+ * deadlock. A sentinel head node, whose left child is the root of the tree, lets the root
+ * link be guarded the same way as any other link.
+ *
+ * Removal follows the same rules as BinarySearchTree.removeNode. A node with two children
+ * stays locked while the rightmost child of its left subtree is found with hand-over-hand
+ * locking, then takes that child's data, and that child is unlinked while both it and its
+ * parent are still locked. Any other operation heading for that child has to pass through
+ * its parent first, so none can reach it once it is unlinked. The tree does not rebalance
+ * itself, since a rotation would need locks above the nodes it moves.
+ *
+ * Traversals, and size, which counts the values with one and so takes time linear in the
+ * size of the tree on every call, are weakly consistent. Walking
+ * the whole tree with hand-over-hand locking would mean holding the lock of every node
+ * whose right subtree is still to be visited, blocking writers across most of the tree. A
+ * traversal instead locks one node at a time, just long enough to read its data and
+ * children. With no concurrent writers it visits exactly the values of the tree. While
+ * writers run, a value added or removed during the traversal may or may not be visited,
+ * and a value moved up into a node by a concurrent removal may be visited twice or not at
+ * all, but every value that is in the tree for the whole traversal and not moved is visited
+ * exactly once.
+ */
+public class LockCouplingBinarySearchTree {
+	// Result of a predecessor or successor lookup that found none, outside the range of an int.
+	private static final long NONE = Long.MAX_VALUE;
+	// State of a node on the traversal stack whose data and children have not been read yet.
+	private static final int UNREAD = 0;
+	// State of a node on the traversal stack whose left subtree is being visited.
+	private static final int LEFT_PENDING = 1;
+	// State of a node on the traversal stack whose right subtree is being visited.
+	private static final int RIGHT_PENDING = 2;
+	
+	// Sentinel node whose left child is the root node of this tree.
+	private LockingTreeNode head;
+	
+	// Default constructor, creating an empty tree.
+	public LockCouplingBinarySearchTree() {
+		head = new LockingTreeNode(0);
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		LockingTreeNode target;
+		LockingTreeNode next;
+		
+		head.lock();
+		target = head.getLeftChild();
+		
+		if(target == null) {
+			head.unlock();
+			return false;
+		}
+		
+		target.lock();
+		head.unlock();
+		
+		while(true) {
+			if(searchValue == target.getData()) {
+				target.unlock();
+				return true;
+			}
+			
+			if(searchValue > target.getData())
+				next = target.getRightChild();
+			else
+				next = target.getLeftChild();
+			
+			if(next == null) {
+				target.unlock();
+				return false;
+			}
+			
+			next.lock();
+			target.unlock();
+			target = next;
+		}
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		head.lock();
+		
+		try {
+			return head.getLeftChild() == null;
+		} finally {
+			head.unlock();
+		}
+	}
+	
+	/*
+	 * Returns the number of values in this tree, counted with a weakly consistent in-order
+	 * traversal. Unlike BinarySearchTree.size, this is not constant time: every call visits
+	 * and locks every node, taking time linear in the size of the tree, so a caller that needs
+	 * the size often should keep its own count. While writers run, the count is only
+	 * approximate, for the reasons given above. Nodes do not keep subtree sizes, since every
+	 * insertion and removal would then have to update the whole path under its locks.
+	 */
+	public int size() {
+		int[] count = new int[1];
+		
+		forEach(TraversalOrder.IN_ORDER, value -> count[0]++);
+		
+		return count[0];
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be
+	 * any integer, zero included. If a node containing the given data already
+	 * exists within this tree, then the tree is left unaffected. Only the lock of
+	 * the node that gets the new child is held when the child is attached.
+	 */
+	public void addNewNode(int nodeData) {
+		LockingTreeNode target;
+		LockingTreeNode next;
+		
+		head.lock();
+		target = head.getLeftChild();
+		
+		if(target == null) {
+			head.setLeftChild(new LockingTreeNode(nodeData));
+			head.unlock();
+			return;
+		}
+		
+		target.lock();
+		head.unlock();
+		
+		while(true) {
+			// Data already exists in the tree, no duplicates allowed.
+			if(nodeData == target.getData()) {
+				target.unlock();
+				return;
+			}
+			
+			if(nodeData > target.getData()) {
+				next = target.getRightChild();
+				if(next == null) {
+					target.setRightChild(new LockingTreeNode(nodeData));
+					target.unlock();
+					return;
+				}
+			} else {
+				next = target.getLeftChild();
+				if(next == null) {
+					target.setLeftChild(new LockingTreeNode(nodeData));
+					target.unlock();
+					return;
+				}
+			}
+			
+			next.lock();
+			target.unlock();
+			target = next;
+		}
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists.
+	 * An empty tree or a tree that does not contain the given nodeData is
+	 * left unaffected.
+	 */
+	public void removeNode(int nodeData) {
+		LockingTreeNode parent = head;
+		LockingTreeNode target;
+		LockingTreeNode next;
+		
+		parent.lock();
+		target = parent.getLeftChild();
+		
+		if(target == null) {
+			parent.unlock();
+			return;
+		}
+		
+		target.lock();
+		
+		// Find the target node, keeping both it and its parent locked.
+		while(nodeData != target.getData()) {
+			if(nodeData > target.getData())
+				next = target.getRightChild();
+			else
+				next = target.getLeftChild();
+			
+			// nodeData does not exist within the tree.
+			if(next == null) {
+				target.unlock();
+				parent.unlock();
+				return;
+			}
+			
+			next.lock();
+			parent.unlock();
+			parent = target;
+			target = next;
+		}
+		
+		if(target.getLeftChild() != null && target.getRightChild() != null) {
+			// The target stays in place, so its parent's link is left alone.
+			parent.unlock();
+			removeRightMostChild(target);
+		} else {
+			if(target.getLeftChild() != null)
+				next = target.getLeftChild();
+			else
+				next = target.getRightChild();
+			
+			if(parent.getLeftChild() == target)
+				parent.setLeftChild(next);
+			else
+				parent.setRightChild(next);
+			
+			target.unlock();
+			parent.unlock();
+		}
+	}
+	
+	/*
+	 * Gives the given target, which is locked and has two children, the data of the
+	 * rightmost child in its left subtree, and then unlinks that child. The rightmost
+	 * child is found with hand-over-hand locking while the target stays locked. Every
+	 * lock, including the target's, is released before this method returns.
+	 */
+	private void removeRightMostChild(LockingTreeNode target) {
+		LockingTreeNode rightMostParent = target;
+		LockingTreeNode rightMostChild = target.getLeftChild();
+		LockingTreeNode next;
+		
+		rightMostChild.lock();
+		
+		while(rightMostChild.getRightChild() != null) {
+			next = rightMostChild.getRightChild();
+			next.lock();
+			
+			// The target's lock is kept until its data has been replaced.
+			if(rightMostParent != target)
+				rightMostParent.unlock();
+			
+			rightMostParent = rightMostChild;
+			rightMostChild = next;
+		}
+		
+		target.setData(rightMostChild.getData());
+		
+		if(rightMostParent == target)
+			target.setLeftChild(rightMostChild.getLeftChild());
+		else {
+			rightMostParent.setRightChild(rightMostChild.getLeftChild());
+			rightMostParent.unlock();
+		}
+		
+		rightMostChild.unlock();
+		target.unlock();
+	}
+	
+	/*
+	 * Gets the data of a predecessor of a node within this tree that contains the given nodeData, if it exists.
+	 * A predecessor of a node is defined as being the node that prints its data immediately before that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not exist
+	 * in this tree, otherwise the predecessor's data is returned. Zero can also be a real predecessor, so
+	 * getNodePredecessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		long predecessor = findPredecessor(nodeData);
+		
+		return (predecessor == NONE) ? 0 : (int) predecessor;
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		long predecessor = findPredecessor(nodeData);
+		
+		if(predecessor == NONE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set((int) predecessor);
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of a successor of a node within this tree that contains the given nodeData, if it exists.
+	 * A successor of a node is defined as being the node that prints its data immediately after that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not
+	 * exist in this tree, otherwise the successor's data is returned. Zero can also be a real successor, so
+	 * getNodeSuccessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		long successor = findSuccessor(nodeData);
+		
+		return (successor == NONE) ? 0 : (int) successor;
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		long successor = findSuccessor(nodeData);
+		
+		if(successor == NONE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set((int) successor);
+		
+		return true;
+	}
+	
+	/*
+	 * Passes the data of every node in this tree to the given action, visiting the nodes in
+	 * the given order. The traversal is weakly consistent, as described for this class. Each
+	 * node is locked only while its data and children are read, and the action is called with
+	 * no lock held, so it may modify this tree. An explicit stack is used, since the tree does
+	 * not rebalance itself and can be as deep as it has nodes.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		LockingTreeNode[] nodeStack = new LockingTreeNode[32];
+		// Right child of each node on the stack, read together with its data.
+		LockingTreeNode[] rightStack = new LockingTreeNode[32];
+		int[] dataStack = new int[32];
+		int[] stateStack = new int[32];
+		int stackSize = 0;
+		LockingTreeNode target;
+		LockingTreeNode leftChild;
+		int top;
+		
+		head.lock();
+		target = head.getLeftChild();
+		head.unlock();
+		
+		if(target == null)
+			return;
+		
+		nodeStack[0] = target;
+		stateStack[0] = UNREAD;
+		stackSize = 1;
+		
+		while(stackSize > 0) {
+			top = stackSize - 1;
+			
+			if(stackSize == nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+				rightStack = Arrays.copyOf(rightStack, rightStack.length * 2);
+				dataStack = Arrays.copyOf(dataStack, dataStack.length * 2);
+				stateStack = Arrays.copyOf(stateStack, stateStack.length * 2);
+			}
+			
+			if(stateStack[top] == UNREAD) {
+				target = nodeStack[top];
+				target.lock();
+				dataStack[top] = target.getData();
+				leftChild = target.getLeftChild();
+				rightStack[top] = target.getRightChild();
+				target.unlock();
+				
+				stateStack[top] = LEFT_PENDING;
+				
+				if(order == TraversalOrder.PRE_ORDER)
+					action.accept(dataStack[top]);
+				
+				if(leftChild != null) {
+					nodeStack[stackSize] = leftChild;
+					stateStack[stackSize] = UNREAD;
+					stackSize++;
+				}
+			} else if(stateStack[top] == LEFT_PENDING) {
+				stateStack[top] = RIGHT_PENDING;
+				
+				if(order == TraversalOrder.IN_ORDER)
+					action.accept(dataStack[top]);
+				
+				if(rightStack[top] != null) {
+					nodeStack[stackSize] = rightStack[top];
+					stateStack[stackSize] = UNREAD;
+					stackSize++;
+				}
+			} else {
+				if(order == TraversalOrder.POST_ORDER)
+					action.accept(dataStack[top]);
+				
+				nodeStack[top] = null;
+				rightStack[top] = null;
+				stackSize--;
+			}
+		}
+	}
+	
+	// Returns the pre-order sequence of this tree, in the same format as BinarySearchTree.getPreOrderSequence.
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	// Returns the in-order sequence of this tree, in the same format as BinarySearchTree.getInOrderSequence.
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	// Returns the post-order sequence of this tree, in the same format as BinarySearchTree.getPostOrderSequence.
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Returns the data of every node in this tree, visited in the given order and each followed by a space.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder sequence = new StringBuilder();
+		
+		forEach(order, value -> sequence.append(value).append(' '));
+		
+		return sequence.toString();
+	}
+	
+	/*
+	 * Returns the data of the predecessor of the node within this tree that contains the
+	 * given nodeData, read while its node was locked, or NONE if this tree is empty, nodeData
+	 * does not exist in this tree or its node has no predecessor.
+	 */
+	private long findPredecessor(int nodeData) {
+		LockingTreeNode target;
+		LockingTreeNode next;
+		long predecessor = NONE;
+		
+		head.lock();
+		target = head.getLeftChild();
+		
+		if(target == null) {
+			head.unlock();
+			return NONE;
+		}
+		
+		target.lock();
+		head.unlock();
+		
+		while(nodeData != target.getData()) {
+			if(nodeData > target.getData()) {
+				predecessor = target.getData();
+				next = target.getRightChild();
+			} else
+				next = target.getLeftChild();
+			
+			// The desired node does not exist in this tree.
+			if(next == null) {
+				target.unlock();
+				return NONE;
+			}
+			
+			next.lock();
+			target.unlock();
+			target = next;
+		}
+		
+		// Predecessor will be rightmost child in target's left subtree, if it has one.
+		next = target.getLeftChild();
+		
+		while(next != null) {
+			next.lock();
+			target.unlock();
+			target = next;
+			predecessor = target.getData();
+			next = target.getRightChild();
+		}
+		
+		target.unlock();
+		
+		return predecessor;
+	}
+	
+	/*
+	 * Returns the data of the successor of the node within this tree that contains the
+	 * given nodeData, read while its node was locked, or NONE if this tree is empty, nodeData
+	 * does not exist in this tree or its node has no successor.
+	 */
+	private long findSuccessor(int nodeData) {
+		LockingTreeNode target;
+		LockingTreeNode next;
+		long successor = NONE;
+		
+		head.lock();
+		target = head.getLeftChild();
+		
+		if(target == null) {
+			head.unlock();
+			return NONE;
+		}
+		
+		target.lock();
+		head.unlock();
+		
+		while(nodeData != target.getData()) {
+			if(nodeData > target.getData())
+				next = target.getRightChild();
+			else {
+				successor = target.getData();
+				next = target.getLeftChild();
+			}
+			
+			// The desired node does not exist in this tree.
+			if(next == null) {
+				target.unlock();
+				return NONE;
+			}
+			
+			next.lock();
+			target.unlock();
+			target = next;
+		}
+		
+		// Successor will be leftmost child in target's right subtree, if it has one.
+		next = target.getRightChild();
+		
+		while(next != null) {
+			next.lock();
+			target.unlock();
+			target = next;
+			successor = target.getData();
+			next = target.getLeftChild();
+		}
+		
+		target.unlock();
+		
+		return successor;
+	}
+}
@@ -0,0 +1,57 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * This class represents a node of a LockCouplingBinarySearchTree. It holds the same data
+ * and children as a TreeNode and is also its own lock, so each node can be locked on its
+ * own while threads work on other parts of the tree. A node's data and children may only
+ * be read or written while its lock is held.
+ */
+class LockingTreeNode extends ReentrantLock {
+	private static final long serialVersionUID = 1L;
+	
+	private int data;
+	private LockingTreeNode leftChild;
+	private LockingTreeNode rightChild;
+	
+	/*
+	 * Constructor that creates a new LockingTreeNode object with a data value according to
+	 * the parameter given and no left or right children.
+	 */
+	LockingTreeNode(int data) {
+		this.data = data;
+		leftChild = null;
+		rightChild = null;
+	}
+	
+	// Sets the data of this node according to the parameter given.
+	void setData(int newData) {
+		data = newData;
+	}
+	
+	// Sets the left child of this node according to the parameter given.
+	void setLeftChild(LockingTreeNode newNode) {
+		leftChild = newNode;
+	}
+	
+	// Sets the right child of this node according to the parameter given.
+	void setRightChild(LockingTreeNode newNode) {
+		rightChild = newNode;
+	}
+	
+	// Gets the data of this node.
+	int getData() {
+		return data;
+	}
+	
+	// Gets a reference to this node's left child.
+	LockingTreeNode getLeftChild() {
+		return leftChild;
+	}
+	
+	// Gets a reference to this node's right child.
+	LockingTreeNode getRightChild() {
+		return rightChild;
+	}
+}
@@ -0,0 +1,63 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.NoSuchElementException;
+
+/*
+ * This class holds the result of a lookup that may or may not find a long value, such as
+ * LongBinarySearchTree.getNodePredecessor(long, LongResult). It is the long counterpart of
+ * IntResult, and can likewise be reused for any number of lookups without allocating.
+ */
+public class LongResult {
+	// True if the last lookup found a value, false otherwise.
+	private boolean present;
+	// Value found by the last lookup, only meaningful when present is true.
+	private long value;
+	
+	// Default constructor, creating a result holding no value.
+	public LongResult() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Records that a lookup found the given value.
+	 */
+	public void set(long newValue) {
+		present = true;
+		value = newValue;
+	}
+	
+	/*
+	 * Records that a lookup found no value.
+	 */
+	public void clear() {
+		present = false;
+		value = 0;
+	}
+	
+	/*
+	 * Returns true if the last lookup found a value, false otherwise.
+	 */
+	public boolean isPresent() {
+		return present;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup. A NoSuchElementException is thrown if the
+	 * last lookup found no value.
+	 */
+	public long getValue() {
+		if(!present)
+			throw new NoSuchElementException("No value is present.");
+		
+		return value;
+	}
+	
+	/*
+	 * Gets the value found by the last lookup, or the given other value if the last lookup
+	 * found no value.
+	 */
+	public long getValueOrElse(long other) {
+		return present ? value : other;
+	}
+}
@@ -0,0 +1,79 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class represents a node of a LongBinarySearchTree. It holds the same children and
+ * height as a TreeNode, but its data is a long, kept as a primitive so that no value in
+ * the tree is ever boxed.
+ */
+class LongTreeNode {
+	private long data;
+	private LongTreeNode leftChild;
+	private LongTreeNode rightChild;
+	// Height of the subtree rooted at this node, a lone leaf having a height of one.
+	private int height;
+	
+	/*
+	 * Constructor that creates a new LongTreeNode object with a data value according to
+	 * the parameter given and no left or right children.
+	 */
+	LongTreeNode(long data) {
+		this.data = data;
+		leftChild = null;
+		rightChild = null;
+		height = 1;
+	}
+	
+	// Sets the data of this node according to the parameter given.
+	void setData(long newData) {
+		data = newData;
+	}
+	
+	// Sets the left child of this node according to the parameter given.
+	void setLeftChild(LongTreeNode newNode) {
+		leftChild = newNode;
+	}
+	
+	// Sets the right child of this node according to the parameter given.
+	void setRightChild(LongTreeNode newNode) {
+		rightChild = newNode;
+	}
+	
+	// Recalculates the height of this node from the heights of its children.
+	void updateHeight() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		height = Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Gets the data of this node.
+	long getData() {
+		return data;
+	}
+	
+	// Gets a reference to this node's left child.
+	LongTreeNode getLeftChild() {
+		return leftChild;
+	}
+	
+	// Gets a reference to this node's right child.
+	LongTreeNode getRightChild() {
+		return rightChild;
+	}
+	
+	// Gets the height of the subtree rooted at this node.
+	int getHeight() {
+		return height;
+	}
+	
+	/*
+	 * Returns the balance factor of this node, being the height of its left subtree minus
+	 * the height of its right subtree.
+	 */
+	int getBalanceFactor() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		return leftHeight - rightHeight;
+	}
+}
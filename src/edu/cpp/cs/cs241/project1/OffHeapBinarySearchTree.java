@@ -0,0 +1,781 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is an implementation of the binary search tree data structure whose nodes
+ * live outside of the Java heap, in direct ByteBuffers. It offers the same operations as
+ * BinarySearchTree and follows the same layout as ArrayBinarySearchTree: every node is a
+ * slot, slot zero stands for a missing child and freed slots are reused through a free
+ * list. Each slot is a 16 byte record holding the node's data, the slots of its left and
+ * right children and its height, so the heap only ever holds the page table below no
+ * matter how many values the tree contains.
+ *
+ * The records are split across pages of PAGE_SIZE slots, each page being its own direct
+ * buffer, so the tree grows one page at a time without copying what it already holds
+ * and is not limited by the 2GB size of a single buffer.
+ *
+ * A tree must be closed once it is no longer needed. Closing it frees the memory of every
+ * page straight away, through sun.misc.Unsafe.invokeCleaner of the jdk.unsupported module,
+ * rather than when the garbage collector gets to the buffers, so that opening and closing
+ * many trees never runs past -XX:MaxDirectMemorySize. The foreign memory API would do the
+ * same without an unsupported module, but is still incubating in Java 17. If invokeCleaner
+ * cannot be found, the pages are left to the garbage collector instead. Any operation on a
+ * closed tree throws an IllegalStateException.
+ *
+ * A tree created with bounds checking also verifies that every slot it follows is one it
+ * has handed out and has not freed since, and throws an IllegalStateException otherwise,
+ * which is meant for debugging. A freed slot is told apart by its height, which is set to
+ * FREED, a height no node can have.
+ */
+public class OffHeapBinarySearchTree implements AutoCloseable {
+	// Slot that stands for a missing node.
+	private static final int NO_NODE = 0;
+	// Number of bits of a slot that select its record within a page.
+	private static final int PAGE_SHIFT = 16;
+	// Number of slots held by each page.
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	// Mask that selects the record within a page from a slot.
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+	// Size in bytes of a single node record.
+	private static final int RECORD_SIZE = 16;
+	// Offsets of the fields within a node record.
+	private static final int DATA_OFFSET = 0;
+	private static final int LEFT_OFFSET = 4;
+	private static final int RIGHT_OFFSET = 8;
+	private static final int HEIGHT_OFFSET = 12;
+	// Height stored in a freed slot, marking it as free for bounds checking.
+	private static final int FREED = -1;
+	// Handle on sun.misc.Unsafe.invokeCleaner, bound to the Unsafe instance, or null if it cannot be found.
+	private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+	
+	// Direct buffers holding the node records, null once this tree is closed.
+	private ByteBuffer[] pages;
+	// Number of pages allocated so far.
+	private int pageCount;
+	// Slot of the root node of this tree.
+	private int rootNode;
+	// First slot on the free list, NO_NODE if the free list is empty.
+	private int freeSlot;
+	// Lowest slot that has never been used.
+	private int nextUnusedSlot;
+	// True if this tree rebalances itself after every insertion and removal, false otherwise.
+	private boolean selfBalancing;
+	// True if every slot followed is verified before it is used, false otherwise.
+	private boolean boundsChecked;
+	// Slots walked by the current insertion or removal, used only when self-balancing.
+	private int[] searchPath;
+	
+	// Default constructor, creating an empty tree that is neither self-balancing nor bounds checked.
+	public OffHeapBinarySearchTree() {
+		this(false, false);
+	}
+	
+	/*
+	 * Constructor that creates an empty tree, which will keep itself balanced if selfBalancing
+	 * is true and will verify every slot it follows if boundsChecked is true. No off-heap
+	 * memory is allocated until the first value is added.
+	 */
+	public OffHeapBinarySearchTree(boolean selfBalancing, boolean boundsChecked) {
+		pages = new ByteBuffer[16];
+		pageCount = 0;
+		rootNode = NO_NODE;
+		freeSlot = NO_NODE;
+		// Slot zero is never handed out.
+		nextUnusedSlot = 1;
+		this.selfBalancing = selfBalancing;
+		this.boundsChecked = boundsChecked;
+		searchPath = new int[32];
+	}
+	
+	/*
+	 * Frees the memory of every page held by this tree, and no operation may be used on this
+	 * tree afterwards. The pages are never handed out, so no buffer is left pointing at the
+	 * freed memory. Closing a tree that is already closed has no effect.
+	 */
+	@Override
+	public void close() {
+		ByteBuffer[] closedPages = pages;
+		int closedPageCount = pageCount;
+		
+		if(closedPages == null)
+			return;
+		
+		// The tree is marked closed before any page is freed, so it can never reach freed memory.
+		pages = null;
+		pageCount = 0;
+		rootNode = NO_NODE;
+		freeSlot = NO_NODE;
+		
+		if(INVOKE_CLEANER == null)
+			return;
+		
+		for(int i = 0; i < closedPageCount; i++) {
+			try {
+				INVOKE_CLEANER.invokeExact(closedPages[i]);
+			} catch(Throwable e) {
+				throw new IllegalStateException("A page could not be freed.", e);
+			}
+		}
+	}
+	
+	/*
+	 * Returns a handle on sun.misc.Unsafe.invokeCleaner bound to the Unsafe instance, which
+	 * frees the memory of a direct buffer at once, or null if it cannot be found. It is
+	 * looked up by reflection, so the class compiles without the unsupported API.
+	 */
+	private static MethodHandle findInvokeCleaner() {
+		Class<?> unsafeClass;
+		Field instanceField;
+		
+		try {
+			unsafeClass = Class.forName("sun.misc.Unsafe");
+			instanceField = unsafeClass.getDeclaredField("theUnsafe");
+			instanceField.setAccessible(true);
+			
+			return MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+					MethodType.methodType(void.class, ByteBuffer.class)).bindTo(instanceField.get(null));
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+	
+	// Returns true if this tree has been closed, false otherwise.
+	public boolean isClosed() {
+		return pages == null;
+	}
+	
+	// Returns the number of bytes of off-heap memory currently held by this tree.
+	public long getAllocatedBytes() {
+		return (long) pageCount * PAGE_SIZE * RECORD_SIZE;
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		int target;
+		int targetData;
+		
+		ensureOpen();
+		target = rootNode;
+		
+		while(target != NO_NODE) {
+			targetData = getData(target);
+			
+			if(searchValue == targetData)
+				return true;
+			
+			if(searchValue > targetData)
+				target = getRightChild(target);
+			else
+				target = getLeftChild(target);
+		}
+		
+		return false;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		ensureOpen();
+		return rootNode == NO_NODE;
+	}
+	
+	// Returns true if this tree keeps itself balanced, false otherwise.
+	public boolean isSelfBalancing() {
+		return selfBalancing;
+	}
+	
+	// Returns true if this tree verifies every slot it follows, false otherwise.
+	public boolean isBoundsChecked() {
+		return boundsChecked;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be
+	 * any integer, zero included. If a node containing the given data already
+	 * exists within this tree, then the tree is left unaffected.
+	 */
+	public void addNewNode(int nodeData) {
+		int target;
+		int parent = NO_NODE;
+		int newNode;
+		int pathLength = 0;
+		
+		ensureOpen();
+		
+		target = rootNode;
+		
+		while(target != NO_NODE) {
+			// Data already exists in the tree, no duplicates allowed.
+			if(nodeData == getData(target))
+				return;
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(nodeData > getData(target))
+				target = getRightChild(target);
+			else
+				target = getLeftChild(target);
+		}
+		
+		newNode = allocateSlot(nodeData);
+		
+		if(parent == NO_NODE)
+			rootNode = newNode;
+		else if(nodeData > getData(parent))
+			setRightChild(parent, newNode);
+		else
+			setLeftChild(parent, newNode);
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists.
+	 * An empty tree or a tree that does not contain the given nodeData is
+	 * left unaffected. As in BinarySearchTree, a node with two children takes
+	 * the data of the rightmost child in its left subtree, and that child's slot
+	 * is freed instead.
+	 */
+	public void removeNode(int nodeData) {
+		int target;
+		int parent = NO_NODE;
+		int rightMostParent;
+		int rightMostChild;
+		int pathLength = 0;
+		
+		ensureOpen();
+		target = rootNode;
+		
+		// Find the target node along with its parent.
+		while(target != NO_NODE && nodeData != getData(target)) {
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			parent = target;
+			
+			if(nodeData > getData(target))
+				target = getRightChild(target);
+			else
+				target = getLeftChild(target);
+		}
+		
+		// nodeData does not exist within the tree.
+		if(target == NO_NODE)
+			return;
+		
+		if(getLeftChild(target) != NO_NODE && getRightChild(target) != NO_NODE) {
+			rightMostParent = target;
+			rightMostChild = getLeftChild(target);
+			
+			if(selfBalancing)
+				pathLength = pushPath(pathLength, target);
+			
+			while(getRightChild(rightMostChild) != NO_NODE) {
+				if(selfBalancing)
+					pathLength = pushPath(pathLength, rightMostChild);
+				
+				rightMostParent = rightMostChild;
+				rightMostChild = getRightChild(rightMostChild);
+			}
+			
+			setData(target, getData(rightMostChild));
+			
+			if(rightMostParent == target)
+				setLeftChild(target, getLeftChild(rightMostChild));
+			else
+				setRightChild(rightMostParent, getLeftChild(rightMostChild));
+			
+			freeSlot(rightMostChild);
+		} else {
+			if(getLeftChild(target) != NO_NODE)
+				replaceChild(parent, target, getLeftChild(target));
+			else
+				replaceChild(parent, target, getRightChild(target));
+			
+			freeSlot(target);
+		}
+		
+		if(selfBalancing)
+			rebalancePath(pathLength);
+	}
+	
+	// Throws an IllegalStateException if this tree has been closed.
+	private void ensureOpen() {
+		if(pages == null)
+			throw new IllegalStateException("This tree has been closed.");
+	}
+	
+	/*
+	 * Returns the page holding the given slot. With bounds checking, an IllegalStateException
+	 * is thrown if the slot has never been handed out by this tree or has been freed since.
+	 */
+	private ByteBuffer pageOf(int slot) {
+		ByteBuffer page;
+		
+		if(!boundsChecked)
+			return pages[slot >>> PAGE_SHIFT];
+		
+		if(slot <= NO_NODE || slot >= nextUnusedSlot)
+			throw new IllegalStateException("Slot " + slot + " does not belong to this tree.");
+		
+		page = pages[slot >>> PAGE_SHIFT];
+		if(page.getInt(offsetOf(slot) + HEIGHT_OFFSET) == FREED)
+			throw new IllegalStateException("Slot " + slot + " has been freed.");
+		
+		return page;
+	}
+	
+	// Returns the byte offset of the record of the given slot within its page.
+	private static int offsetOf(int slot) {
+		return (slot & PAGE_MASK) * RECORD_SIZE;
+	}
+	
+	// Gets the data of the node in the given slot.
+	private int getData(int slot) {
+		return pageOf(slot).getInt(offsetOf(slot) + DATA_OFFSET);
+	}
+	
+	// Sets the data of the node in the given slot.
+	private void setData(int slot, int newData) {
+		pageOf(slot).putInt(offsetOf(slot) + DATA_OFFSET, newData);
+	}
+	
+	// Gets the slot of the left child of the node in the given slot.
+	private int getLeftChild(int slot) {
+		return pageOf(slot).getInt(offsetOf(slot) + LEFT_OFFSET);
+	}
+	
+	// Sets the slot of the left child of the node in the given slot.
+	private void setLeftChild(int slot, int newChild) {
+		pageOf(slot).putInt(offsetOf(slot) + LEFT_OFFSET, newChild);
+	}
+	
+	// Gets the slot of the right child of the node in the given slot.
+	private int getRightChild(int slot) {
+		return pageOf(slot).getInt(offsetOf(slot) + RIGHT_OFFSET);
+	}
+	
+	// Sets the slot of the right child of the node in the given slot.
+	private void setRightChild(int slot, int newChild) {
+		pageOf(slot).putInt(offsetOf(slot) + RIGHT_OFFSET, newChild);
+	}
+	
+	// Gets the height of the subtree rooted at the node in the given slot.
+	private int getHeight(int slot) {
+		return pageOf(slot).getInt(offsetOf(slot) + HEIGHT_OFFSET);
+	}
+	
+	// Sets the height of the subtree rooted at the node in the given slot.
+	private void setHeight(int slot, int newHeight) {
+		pageOf(slot).putInt(offsetOf(slot) + HEIGHT_OFFSET, newHeight);
+	}
+	
+	/*
+	 * Takes a slot off the free list, or the next unused slot if the free list is empty,
+	 * allocating a new page if every slot is in use. The slot is set up as a leaf holding
+	 * the given data and is then returned.
+	 */
+	private int allocateSlot(int nodeData) {
+		ByteBuffer page;
+		int slot;
+		
+		if(freeSlot != NO_NODE) {
+			slot = freeSlot;
+			// The slot is still marked as freed, so its page is read directly rather than through pageOf.
+			freeSlot = pages[slot >>> PAGE_SHIFT].getInt(offsetOf(slot) + LEFT_OFFSET);
+		} else {
+			if(nextUnusedSlot == Integer.MAX_VALUE)
+				throw new IllegalStateException("This tree cannot hold any more nodes.");
+			
+			if((nextUnusedSlot >>> PAGE_SHIFT) == pageCount)
+				addPage();
+			slot = nextUnusedSlot++;
+		}
+		
+		page = pages[slot >>> PAGE_SHIFT];
+		page.putInt(offsetOf(slot) + DATA_OFFSET, nodeData);
+		page.putInt(offsetOf(slot) + LEFT_OFFSET, NO_NODE);
+		page.putInt(offsetOf(slot) + RIGHT_OFFSET, NO_NODE);
+		page.putInt(offsetOf(slot) + HEIGHT_OFFSET, 1);
+		
+		return slot;
+	}
+	
+	// Puts the given slot back on the free list, marking it as freed.
+	private void freeSlot(int slot) {
+		ByteBuffer page = pageOf(slot);
+		
+		page.putInt(offsetOf(slot) + LEFT_OFFSET, freeSlot);
+		page.putInt(offsetOf(slot) + RIGHT_OFFSET, NO_NODE);
+		page.putInt(offsetOf(slot) + HEIGHT_OFFSET, FREED);
+		freeSlot = slot;
+	}
+	
+	// Allocates one more page of node records, growing the page table if needed.
+	private void addPage() {
+		if(pageCount == pages.length)
+			pages = Arrays.copyOf(pages, pageCount * 2);
+		
+		pages[pageCount++] = ByteBuffer.allocateDirect(PAGE_SIZE * RECORD_SIZE).order(ByteOrder.nativeOrder());
+	}
+	
+	/*
+	 * Makes newChild take the place of oldChild underneath the given parent. A parent
+	 * of NO_NODE means oldChild is the root node of this tree.
+	 */
+	private void replaceChild(int parent, int oldChild, int newChild) {
+		if(parent == NO_NODE)
+			rootNode = newChild;
+		else if(getLeftChild(parent) == oldChild)
+			setLeftChild(parent, newChild);
+		else
+			setRightChild(parent, newChild);
+	}
+	
+	/*
+	 * Pushes the given slot onto searchPath, which currently holds pathLength slots,
+	 * growing it if needed. The new length of the path is returned.
+	 */
+	private int pushPath(int pathLength, int slot) {
+		if(pathLength == searchPath.length)
+			searchPath = Arrays.copyOf(searchPath, pathLength * 2);
+		
+		searchPath[pathLength] = slot;
+		
+		return pathLength + 1;
+	}
+	
+	/*
+	 * Rebalances the first pathLength slots of searchPath, from the deepest node back up
+	 * to the root of this tree, stopping early once a subtree keeps both its root and its
+	 * height.
+	 */
+	private void rebalancePath(int pathLength) {
+		int node;
+		int balancedNode;
+		int oldHeight;
+		
+		for(int i = pathLength - 1; i >= 0; i--) {
+			node = searchPath[i];
+			oldHeight = getHeight(node);
+			balancedNode = rebalance(node);
+			
+			if(balancedNode != node)
+				replaceChild((i > 0) ? searchPath[i - 1] : NO_NODE, node, balancedNode);
+			
+			if(getHeight(balancedNode) == oldHeight)
+				break;
+		}
+	}
+	
+	// Returns the height of the subtree rooted at the given slot, zero for NO_NODE.
+	private int heightOf(int slot) {
+		return (slot == NO_NODE) ? 0 : getHeight(slot);
+	}
+	
+	// Recalculates the height of the given slot from the heights of its children.
+	private void updateHeight(int slot) {
+		setHeight(slot, Math.max(heightOf(getLeftChild(slot)), heightOf(getRightChild(slot))) + 1);
+	}
+	
+	// Returns the balance factor of the given slot.
+	private int balanceFactor(int slot) {
+		return heightOf(getLeftChild(slot)) - heightOf(getRightChild(slot));
+	}
+	
+	/*
+	 * Restores the AVL property of the subtree rooted at the given slot, assuming both of
+	 * its own subtrees are already balanced. The slot of the subtree's new root is returned.
+	 */
+	private int rebalance(int root) {
+		int balanceFactor;
+		
+		updateHeight(root);
+		balanceFactor = balanceFactor(root);
+		
+		if(balanceFactor > 1) {
+			if(balanceFactor(getLeftChild(root)) < 0)
+				setLeftChild(root, rotateLeft(getLeftChild(root)));
+			return rotateRight(root);
+		} else if(balanceFactor < -1) {
+			if(balanceFactor(getRightChild(root)) > 0)
+				setRightChild(root, rotateRight(getRightChild(root)));
+			return rotateLeft(root);
+		}
+		
+		return root;
+	}
+	
+	// Rotates the subtree rooted at the given slot to the left and returns its new root.
+	private int rotateLeft(int root) {
+		int newRoot = getRightChild(root);
+		
+		setRightChild(root, getLeftChild(newRoot));
+		setLeftChild(newRoot, root);
+		updateHeight(root);
+		updateHeight(newRoot);
+		
+		return newRoot;
+	}
+	
+	// Rotates the subtree rooted at the given slot to the right and returns its new root.
+	private int rotateRight(int root) {
+		int newRoot = getLeftChild(root);
+		
+		setLeftChild(root, getRightChild(newRoot));
+		setRightChild(newRoot, root);
+		updateHeight(root);
+		updateHeight(newRoot);
+		
+		return newRoot;
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in a pre-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in an in-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	/*
+	 * Returns a string containing the sequence of printed output when traversing this tree
+	 * in a post-order traversal. Each printed value is separated by a space. An empty tree
+	 * will return an empty string.
+	 */
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Builds the sequence string for a traversal of this tree in the given order and then returns it.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder result = new StringBuilder();
+		
+		forEach(order, value -> result.append(value).append(' '));
+		
+		return result.toString();
+	}
+	
+	/*
+	 * Passes the data of every node in this tree to the given action, visiting the nodes
+	 * in the given order. The traversal keeps its own stack of slots, so a tree of any
+	 * depth can be traversed.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		int[] stack = new int[32];
+		int stackSize = 0;
+		int target;
+		int lastVisited = NO_NODE;
+		
+		ensureOpen();
+		target = rootNode;
+		
+		switch(order) {
+		case PRE_ORDER:
+			if(target != NO_NODE)
+				stack[stackSize++] = target;
+			
+			while(stackSize > 0) {
+				target = stack[--stackSize];
+				action.accept(getData(target));
+				
+				if(stackSize + 2 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				
+				// The right child is pushed first so that the left subtree is visited first.
+				if(getRightChild(target) != NO_NODE)
+					stack[stackSize++] = getRightChild(target);
+				if(getLeftChild(target) != NO_NODE)
+					stack[stackSize++] = getLeftChild(target);
+			}
+			break;
+		case IN_ORDER:
+			while(target != NO_NODE || stackSize > 0) {
+				while(target != NO_NODE) {
+					if(stackSize == stack.length)
+						stack = Arrays.copyOf(stack, stackSize * 2);
+					stack[stackSize++] = target;
+					target = getLeftChild(target);
+				}
+				
+				target = stack[--stackSize];
+				action.accept(getData(target));
+				target = getRightChild(target);
+			}
+			break;
+		case POST_ORDER:
+			while(target != NO_NODE || stackSize > 0) {
+				while(target != NO_NODE) {
+					if(stackSize == stack.length)
+						stack = Arrays.copyOf(stack, stackSize * 2);
+					stack[stackSize++] = target;
+					target = getLeftChild(target);
+				}
+				
+				target = stack[stackSize - 1];
+				
+				// Visit the node once its right subtree is empty or has just been visited.
+				if(getRightChild(target) != NO_NODE && getRightChild(target) != lastVisited)
+					target = getRightChild(target);
+				else {
+					stackSize--;
+					action.accept(getData(target));
+					lastVisited = target;
+					target = NO_NODE;
+				}
+			}
+			break;
+		}
+	}
+	
+	/*
+	 * Gets the data of a predecessor of a node within this tree that contains the given nodeData, if it exists.
+	 * A predecessor of a node is defined as being the node that prints its data immediately before that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not exist
+	 * in this tree, otherwise the predecessor's data is returned. Zero can also be a real predecessor, so
+	 * getNodePredecessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		int predecessor = findPredecessor(nodeData);
+		
+		return (predecessor == NO_NODE) ? 0 : getData(predecessor);
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		int predecessor = findPredecessor(nodeData);
+		
+		if(predecessor == NO_NODE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(getData(predecessor));
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of a successor of a node within this tree that contains the given nodeData, if it exists.
+	 * A successor of a node is defined as being the node that prints its data immediately after that node in
+	 * an in-order traversal. An integer value of zero is returned if this tree is empty or nodeData does not
+	 * exist in this tree, otherwise the successor's data is returned. Zero can also be a real successor, so
+	 * getNodeSuccessor(int, IntResult) should be used to tell the two apart.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		int successor = findSuccessor(nodeData);
+		
+		return (successor == NO_NODE) ? 0 : getData(successor);
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData and
+	 * stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		int successor = findSuccessor(nodeData);
+		
+		if(successor == NO_NODE) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(getData(successor));
+		
+		return true;
+	}
+	
+	/*
+	 * Returns the slot of the predecessor of the node within this tree that contains the
+	 * given nodeData, or NO_NODE if this tree is empty, nodeData does not exist in this tree
+	 * or its node has no predecessor.
+	 */
+	private int findPredecessor(int nodeData) {
+		int target;
+		int predecessor = NO_NODE;
+		
+		ensureOpen();
+		target = rootNode;
+		
+		while(target != NO_NODE) {
+			if(nodeData == getData(target)) {
+				if(getLeftChild(target) != NO_NODE) {
+					// Predecessor will be rightmost child in target's left subtree.
+					predecessor = getLeftChild(target);
+					while(getRightChild(predecessor) != NO_NODE)
+						predecessor = getRightChild(predecessor);
+				}
+				return predecessor;
+			} else if(nodeData > getData(target)) {
+				predecessor = target;
+				target = getRightChild(target);
+			} else
+				target = getLeftChild(target);
+		}
+		
+		// The desired node does not exist in this tree.
+		return NO_NODE;
+	}
+	
+	/*
+	 * Returns the slot of the successor of the node within this tree that contains the
+	 * given nodeData, or NO_NODE if this tree is empty, nodeData does not exist in this tree
+	 * or its node has no successor.
+	 */
+	private int findSuccessor(int nodeData) {
+		int target;
+		int successor = NO_NODE;
+		
+		ensureOpen();
+		target = rootNode;
+		
+		while(target != NO_NODE) {
+			if(nodeData == getData(target)) {
+				if(getRightChild(target) != NO_NODE) {
+					// Successor will be leftmost child in target's right subtree.
+					successor = getRightChild(target);
+					while(getLeftChild(successor) != NO_NODE)
+						successor = getLeftChild(successor);
+				}
+				return successor;
+			} else if(nodeData > getData(target))
+				target = getRightChild(target);
+			else {
+				successor = target;
+				target = getLeftChild(target);
+			}
+		}
+		
+		// The desired node does not exist in this tree.
+		return NO_NODE;
+	}
+}
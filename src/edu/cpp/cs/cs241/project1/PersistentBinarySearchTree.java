@@ -0,0 +1,422 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/*
+ * This class is a persistent binary search tree: a TreeNode, once it is part of the tree,
+ * is never modified again. An insertion or removal instead copies the nodes on the path
+ * from the root down to the change, linking each copy to the untouched subtrees of the
+ * original, and then publishes the new root. Every other node is shared between the old
+ * and new versions of the tree. The tree is kept as an AVL tree, so every version is
+ * balanced and each update copies only O(log n) nodes.
+ *
+ * snapshot therefore takes constant time: it returns a tree holding the current root,
+ * whose contents no later update of this tree can change. A long-running reader, such as
+ * a full in-order export, can walk a snapshot while writers keep updating the tree, with
+ * no copying and no locking. A version that no snapshot or tree holds any more is reclaimed
+ * by the garbage collector, apart from the nodes it still shares with newer versions.
+ *
+ * Any number of threads may read a tree while others update it. The root is volatile and
+ * every node is fully built before the root that leads to it is published, so a reader
+ * always sees a complete version. Updates of the same tree are serialized by its lock.
+ * They recurse down the tree, which is safe because an AVL tree is never more than about
+ * 1.44 * log2(n) levels deep.
+ *
+ * The API is a subset of that of BinarySearchTree. Insertion, removal, contains, size,
+ * both forms of the predecessor and successor lookups, iteration and the three traversal
+ * sequences follow the same contracts, each read answered from the version of the tree
+ * current when it starts. The batch and set operations, floor and ceiling lookups, ranges,
+ * order statistics, streams, saved snapshots and metrics are not offered.
+ */
+public class PersistentBinarySearchTree {
+	// Root node of the current version of this tree, never modified once published.
+	private volatile TreeNode rootNode;
+	
+	// Default constructor, creating an empty tree.
+	public PersistentBinarySearchTree() {
+		rootNode = null;
+	}
+	
+	// Constructor that creates a tree whose current version is the one rooted at the given root parameter.
+	private PersistentBinarySearchTree(TreeNode rootNode) {
+		this.rootNode = rootNode;
+	}
+	
+	/*
+	 * Creates a tree holding the given values, in any order, built in a perfectly balanced
+	 * shape as BinarySearchTree.fromUnsorted does. The given array is not modified.
+	 */
+	public static PersistentBinarySearchTree fromUnsorted(int[] values) {
+		// The nodes of the new tree are not shared with anything else, so they can become the first version.
+		return new PersistentBinarySearchTree(BinarySearchTree.fromUnsorted(values, true).getRootNode());
+	}
+	
+	/*
+	 * Returns a snapshot of the current version of this tree in constant time. The snapshot
+	 * is itself a PersistentBinarySearchTree, which later updates of this tree do not affect,
+	 * and whose own updates do not affect this tree.
+	 */
+	public PersistentBinarySearchTree snapshot() {
+		return new PersistentBinarySearchTree(rootNode);
+	}
+	
+	/*
+	 * Checks whether or not the tree contains a node containing the given searchValue.
+	 * Returns true if the given search value does exist within this tree, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		TreeNode target = rootNode;
+		int targetData;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(searchValue == targetData)
+				return true;
+			
+			if(searchValue > targetData)
+				target = target.getRightChild();
+			else
+				target = target.getLeftChild();
+		}
+		
+		return false;
+	}
+	
+	// Returns true if the tree is empty, false otherwise.
+	public boolean isEmpty() {
+		return rootNode == null;
+	}
+	
+	// Returns the number of values in this tree, read off the size of the root node.
+	public int size() {
+		TreeNode root = rootNode;
+		
+		return (root != null) ? root.getSize() : 0;
+	}
+	
+	// Returns the height of this tree, read off the root node. An empty tree has a height of zero.
+	public int getHeight() {
+		TreeNode root = rootNode;
+		
+		return (root != null) ? root.getHeight() : 0;
+	}
+	
+	/*
+	 * Adds a new node to this tree with the given data. The given data can be any integer,
+	 * zero included. If a node containing the given data already exists within this tree,
+	 * then the tree is left unaffected and nothing is copied.
+	 */
+	public synchronized void addNewNode(int nodeData) {
+		rootNode = insert(rootNode, nodeData);
+	}
+	
+	/*
+	 * Removes a node with the given nodeData from the tree, if it exists. An empty tree or
+	 * a tree that does not contain the given nodeData is left unaffected and nothing is copied.
+	 */
+	public synchronized void removeNode(int nodeData) {
+		rootNode = remove(rootNode, nodeData);
+	}
+	
+	/*
+	 * Gets the data of the predecessor of the node within the current version of this tree
+	 * that contains the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int): zero is returned if there is none.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		TreeNode predecessor = findPredecessor(rootNode, nodeData);
+		
+		return (predecessor != null) ? predecessor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the predecessor of the node within this tree that contains the given nodeData,
+	 * and stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		TreeNode predecessor = findPredecessor(rootNode, nodeData);
+		
+		// The desired node or its predecessor does not exist in this tree.
+		if(predecessor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(predecessor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the data of the successor of the node within the current version of this tree
+	 * that contains the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int): zero is returned if there is none.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		TreeNode successor = findSuccessor(rootNode, nodeData);
+		
+		return (successor != null) ? successor.getData() : 0;
+	}
+	
+	/*
+	 * Finds the successor of the node within this tree that contains the given nodeData,
+	 * and stores its data in the given result, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		TreeNode successor = findSuccessor(rootNode, nodeData);
+		
+		// The desired node or its successor does not exist in this tree.
+		if(successor == null) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(successor.getData());
+		
+		return true;
+	}
+	
+	/*
+	 * Returns an iterator over the data of the current version of this tree, in the given
+	 * order. Updates made to the tree while it is being iterated over are not seen by the
+	 * iterator, which keeps walking the version it started with.
+	 */
+	public PrimitiveIterator.OfInt iterator(TraversalOrder order) {
+		return new TreeIterator(rootNode, order);
+	}
+	
+	/*
+	 * Passes the data of every node in the current version of this tree to the given action,
+	 * in the given order, unaffected by updates made while it runs.
+	 */
+	public void forEach(TraversalOrder order, IntConsumer action) {
+		TreeIterator iterator = new TreeIterator(rootNode, order);
+		
+		while(iterator.hasNext())
+			action.accept(iterator.nextInt());
+	}
+	
+	/*
+	 * Returns the pre-order sequence of the current version of this tree, in the same format
+	 * as BinarySearchTree.getPreOrderSequence.
+	 */
+	public String getPreOrderSequence() {
+		return getSequence(TraversalOrder.PRE_ORDER);
+	}
+	
+	/*
+	 * Returns the in-order sequence of the current version of this tree, in the same format
+	 * as BinarySearchTree.getInOrderSequence.
+	 */
+	public String getInOrderSequence() {
+		return getSequence(TraversalOrder.IN_ORDER);
+	}
+	
+	/*
+	 * Returns the post-order sequence of the current version of this tree, in the same format
+	 * as BinarySearchTree.getPostOrderSequence.
+	 */
+	public String getPostOrderSequence() {
+		return getSequence(TraversalOrder.POST_ORDER);
+	}
+	
+	// Builds the sequence string for a traversal of the current version of this tree in the given order.
+	private String getSequence(TraversalOrder order) {
+		StringBuilder sequence = new StringBuilder();
+		TreeIterator iterator = new TreeIterator(rootNode, order);
+		
+		while(iterator.hasNext())
+			sequence.append(iterator.nextInt()).append(' ');
+		
+		return sequence.toString();
+	}
+	
+	/*
+	 * Returns the node holding the predecessor of the given nodeData in the subtree rooted at
+	 * the given node, or null if nodeData is not in the subtree or has no predecessor.
+	 */
+	private static TreeNode findPredecessor(TreeNode root, int nodeData) {
+		TreeNode target = root;
+		TreeNode predecessor = null;
+		int targetData;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(nodeData == targetData) {
+				// Predecessor will be rightmost child in target's left subtree, if it has one.
+				if(target.hasLeftChild())
+					return getRightMostChild(target.getLeftChild());
+				return predecessor;
+			} else if(nodeData > targetData) {
+				predecessor = target;
+				target = target.getRightChild();
+			} else
+				target = target.getLeftChild();
+		}
+		
+		// The desired node does not exist in this tree.
+		return null;
+	}
+	
+	/*
+	 * Returns the node holding the successor of the given nodeData in the subtree rooted at
+	 * the given node, or null if nodeData is not in the subtree or has no successor.
+	 */
+	private static TreeNode findSuccessor(TreeNode root, int nodeData) {
+		TreeNode target = root;
+		TreeNode successor = null;
+		int targetData;
+		
+		while(target != null) {
+			targetData = target.getData();
+			
+			if(nodeData == targetData) {
+				// Successor will be leftmost child in target's right subtree, if it has one.
+				if(target.hasRightChild())
+					return getLeftMostChild(target.getRightChild());
+				return successor;
+			} else if(nodeData > targetData)
+				target = target.getRightChild();
+			else {
+				successor = target;
+				target = target.getLeftChild();
+			}
+		}
+		
+		// The desired node does not exist in this tree.
+		return null;
+	}
+	
+	/*
+	 * Returns the root of a version of the subtree rooted at the given node that also holds
+	 * the given value. The nodes on the path down to the new node are copied, and the subtree
+	 * is returned unchanged if it already holds the value.
+	 */
+	private static TreeNode insert(TreeNode node, int value) {
+		TreeNode newChild;
+		int nodeData;
+		
+		if(node == null)
+			return new TreeNode(value);
+		
+		nodeData = node.getData();
+		
+		if(value == nodeData)
+			return node;
+		
+		if(value > nodeData) {
+			newChild = insert(node.getRightChild(), value);
+			return (newChild == node.getRightChild()) ? node : balance(nodeData, node.getLeftChild(), newChild);
+		}
+		
+		newChild = insert(node.getLeftChild(), value);
+		
+		return (newChild == node.getLeftChild()) ? node : balance(nodeData, newChild, node.getRightChild());
+	}
+	
+	/*
+	 * Returns the root of a version of the subtree rooted at the given node that no longer
+	 * holds the given value. As in BinarySearchTree.removeNode, a node with two children is
+	 * replaced by the rightmost child in its left subtree. The nodes on the path down to the
+	 * removed node are copied, and the subtree is returned unchanged if it does not hold the
+	 * value.
+	 */
+	private static TreeNode remove(TreeNode node, int value) {
+		TreeNode newChild;
+		int nodeData;
+		
+		if(node == null)
+			return null;
+		
+		nodeData = node.getData();
+		
+		if(value > nodeData) {
+			newChild = remove(node.getRightChild(), value);
+			return (newChild == node.getRightChild()) ? node : balance(nodeData, node.getLeftChild(), newChild);
+		} else if(value < nodeData) {
+			newChild = remove(node.getLeftChild(), value);
+			return (newChild == node.getLeftChild()) ? node : balance(nodeData, newChild, node.getRightChild());
+		}
+		
+		if(!node.hasLeftChild())
+			return node.getRightChild();
+		
+		if(!node.hasRightChild())
+			return node.getLeftChild();
+		
+		return balance(getRightMostChild(node.getLeftChild()).getData(), removeRightMostChild(node.getLeftChild()),
+				node.getRightChild());
+	}
+	
+	// Returns the root of a version of the subtree rooted at the given node without its rightmost child.
+	private static TreeNode removeRightMostChild(TreeNode node) {
+		if(!node.hasRightChild())
+			return node.getLeftChild();
+		
+		return balance(node.getData(), node.getLeftChild(), removeRightMostChild(node.getRightChild()));
+	}
+	
+	/*
+	 * Returns a new node holding the given data over the given subtrees, which must both be
+	 * balanced and differ in height by at most two. If they differ by two, the new node is
+	 * rotated as in BinarySearchTree.rebalance, with the rotated nodes built as new nodes
+	 * rather than relinked, so the given subtrees are never modified.
+	 */
+	private static TreeNode balance(int data, TreeNode leftChild, TreeNode rightChild) {
+		int leftHeight = getHeight(leftChild);
+		int rightHeight = getHeight(rightChild);
+		TreeNode middle;
+		
+		if(leftHeight > rightHeight + 1) {
+			// Left subtree is too tall. A single right rotation, unless it leans right, which needs a double rotation.
+			if(getHeight(leftChild.getLeftChild()) >= getHeight(leftChild.getRightChild()))
+				return new TreeNode(leftChild.getData(), leftChild.getLeftChild(),
+						new TreeNode(data, leftChild.getRightChild(), rightChild));
+			
+			middle = leftChild.getRightChild();
+			return new TreeNode(middle.getData(), new TreeNode(leftChild.getData(), leftChild.getLeftChild(),
+					middle.getLeftChild()), new TreeNode(data, middle.getRightChild(), rightChild));
+		} else if(rightHeight > leftHeight + 1) {
+			// Right subtree is too tall. A single left rotation, unless it leans left, which needs a double rotation.
+			if(getHeight(rightChild.getRightChild()) >= getHeight(rightChild.getLeftChild()))
+				return new TreeNode(rightChild.getData(), new TreeNode(data, leftChild, rightChild.getLeftChild()),
+						rightChild.getRightChild());
+			
+			middle = rightChild.getLeftChild();
+			return new TreeNode(middle.getData(), new TreeNode(data, leftChild, middle.getLeftChild()),
+					new TreeNode(rightChild.getData(), middle.getRightChild(), rightChild.getRightChild()));
+		}
+		
+		return new TreeNode(data, leftChild, rightChild);
+	}
+	
+	// Returns the height of the subtree rooted at the given node, which is zero for null.
+	private static int getHeight(TreeNode node) {
+		return (node != null) ? node.getHeight() : 0;
+	}
+	
+	// Returns a reference to the leftmost child of a tree rooted at the given root parameter.
+	private static TreeNode getLeftMostChild(TreeNode root) {
+		TreeNode target = root;
+		
+		while(target.hasLeftChild())
+			target = target.getLeftChild();
+		
+		return target;
+	}
+	
+	// Returns a reference to the rightmost child of a tree rooted at the given root parameter.
+	private static TreeNode getRightMostChild(TreeNode root) {
+		TreeNode target = root;
+		
+		while(target.hasRightChild())
+			target = target.getRightChild();
+		
+		return target;
+	}
+}
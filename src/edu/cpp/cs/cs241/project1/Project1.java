@@ -1,5 +1,9 @@
 package edu.cpp.cs.cs241.project1;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.StringTokenizer;
@@ -10,6 +14,9 @@ import java.util.StringTokenizer;
  * initial values (integers) for the binary search tree. It then provides information
  * for the newly created tree and gives the user the option to insert a new value to
  * the tree, delete a value, find node predecessors and successors, and exit the program.
+ *
+ * Started with the option --batch, the program instead runs the commands of a file, or of
+ * its standard input if no file is named, without prompting, as described in BatchProcessor.
  */
 public class Project1 {
 	// Scanner object to retrieve user input.
@@ -18,11 +25,14 @@ public class Project1 {
 	private boolean done;
 	// Tree that this program will implement.
 	private BinarySearchTree tree;
+	// Holds the answer of every predecessor and successor lookup.
+	private IntResult lookupResult;
 	
 	// Default constructor that assures the program is ready to start.
 	public Project1() {
 		input = new Scanner(System.in);
 		tree = new BinarySearchTree();
+		lookupResult = new IntResult();
 	}
 	
 	/*
@@ -147,14 +157,11 @@ public class Project1 {
 	 * This method is called when the user opts to insert a value into the tree.
 	 * The newValue parameter contains the desired integer value to be added into
 	 * the tree. An IllegalArgumentException with an appropriate message is thrown
-	 * when the desired value is 0 or the tree already contains the desired value.
+	 * when the tree already contains the desired value.
 	 * Otherwise the new value is added into the tree and the tree's in-order
 	 * sequence is then printed.
 	 */
 	private void insertCommand(int newValue) throws IllegalArgumentException {
-		if(newValue == 0)
-			throw new IllegalArgumentException("Cannot add a zero value into the tree.");
-		
 		if(tree.contains(newValue))
 			throw new IllegalArgumentException(newValue + " already exists in this tree.");
 		
@@ -188,17 +195,14 @@ public class Project1 {
 	 * target value has no predecessor. Otherwise the predecessor node's value is printed.
 	 */
 	private void predecessorCommand(int targetValue) throws IllegalArgumentException {
-		int predecessorData;
-		
 		if(tree.isEmpty())
 			throw new IllegalArgumentException("This tree is empty.");
 		
 		if(tree.contains(targetValue)) {
-			predecessorData = tree.getNodePredecessor(targetValue);
-			if(predecessorData == 0)
-				System.out.println(targetValue + " has no predecessor.");
+			if(tree.getNodePredecessor(targetValue, lookupResult))
+				System.out.println(lookupResult.getValue());
 			else
-				System.out.println(predecessorData);
+				System.out.println(targetValue + " has no predecessor.");
 		} else
 			throw new IllegalArgumentException(targetValue + " does not exist in this tree.");
 	}
@@ -211,24 +215,50 @@ public class Project1 {
 	 * the target value has no successor. Otherwise the successor node's value is printed.
 	 */
 	private void successorCommand(int targetValue) throws IllegalArgumentException {
-		int successorData;
-		
 		if(tree.isEmpty())
 			throw new IllegalArgumentException("This tree is empty.");
 		
 		if(tree.contains(targetValue)) {
-			successorData = tree.getNodeSuccessor(targetValue);
-			if(successorData == 0)
-				System.out.println(targetValue + " has no successor.");
+			if(tree.getNodeSuccessor(targetValue, lookupResult))
+				System.out.println(lookupResult.getValue());
 			else
-				System.out.println(successorData);
+				System.out.println(targetValue + " has no successor.");
 		} else
 			throw new IllegalArgumentException(targetValue + " does not exist in this tree.");
 	}
 	
-	// Main method for the program. Creates a new Project1 object and calls its start method.
+	/*
+	 * Runs the commands of the named file, or of standard input if the name is null, with a
+	 * BatchProcessor, writing the results to standard output. The tree keeps itself balanced,
+	 * since a command file may insert millions of values in sorted order. Its shape does not
+	 * change any result. If the commands cannot be read, the error is printed and the program
+	 * exits with a status of one.
+	 */
+	private static void runBatch(String fileName) {
+		BatchProcessor processor = new BatchProcessor(new BinarySearchTree(true));
+		
+		try(InputStream commands = (fileName != null) ? Files.newInputStream(Paths.get(fileName)) : System.in) {
+			processor.run(commands, System.out);
+		} catch(IOException ioe) {
+			System.err.println("Error: " + ioe.getMessage());
+			System.exit(1);
+		}
+	}
+	
+	/*
+	 * Main method for the program. Creates a new Project1 object and calls its start method,
+	 * unless the first argument is --batch, in which case the commands of the file named by
+	 * the second argument, or of standard input, are run instead.
+	 */
 	public static void main(String[] args) {
-		Project1 program = new Project1();
+		Project1 program;
+		
+		if(args.length > 0 && args[0].equals("--batch")) {
+			runBatch((args.length > 1) ? args[1] : null);
+			return;
+		}
+		
+		program = new Project1();
 		program.start();
 	}
 
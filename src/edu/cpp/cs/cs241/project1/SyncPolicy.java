@@ -0,0 +1,16 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This enum lists the policies a WriteAheadLog can follow for forcing the mutations logged
+ * to it onto the storage device, trading how many recent mutations a crash can lose against
+ * how many mutations can be logged per second. Each policy but EVERY_OPERATION is given a
+ * window when the log is opened.
+ */
+public enum SyncPolicy {
+	// Every mutation is forced before it returns, although mutations made together by different threads share a force.
+	EVERY_OPERATION,
+	// Mutations are forced by a background thread once every window, a number of milliseconds.
+	TIME_WINDOW,
+	// Mutations are forced once every window mutations, by the thread making the last of them.
+	SIZE_WINDOW
+}
@@ -0,0 +1,14 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This enum lists the orders in which the nodes of a binary tree can be visited
+ * when traversing it.
+ */
+public enum TraversalOrder {
+	// A node is visited before its left subtree, which is visited before its right subtree.
+	PRE_ORDER,
+	// A node is visited after its left subtree and before its right subtree.
+	IN_ORDER,
+	// A node is visited after both its left subtree and its right subtree.
+	POST_ORDER
+}
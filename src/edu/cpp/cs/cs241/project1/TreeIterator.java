@@ -0,0 +1,129 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+ * This class iterates over the data of a tree of TreeNodes in a pre-order, in-order or
+ * post-order traversal. It keeps its own stack of pending nodes instead of recursing,
+ * so a tree of any depth can be traversed, and it never boxes the data it returns.
+ * The tree must not be modified while it is being iterated over.
+ */
+class TreeIterator implements PrimitiveIterator.OfInt {
+	// Order in which this iterator visits the nodes of the tree.
+	private TraversalOrder order;
+	// Stack of nodes that are still to be visited, or whose right subtree is still to be visited.
+	private TreeNode[] stack;
+	// Number of nodes currently on the stack.
+	private int stackSize;
+	
+	/*
+	 * Constructor that creates an iterator over the tree rooted at the given root parameter,
+	 * visiting its nodes in the given order. A root of null results in an empty iteration.
+	 */
+	TreeIterator(TreeNode root, TraversalOrder order) {
+		this.order = order;
+		stack = new TreeNode[32];
+		stackSize = 0;
+		
+		if(root == null)
+			return;
+		
+		switch(order) {
+		case PRE_ORDER:
+			push(root);
+			break;
+		case IN_ORDER:
+			pushLeftSpine(root);
+			break;
+		case POST_ORDER:
+			pushFirstLeafPath(root);
+			break;
+		}
+	}
+	
+	// Returns true if there are still nodes to be visited, false otherwise.
+	@Override
+	public boolean hasNext() {
+		return stackSize > 0;
+	}
+	
+	/*
+	 * Returns the data of the next node in this iterator's traversal order.
+	 * A NoSuchElementException is thrown if every node has already been visited.
+	 */
+	@Override
+	public int nextInt() {
+		TreeNode target;
+		TreeNode parent;
+		
+		if(stackSize == 0)
+			throw new NoSuchElementException();
+		
+		target = stack[--stackSize];
+		stack[stackSize] = null;
+		
+		switch(order) {
+		case PRE_ORDER:
+			// The right child is pushed first so that the left subtree is visited first.
+			if(target.hasRightChild())
+				push(target.getRightChild());
+			if(target.hasLeftChild())
+				push(target.getLeftChild());
+			break;
+		case IN_ORDER:
+			if(target.hasRightChild())
+				pushLeftSpine(target.getRightChild());
+			break;
+		case POST_ORDER:
+			// Coming up from a left child means the parent's right subtree is visited next.
+			if(stackSize > 0) {
+				parent = stack[stackSize - 1];
+				if(parent.getLeftChild() == target && parent.hasRightChild())
+					pushFirstLeafPath(parent.getRightChild());
+			}
+			break;
+		}
+		
+		return target.getData();
+	}
+	
+	// Pushes the given node onto the stack, growing the stack if needed.
+	private void push(TreeNode node) {
+		if(stackSize == stack.length)
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		
+		stack[stackSize++] = node;
+	}
+	
+	/*
+	 * Pushes the given node and every node on the path to its leftmost child, which
+	 * is the first node of the subtree to be visited in an in-order traversal.
+	 */
+	private void pushLeftSpine(TreeNode node) {
+		TreeNode target = node;
+		
+		while(target != null) {
+			push(target);
+			target = target.getLeftChild();
+		}
+	}
+	
+	/*
+	 * Pushes the given node and every node on the path to the first node of the subtree
+	 * to be visited in a post-order traversal, preferring left children over right ones.
+	 */
+	private void pushFirstLeafPath(TreeNode node) {
+		TreeNode target = node;
+		
+		while(target != null) {
+			push(target);
+			
+			if(target.hasLeftChild())
+				target = target.getLeftChild();
+			else
+				target = target.getRightChild();
+		}
+	}
+}
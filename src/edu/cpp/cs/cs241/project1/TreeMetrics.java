@@ -0,0 +1,394 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+ * This class gathers metrics about a single BinarySearchTree: a latency histogram for each
+ * of contains, addNewNode, removeNode, getNodePredecessor and getNodeSuccessor, a histogram
+ * of the number of nodes each call to contains visits, and gauges of the tree's current
+ * height, size and root balance factor, which show whether it has degenerated. The metrics
+ * of a tree are read through BinarySearchTree.getMetrics, or through JMX once they have
+ * been registered with register.
+ *
+ * Metrics are only gathered if the system property edu.cpp.cs.cs241.project1.metrics is
+ * set to true when the JVM starts. Otherwise ENABLED is false, and since it is a static
+ * final field the JIT compiles every check of it in the tree's methods, along with the
+ * code it guards, out of existence, so a tree without metrics runs as fast as before.
+ * Counts are kept in LongAdders, so a tree shared between reading threads, such as the
+ * tree inside a ConcurrentBinarySearchTree, records its metrics without contention.
+ *
+ * The gauges are computed from the tree when they are read. The tree is not locked, so a
+ * tree being modified while they are read can give slightly inexact values. The height and
+ * root balance factor of a self-balancing tree are read off its nodes in constant time. Those
+ * of a tree that is not self-balancing can only be measured by walking every node, so they
+ * are measured together and cached until the tree is next modified: a monitoring tool
+ * polling an unchanged tree pays for one walk, but every read after a modification takes
+ * time linear in the size of the tree. The same is said in their JMX descriptions.
+ */
+public class TreeMetrics implements TreeMetricsMBean {
+	// True if trees gather metrics, read once from the system property edu.cpp.cs.cs241.project1.metrics.
+	public static final boolean ENABLED = Boolean.getBoolean("edu.cpp.cs.cs241.project1.metrics");
+	
+	// Index of the contains operation.
+	static final int CONTAINS = 0;
+	// Index of the addNewNode operation.
+	static final int ADD_NEW_NODE = 1;
+	// Index of the removeNode operation.
+	static final int REMOVE_NODE = 2;
+	// Index of the getNodePredecessor operation.
+	static final int PREDECESSOR = 3;
+	// Index of the getNodeSuccessor operation.
+	static final int SUCCESSOR = 4;
+	// Names of the operations, at their indices.
+	private static final String[] OPERATION_NAMES = {"contains", "addNewNode", "removeNode", "getNodePredecessor",
+			"getNodeSuccessor"};
+	// Number of buckets in a latency histogram, one for each power of two nanoseconds a long can hold.
+	private static final int LATENCY_BUCKETS = 64;
+	// Number of buckets in the nodes visited histogram, the last counting every lookup that visited more.
+	private static final int NODES_VISITED_BUCKETS = 65;
+	
+	// Tree the metrics are gathered for.
+	private BinarySearchTree tree;
+	// Latency histogram of each operation, at its index.
+	private LongAdder[][] latencyHistograms;
+	// Histogram of the number of nodes visited by each call to contains.
+	private LongAdder[] nodesVisitedHistogram;
+	// Total number of nodes visited by every call to contains.
+	private LongAdder totalNodesVisited;
+	// Name the metrics are registered under with JMX, or null if they are not registered.
+	private ObjectName objectName;
+	// Number of modifications of the tree, telling whether the cached shape is out of date.
+	private volatile long modifications;
+	// Height and root balance factor last measured for a tree that is not self-balancing, or null.
+	private volatile TreeShape cachedShape;
+	
+	// Constructor that creates empty metrics for the given tree.
+	TreeMetrics(BinarySearchTree tree) {
+		this.tree = tree;
+		latencyHistograms = new LongAdder[OPERATION_NAMES.length][];
+		nodesVisitedHistogram = newHistogram(NODES_VISITED_BUCKETS);
+		totalNodesVisited = new LongAdder();
+		objectName = null;
+		modifications = 0;
+		cachedShape = null;
+		
+		for(int i = 0; i < latencyHistograms.length; i++)
+			latencyHistograms[i] = newHistogram(LATENCY_BUCKETS);
+	}
+	
+	// Returns a histogram with the given number of empty buckets.
+	private static LongAdder[] newHistogram(int buckets) {
+		LongAdder[] histogram = new LongAdder[buckets];
+		
+		for(int i = 0; i < buckets; i++)
+			histogram[i] = new LongAdder();
+		
+		return histogram;
+	}
+	
+	/*
+	 * Records a call to the operation at the given index that started at the given time,
+	 * as read from System.nanoTime, and has just finished.
+	 */
+	void recordOperation(int operation, long startTime) {
+		long elapsed = System.nanoTime() - startTime;
+		
+		// The bucket is the position of the highest bit set, so zero and one share the first bucket.
+		latencyHistograms[operation][63 - Long.numberOfLeadingZeros(elapsed | 1)].increment();
+	}
+	
+	/*
+	 * Records a call to contains that started at the given time, as read from System.nanoTime,
+	 * has just finished and visited the given number of nodes.
+	 */
+	void recordLookup(long startTime, int nodesVisited) {
+		recordOperation(CONTAINS, startTime);
+		nodesVisitedHistogram[Math.min(nodesVisited, NODES_VISITED_BUCKETS - 1)].increment();
+		totalNodesVisited.add(nodesVisited);
+	}
+	
+	/*
+	 * Records that the tree has just been modified, so that its cached shape is measured
+	 * again when it is next read. A tree is only modified by one thread at a time, so the
+	 * count does not need to be incremented atomically.
+	 */
+	void recordModification() {
+		modifications++;
+	}
+	
+	/*
+	 * Registers these metrics with the platform MBean server under the name
+	 * edu.cpp.cs.cs241.project1:type=BinarySearchTree,name=<name>, so they can be read
+	 * through JMX. A JMException is thrown if they cannot be registered, such as when
+	 * other metrics are already registered under the same name.
+	 */
+	public void register(String name) throws JMException {
+		ObjectName newName = new ObjectName("edu.cpp.cs.cs241.project1:type=BinarySearchTree,name="
+				+ ObjectName.quote(name));
+		
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new DescribedTreeMetrics(this), newName);
+		objectName = newName;
+	}
+	
+	/*
+	 * Unregisters these metrics from the platform MBean server, if they are registered, so
+	 * that the server no longer keeps the tree reachable. A JMException is thrown if they
+	 * cannot be unregistered.
+	 */
+	public void unregister() throws JMException {
+		if(objectName == null)
+			return;
+		
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		objectName = null;
+	}
+	
+	// Returns the number of calls to contains recorded so far.
+	@Override
+	public long getContainsCount() {
+		return count(CONTAINS);
+	}
+	
+	// Returns the number of calls to addNewNode recorded so far.
+	@Override
+	public long getAddNewNodeCount() {
+		return count(ADD_NEW_NODE);
+	}
+	
+	// Returns the number of calls to removeNode recorded so far.
+	@Override
+	public long getRemoveNodeCount() {
+		return count(REMOVE_NODE);
+	}
+	
+	// Returns the number of calls to getNodePredecessor recorded so far.
+	@Override
+	public long getPredecessorCount() {
+		return count(PREDECESSOR);
+	}
+	
+	// Returns the number of calls to getNodeSuccessor recorded so far.
+	@Override
+	public long getSuccessorCount() {
+		return count(SUCCESSOR);
+	}
+	
+	/*
+	 * Returns the latency histogram of the named operation. An IllegalArgumentException is
+	 * thrown if there is no operation with the given name.
+	 */
+	@Override
+	public long[] latencyHistogram(String operation) {
+		return snapshot(latencyHistograms[operationIndex(operation)]);
+	}
+	
+	/*
+	 * Returns an upper bound, in nanoseconds, on the latency of the given fraction of the
+	 * calls to the named operation, being the end of the histogram bucket that fraction of
+	 * the calls falls within. An IllegalArgumentException is thrown if there is no operation
+	 * with the given name or the fraction is not between zero and one.
+	 */
+	@Override
+	public long latencyPercentile(String operation, double fraction) {
+		long[] histogram = latencyHistogram(operation);
+		long total = 0;
+		long cumulative = 0;
+		long threshold;
+		
+		if(!(fraction >= 0 && fraction <= 1))
+			throw new IllegalArgumentException("The fraction must be between 0 and 1.");
+		
+		for(long count : histogram)
+			total += count;
+		
+		if(total == 0)
+			return 0;
+		
+		threshold = Math.max(1, (long) Math.ceil(fraction * total));
+		
+		for(int i = 0; i < histogram.length; i++) {
+			cumulative += histogram[i];
+			
+			if(cumulative >= threshold)
+				return (i < 62) ? 1L << (i + 1) : Long.MAX_VALUE;
+		}
+		
+		return Long.MAX_VALUE;
+	}
+	
+	// Returns the histogram of the number of nodes visited by each call to contains.
+	@Override
+	public long[] getNodesVisitedHistogram() {
+		return snapshot(nodesVisitedHistogram);
+	}
+	
+	// Returns the mean number of nodes visited by each call to contains, or zero if there were none.
+	@Override
+	public double getMeanNodesVisited() {
+		long lookups = getContainsCount();
+		
+		return (lookups != 0) ? totalNodesVisited.sum() / (double) lookups : 0;
+	}
+	
+	/*
+	 * Returns the current height of the tree, read off its root if it is self-balancing and
+	 * otherwise measured by walking it, unless it has not been modified since it was last
+	 * measured.
+	 */
+	@Override
+	public int getHeight() {
+		TreeNode root = tree.getRootNode();
+		
+		if(!tree.isSelfBalancing())
+			return getUnbalancedShape().getHeight();
+		
+		return (root != null) ? root.getHeight() : 0;
+	}
+	
+	// Returns the current number of values in the tree, read off the size of its root.
+	@Override
+	public int getSize() {
+		TreeNode root = tree.getRootNode();
+		
+		return (root != null) ? root.getSize() : 0;
+	}
+	
+	/*
+	 * Returns the current balance factor of the root of the tree, from the heights of its
+	 * subtrees, which are read off its children if it is self-balancing and otherwise
+	 * measured by walking them, unless it has not been modified since they were last
+	 * measured. An empty tree has a balance factor of zero.
+	 */
+	@Override
+	public int getRootBalanceFactor() {
+		TreeNode root = tree.getRootNode();
+		TreeNode leftChild;
+		TreeNode rightChild;
+		
+		if(!tree.isSelfBalancing())
+			return getUnbalancedShape().getRootBalanceFactor();
+		
+		if(root == null)
+			return 0;
+		
+		leftChild = root.getLeftChild();
+		rightChild = root.getRightChild();
+		
+		return ((leftChild != null) ? leftChild.getHeight() : 0) - ((rightChild != null) ? rightChild.getHeight() : 0);
+	}
+	
+	/*
+	 * Returns the height and root balance factor of the tree, which is not self-balancing,
+	 * measuring both with one walk of the tree unless it has not been modified since they
+	 * were cached. The count of modifications is read before the walk, so a modification
+	 * made during the walk leaves the cached shape out of date rather than wrongly current.
+	 */
+	private TreeShape getUnbalancedShape() {
+		long currentModifications = modifications;
+		TreeShape shape = cachedShape;
+		TreeNode root;
+		int leftHeight;
+		int rightHeight;
+		
+		if(shape != null && shape.getModifications() == currentModifications)
+			return shape;
+		
+		root = tree.getRootNode();
+		if(root == null)
+			shape = new TreeShape(currentModifications, 0, 0);
+		else {
+			leftHeight = measureHeight(root.getLeftChild());
+			rightHeight = measureHeight(root.getRightChild());
+			shape = new TreeShape(currentModifications, 1 + Math.max(leftHeight, rightHeight), leftHeight - rightHeight);
+		}
+		
+		cachedShape = shape;
+		
+		return shape;
+	}
+	
+	// Clears every count and histogram recorded so far.
+	@Override
+	public void reset() {
+		for(LongAdder[] histogram : latencyHistograms)
+			for(LongAdder bucket : histogram)
+				bucket.reset();
+		
+		for(LongAdder bucket : nodesVisitedHistogram)
+			bucket.reset();
+		
+		totalNodesVisited.reset();
+	}
+	
+	// Returns the number of calls to the operation at the given index recorded so far.
+	private long count(int operation) {
+		long total = 0;
+		
+		for(LongAdder bucket : latencyHistograms[operation])
+			total += bucket.sum();
+		
+		return total;
+	}
+	
+	// Returns the current counts of the given histogram.
+	private static long[] snapshot(LongAdder[] histogram) {
+		long[] counts = new long[histogram.length];
+		
+		for(int i = 0; i < histogram.length; i++)
+			counts[i] = histogram[i].sum();
+		
+		return counts;
+	}
+	
+	/*
+	 * Returns the index of the operation with the given name. An IllegalArgumentException
+	 * is thrown if there is none.
+	 */
+	private static int operationIndex(String operation) {
+		for(int i = 0; i < OPERATION_NAMES.length; i++)
+			if(OPERATION_NAMES[i].equals(operation))
+				return i;
+		
+		throw new IllegalArgumentException("Unknown operation: " + operation);
+	}
+	
+	/*
+	 * Measures the height of the subtree rooted at the given root parameter with a level-order
+	 * walk, as BinarySearchTree.getHeight does. Each child is read only once, so a tree being
+	 * modified at the same time cannot make the walk fail.
+	 */
+	private static int measureHeight(TreeNode root) {
+		ArrayDeque<TreeNode> currentLevel = new ArrayDeque<TreeNode>();
+		TreeNode target;
+		TreeNode child;
+		int height = 0;
+		int levelSize;
+		
+		if(root != null)
+			currentLevel.add(root);
+		
+		while(!currentLevel.isEmpty()) {
+			height++;
+			levelSize = currentLevel.size();
+			
+			// Replace every node on this level with its children.
+			for(int i = 0; i < levelSize; i++) {
+				target = currentLevel.poll();
+				
+				child = target.getLeftChild();
+				if(child != null)
+					currentLevel.add(child);
+				
+				child = target.getRightChild();
+				if(child != null)
+					currentLevel.add(child);
+			}
+		}
+		
+		return height;
+	}
+}
@@ -0,0 +1,67 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This interface lists the attributes and operations of a TreeMetrics object that are
+ * exposed through JMX once it has been registered with TreeMetrics.register. Operations
+ * are named as in BinarySearchTree: contains, addNewNode, removeNode, getNodePredecessor
+ * and getNodeSuccessor.
+ */
+public interface TreeMetricsMBean {
+	// Returns the number of calls to contains recorded so far.
+	long getContainsCount();
+	
+	// Returns the number of calls to addNewNode recorded so far.
+	long getAddNewNodeCount();
+	
+	// Returns the number of calls to removeNode recorded so far.
+	long getRemoveNodeCount();
+	
+	// Returns the number of calls to getNodePredecessor recorded so far.
+	long getPredecessorCount();
+	
+	// Returns the number of calls to getNodeSuccessor recorded so far.
+	long getSuccessorCount();
+	
+	/*
+	 * Returns the latency histogram of the named operation, whose element i counts the calls
+	 * that took at least 2^i and less than 2^(i + 1) nanoseconds, the first also counting
+	 * calls measured at zero nanoseconds.
+	 */
+	long[] latencyHistogram(String operation);
+	
+	/*
+	 * Returns an upper bound, in nanoseconds, on the latency of the given fraction of the
+	 * calls to the named operation, such as 0.99 for the 99th percentile. Zero is returned
+	 * if no calls have been recorded.
+	 */
+	long latencyPercentile(String operation, double fraction);
+	
+	/*
+	 * Returns the histogram of the number of nodes visited by each call to contains, whose
+	 * element i counts the calls that visited i nodes, the last element also counting every
+	 * call that visited more.
+	 */
+	long[] getNodesVisitedHistogram();
+	
+	// Returns the mean number of nodes visited by each call to contains, or zero if there were none.
+	double getMeanNodesVisited();
+	
+	/*
+	 * Returns the current height of the tree. This takes time linear in the size of a tree
+	 * that is not self-balancing the first time it is read after each modification.
+	 */
+	int getHeight();
+	
+	// Returns the current number of values in the tree.
+	int getSize();
+	
+	/*
+	 * Returns the current balance factor of the root of the tree, being the height of its
+	 * left subtree minus the height of its right subtree. This takes time linear in the size
+	 * of a tree that is not self-balancing the first time it is read after each modification.
+	 */
+	int getRootBalanceFactor();
+	
+	// Clears every count and histogram recorded so far.
+	void reset();
+}
@@ -3,12 +3,19 @@ package edu.cpp.cs.cs241.project1;
 /*
  * This class represents a node that is implemented in a binary tree data structure.
  * Each node has a data value represented as an integer, as well as a left and right child
- * of type TreeNode to implement the binary tree structure.
+ * of type TreeNode to implement the binary tree structure. Each node also records the
+ * height of the subtree rooted at it, which a self-balancing tree uses to keep itself
+ * balanced, and the number of nodes in that subtree, which lets a tree find the k-th
+ * smallest value or the rank of a value without visiting every node.
  */
 public class TreeNode {
 	private int data;
 	private TreeNode leftChild;
 	private TreeNode rightChild;
+	// Height of the subtree rooted at this node, a lone leaf having a height of one.
+	private int height;
+	// Number of nodes in the subtree rooted at this node, including this node.
+	private int size;
 	
 	/*
 	 * Default constructor that creates a new TreeNode object with a data value of zero
@@ -18,6 +25,8 @@ public class TreeNode {
 		data = 0;
 		leftChild = null;
 		rightChild = null;
+		height = 1;
+		size = 1;
 	}
 	
 	/*
@@ -28,6 +37,8 @@ public class TreeNode {
 		this.data = data;
 		leftChild = null;
 		rightChild = null;
+		height = 1;
+		size = 1;
 	}
 	
 	/*
@@ -38,6 +49,8 @@ public class TreeNode {
 		this.data = data;
 		this.leftChild = leftChild;
 		this.rightChild = rightChild;
+		updateHeight();
+		updateSize();
 	}
 	
 	/*
@@ -61,6 +74,40 @@ public class TreeNode {
 		rightChild = newNode;
 	}
 	
+	/*
+	 * Sets the height of the subtree rooted at this TreeNode according to the parameter given.
+	 */
+	public void setHeight(int newHeight) {
+		height = newHeight;
+	}
+	
+	/*
+	 * Recalculates the height of this TreeNode from the heights of its children.
+	 */
+	public void updateHeight() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		height = Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	/*
+	 * Sets the number of nodes in the subtree rooted at this TreeNode according to the parameter given.
+	 */
+	public void setSize(int newSize) {
+		size = newSize;
+	}
+	
+	/*
+	 * Recalculates the number of nodes in the subtree rooted at this TreeNode from the sizes of its children.
+	 */
+	public void updateSize() {
+		int leftSize = (leftChild != null) ? leftChild.getSize() : 0;
+		int rightSize = (rightChild != null) ? rightChild.getSize() : 0;
+		
+		size = leftSize + rightSize + 1;
+	}
+	
 	/*
 	 * Gets the data of this TreeNode in the form of an integer.
 	 */
@@ -82,6 +129,31 @@ public class TreeNode {
 		return rightChild;
 	}
 	
+	/*
+	 * Gets the height of the subtree rooted at this TreeNode.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/*
+	 * Gets the number of nodes in the subtree rooted at this TreeNode, including itself.
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/*
+	 * Returns the balance factor of this TreeNode, being the height of its left subtree
+	 * minus the height of its right subtree.
+	 */
+	public int getBalanceFactor() {
+		int leftHeight = (leftChild != null) ? leftChild.getHeight() : 0;
+		int rightHeight = (rightChild != null) ? rightChild.getHeight() : 0;
+		
+		return leftHeight - rightHeight;
+	}
+	
 	/*
 	 * Returns true if this TreeNode has a left child, false otherwise.
 	 */
@@ -0,0 +1,84 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/*
+ * This class iterates over the data of a tree of TreeNodes that lies between a low and a
+ * high value, both inclusive, in ascending order. It is created with one descent from the
+ * root that pushes every node on the path to the first value in range whose data is at
+ * least the low value, so it starts in O(log n) for a balanced tree. From then on it works
+ * like an in-order TreeIterator and stops as soon as the next value exceeds the high value.
+ * The tree must not be modified while it is being iterated over.
+ */
+class TreeRangeIterator implements PrimitiveIterator.OfInt {
+	// Largest value this iterator returns.
+	private int high;
+	// Stack of nodes that are still to be visited, along with their right subtrees.
+	private TreeNode[] stack;
+	// Number of nodes currently on the stack.
+	private int stackSize;
+	
+	/*
+	 * Constructor that creates an iterator over the values from low to high of the tree rooted
+	 * at the given root parameter. A root of null, or a low greater than high, results in an
+	 * empty iteration.
+	 */
+	TreeRangeIterator(TreeNode root, int low, int high) {
+		TreeNode target = root;
+		
+		this.high = high;
+		stack = new TreeNode[32];
+		stackSize = 0;
+		
+		// Nodes below the low value are skipped along with their left subtrees.
+		while(target != null) {
+			if(target.getData() < low)
+				target = target.getRightChild();
+			else {
+				push(target);
+				target = target.getLeftChild();
+			}
+		}
+	}
+	
+	// Returns true if there are still values in range to be visited, false otherwise.
+	@Override
+	public boolean hasNext() {
+		return stackSize > 0 && stack[stackSize - 1].getData() <= high;
+	}
+	
+	/*
+	 * Returns the next value in range, in ascending order. A NoSuchElementException is
+	 * thrown if every value in range has already been visited.
+	 */
+	@Override
+	public int nextInt() {
+		TreeNode target;
+		TreeNode next;
+		
+		if(!hasNext())
+			throw new NoSuchElementException();
+		
+		target = stack[--stackSize];
+		stack[stackSize] = null;
+		next = target.getRightChild();
+		
+		// The leftmost path of the right subtree holds the values that follow the target.
+		while(next != null) {
+			push(next);
+			next = next.getLeftChild();
+		}
+		
+		return target.getData();
+	}
+	
+	// Pushes the given node onto the stack, growing the stack if needed.
+	private void push(TreeNode node) {
+		if(stackSize == stack.length)
+			stack = Arrays.copyOf(stack, stackSize * 2);
+		
+		stack[stackSize++] = node;
+	}
+}
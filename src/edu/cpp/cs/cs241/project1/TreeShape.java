@@ -0,0 +1,38 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class holds the height and root balance factor TreeMetrics measured for a tree that
+ * is not self-balancing, along with the number of modifications the tree had seen when they
+ * were measured, so that they can be reused until the tree is next modified. It is never
+ * modified, so it can be shared between threads reading the metrics.
+ */
+class TreeShape {
+	// Number of modifications of the tree when the shape was measured.
+	private final long modifications;
+	// Height of the tree.
+	private final int height;
+	// Height of the left subtree of the root minus the height of its right subtree.
+	private final int rootBalanceFactor;
+	
+	// Constructor that creates a shape out of the given measurements.
+	TreeShape(long modifications, int height, int rootBalanceFactor) {
+		this.modifications = modifications;
+		this.height = height;
+		this.rootBalanceFactor = rootBalanceFactor;
+	}
+	
+	// Returns the number of modifications of the tree when the shape was measured.
+	long getModifications() {
+		return modifications;
+	}
+	
+	// Returns the height of the tree.
+	int getHeight() {
+		return height;
+	}
+	
+	// Returns the height of the left subtree of the root minus the height of its right subtree.
+	int getRootBalanceFactor() {
+		return rootBalanceFactor;
+	}
+}
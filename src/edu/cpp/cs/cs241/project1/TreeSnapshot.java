@@ -0,0 +1,277 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+
+/*
+ * This class is a read-only view of a binary search tree that was saved to disk with
+ * BinarySearchTree.saveSnapshot. The file is mapped into memory when it is opened, and
+ * lookups are answered straight from the mapping, so a snapshot of any size is ready
+ * to use as soon as open returns, without rebuilding a tree.
+ *
+ * A snapshot file is made up of a 16 byte header followed by the tree's values in
+ * ascending order, each stored as a 4 byte big-endian integer. The header holds, in
+ * order, the magic number MAGIC, the format version VERSION, the number of values and
+ * the CRC32 checksum of the values.
+ */
+public class TreeSnapshot {
+	// Magic number at the start of every snapshot file, the characters "BSTS".
+	public static final int MAGIC = 0x42535453;
+	// Version of the snapshot format written by this class.
+	public static final int VERSION = 1;
+	// Size in bytes of the header of a snapshot file.
+	private static final int HEADER_SIZE = 16;
+	// Number of bytes buffered at a time while a snapshot is written.
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	
+	// The values of the snapshot, in ascending order.
+	private IntBuffer values;
+	// Number of values in the snapshot.
+	private int size;
+	
+	// Constructor that wraps the values of an opened snapshot.
+	private TreeSnapshot(IntBuffer values) {
+		this.values = values;
+		size = values.limit();
+	}
+	
+	/*
+	 * Opens the snapshot file at the given path and verifies its checksum. An IOException
+	 * is thrown if the file cannot be read, is not a snapshot, was written with an
+	 * unsupported version or is corrupt.
+	 */
+	public static TreeSnapshot open(Path path) throws IOException {
+		return open(path, true);
+	}
+	
+	/*
+	 * Opens the snapshot file at the given path. The header is always verified, but the
+	 * checksum, which requires reading every value once, is only verified if
+	 * verifyChecksum is true. An IOException is thrown if the file cannot be read, is not
+	 * a snapshot, was written with an unsupported version or is found to be corrupt.
+	 */
+	public static TreeSnapshot open(Path path, boolean verifyChecksum) throws IOException {
+		MappedByteBuffer mapping;
+		ByteBuffer body;
+		CRC32 checksum;
+		int count;
+		int expectedChecksum;
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_SIZE)
+				throw new IOException(path + " is too short to be a tree snapshot.");
+			
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException(path + " is too large to be a tree snapshot.");
+			
+			// The mapping stays valid after the channel is closed.
+			mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		
+		if(mapping.getInt(0) != MAGIC)
+			throw new IOException(path + " is not a tree snapshot.");
+		
+		if(mapping.getInt(4) != VERSION)
+			throw new IOException(path + " has unsupported snapshot version " + mapping.getInt(4) + ".");
+		
+		count = mapping.getInt(8);
+		expectedChecksum = mapping.getInt(12);
+		
+		if(count < 0 || (long) count * Integer.BYTES != mapping.capacity() - HEADER_SIZE)
+			throw new IOException(path + " is corrupt: its length does not match its value count.");
+		
+		body = mapping.position(HEADER_SIZE).slice();
+		
+		if(verifyChecksum) {
+			checksum = new CRC32();
+			checksum.update(body.duplicate());
+			
+			if((int) checksum.getValue() != expectedChecksum)
+				throw new IOException(path + " is corrupt: its checksum does not match.");
+		}
+		
+		return new TreeSnapshot(body.asIntBuffer());
+	}
+	
+	/*
+	 * Writes the values returned by the given iterator, which must be in ascending order,
+	 * to a snapshot file at the given path, replacing any file already there. The file is
+	 * forced to the storage device before this method returns.
+	 */
+	static void write(PrimitiveIterator.OfInt ascendingValues, Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+		CRC32 checksum = new CRC32();
+		long count = 0;
+		
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			// The header is written last, once the count and checksum are known.
+			channel.position(HEADER_SIZE);
+			
+			while(ascendingValues.hasNext()) {
+				if(!buffer.hasRemaining())
+					flush(buffer, checksum, channel);
+				
+				buffer.putInt(ascendingValues.nextInt());
+				count++;
+			}
+			
+			flush(buffer, checksum, channel);
+			
+			if(count > (Integer.MAX_VALUE - HEADER_SIZE) / Integer.BYTES)
+				throw new IOException("Too many values for a tree snapshot.");
+			
+			buffer.putInt(MAGIC).putInt(VERSION).putInt((int) count).putInt((int) checksum.getValue());
+			buffer.flip();
+			
+			// The header occupies the first bytes of the file, so each byte's file position is its buffer position.
+			while(buffer.hasRemaining())
+				channel.write(buffer, buffer.position());
+			
+			channel.force(true);
+		}
+	}
+	
+	// Writes out everything in the given buffer, adding it to the checksum, and then clears the buffer.
+	private static void flush(ByteBuffer buffer, CRC32 checksum, FileChannel channel) throws IOException {
+		buffer.flip();
+		checksum.update(buffer.duplicate());
+		
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		
+		buffer.clear();
+	}
+	
+	// Returns the number of values in this snapshot.
+	public int size() {
+		return size;
+	}
+	
+	// Returns true if this snapshot holds no values, false otherwise.
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/*
+	 * Checks whether or not the snapshot contains the given searchValue, with a binary search
+	 * over the mapped values. Returns true if it does, false otherwise.
+	 */
+	public boolean contains(int searchValue) {
+		return indexOf(searchValue) >= 0;
+	}
+	
+	/*
+	 * Gets the value immediately before the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodePredecessor(int). An integer value of zero is returned if
+	 * nodeData does not exist in this snapshot or has no predecessor.
+	 */
+	public int getNodePredecessor(int nodeData) {
+		int index = indexOf(nodeData);
+		
+		if(index <= 0)
+			return 0;
+		
+		return values.get(index - 1);
+	}
+	
+	/*
+	 * Finds the value immediately before the given nodeData and stores it in the given
+	 * result, following the same contract as BinarySearchTree.getNodePredecessor(int, IntResult).
+	 */
+	public boolean getNodePredecessor(int nodeData, IntResult result) {
+		int index = indexOf(nodeData);
+		
+		if(index <= 0) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(values.get(index - 1));
+		
+		return true;
+	}
+	
+	/*
+	 * Gets the value immediately after the given nodeData, following the same contract as
+	 * BinarySearchTree.getNodeSuccessor(int). An integer value of zero is returned if
+	 * nodeData does not exist in this snapshot or has no successor.
+	 */
+	public int getNodeSuccessor(int nodeData) {
+		int index = indexOf(nodeData);
+		
+		if(index < 0 || index == size - 1)
+			return 0;
+		
+		return values.get(index + 1);
+	}
+	
+	/*
+	 * Finds the value immediately after the given nodeData and stores it in the given
+	 * result, following the same contract as BinarySearchTree.getNodeSuccessor(int, IntResult).
+	 */
+	public boolean getNodeSuccessor(int nodeData, IntResult result) {
+		int index = indexOf(nodeData);
+		
+		if(index < 0 || index == size - 1) {
+			result.clear();
+			return false;
+		}
+		
+		result.set(values.get(index + 1));
+		
+		return true;
+	}
+	
+	// Passes every value of this snapshot to the given action, in ascending order.
+	public void forEach(IntConsumer action) {
+		for(int i = 0; i < size; i++)
+			action.accept(values.get(i));
+	}
+	
+	/*
+	 * Builds a new BinarySearchTree holding the values of this snapshot, which will keep
+	 * itself balanced if selfBalancing is true. The values are already sorted, so the tree
+	 * is bulk loaded in linear time with BinarySearchTree.fromSorted.
+	 */
+	public BinarySearchTree toBinarySearchTree(boolean selfBalancing) {
+		int[] sortedValues = new int[size];
+		
+		values.get(0, sortedValues);
+		
+		return BinarySearchTree.fromSorted(sortedValues, selfBalancing);
+	}
+	
+	/*
+	 * Returns the index of the given value within the snapshot's values, or a negative
+	 * number if it is not one of them.
+	 */
+	private int indexOf(int value) {
+		int low = 0;
+		int high = size - 1;
+		int middle;
+		int middleValue;
+		
+		while(low <= high) {
+			middle = (low + high) >>> 1;
+			middleValue = values.get(middle);
+			
+			if(middleValue < value)
+				low = middle + 1;
+			else if(middleValue > value)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		
+		return -1;
+	}
+}
@@ -0,0 +1,187 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/*
+ * This class splits the data of a tree of TreeNodes into parts that can be traversed in
+ * parallel, in ascending order. Until it is first advanced, a spliterator covers a single
+ * value, its leading node, followed by every value of one subtree. Splitting hands the
+ * leading node and the subtree's left subtree off to a new spliterator and keeps the
+ * subtree's root as the new leading node, followed by its right subtree. Every split is
+ * therefore a constant amount of work, and a balanced tree splits into halves. The sizes
+ * kept in the nodes tell every part exactly how many values it holds.
+ *
+ * Once it has been advanced, a spliterator walks its part of the tree with an explicit
+ * stack, as TreeIterator does, and can no longer be split. The tree must not be modified
+ * while it is being traversed.
+ */
+class TreeSpliterator implements Spliterator.OfInt {
+	// Node whose data alone comes before the subtree, or null if there is none.
+	private TreeNode leadingNode;
+	// Subtree whose values follow the leading node, or null if there is none.
+	private TreeNode subtree;
+	// Number of values that have not been visited yet.
+	private int remainingSize;
+	// Stack of nodes whose data, and then right subtree, are still to be visited once traversal has started.
+	private TreeNode[] stack;
+	// Number of nodes currently on the stack.
+	private int stackSize;
+	
+	/*
+	 * Constructor that creates a spliterator over the tree rooted at the given root parameter.
+	 * A root of null results in an empty traversal.
+	 */
+	TreeSpliterator(TreeNode root) {
+		this(null, root);
+	}
+	
+	// Constructor that creates a spliterator over the given leading node followed by the given subtree.
+	private TreeSpliterator(TreeNode leadingNode, TreeNode subtree) {
+		this.leadingNode = leadingNode;
+		this.subtree = subtree;
+		remainingSize = ((leadingNode != null) ? 1 : 0) + ((subtree != null) ? subtree.getSize() : 0);
+	}
+	
+	/*
+	 * Hands off the values before the subtree's root to a new spliterator, which is returned,
+	 * and keeps the rest. Null is returned if this spliterator has started its traversal or
+	 * has too few values left to split.
+	 */
+	@Override
+	public Spliterator.OfInt trySplit() {
+		TreeSpliterator prefix;
+		
+		if(stack != null)
+			return null;
+		
+		// A subtree without a left child has nothing to hand off but a leading node.
+		while(leadingNode == null && subtree != null && !subtree.hasLeftChild()) {
+			leadingNode = subtree;
+			subtree = subtree.getRightChild();
+		}
+		
+		if(subtree == null)
+			return null;
+		
+		prefix = new TreeSpliterator(leadingNode, subtree.getLeftChild());
+		leadingNode = subtree;
+		subtree = subtree.getRightChild();
+		remainingSize -= prefix.remainingSize;
+		
+		return prefix;
+	}
+	
+	/*
+	 * Passes the next value to the given action and returns true, or returns false if every
+	 * value has already been visited.
+	 */
+	@Override
+	public boolean tryAdvance(IntConsumer action) {
+		TreeNode target;
+		
+		if(stack == null)
+			startTraversal();
+		
+		if(leadingNode != null) {
+			target = leadingNode;
+			leadingNode = null;
+			remainingSize--;
+			action.accept(target.getData());
+			return true;
+		}
+		
+		if(stackSize == 0)
+			return false;
+		
+		target = stack[--stackSize];
+		stack[stackSize] = null;
+		remainingSize--;
+		
+		if(target.hasRightChild())
+			pushLeftSpine(target.getRightChild());
+		
+		action.accept(target.getData());
+		
+		return true;
+	}
+	
+	// Passes every value that has not been visited yet to the given action, in ascending order.
+	@Override
+	public void forEachRemaining(IntConsumer action) {
+		TreeNode target;
+		
+		if(stack == null)
+			startTraversal();
+		
+		remainingSize = 0;
+		
+		if(leadingNode != null) {
+			target = leadingNode;
+			leadingNode = null;
+			action.accept(target.getData());
+		}
+		
+		while(stackSize > 0) {
+			target = stack[--stackSize];
+			stack[stackSize] = null;
+			
+			if(target.hasRightChild())
+				pushLeftSpine(target.getRightChild());
+			
+			action.accept(target.getData());
+		}
+	}
+	
+	// Returns the exact number of values that have not been visited yet.
+	@Override
+	public long estimateSize() {
+		return remainingSize;
+	}
+	
+	/*
+	 * Returns the characteristics of a traversal of a binary search tree, which holds distinct
+	 * values in ascending order, and whose parts all know their exact sizes.
+	 */
+	@Override
+	public int characteristics() {
+		return Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+				| Spliterator.SIZED | Spliterator.SUBSIZED;
+	}
+	
+	// Returns null, since the values are sorted in their natural ascending order.
+	@Override
+	public Comparator<? super Integer> getComparator() {
+		return null;
+	}
+	
+	/*
+	 * Sets up the stack for traversal with the subtree's leftmost path. The leading node is
+	 * visited on its own before the stack, since its right subtree is either this
+	 * spliterator's subtree or belongs to another spliterator.
+	 */
+	private void startTraversal() {
+		stack = new TreeNode[32];
+		stackSize = 0;
+		pushLeftSpine(subtree);
+		subtree = null;
+	}
+	
+	/*
+	 * Pushes the given node and every node on the path to its leftmost child, which
+	 * is the first node of the subtree to be visited in an in-order traversal.
+	 */
+	private void pushLeftSpine(TreeNode node) {
+		TreeNode target = node;
+		
+		while(target != null) {
+			if(stackSize == stack.length)
+				stack = Arrays.copyOf(stack, stackSize * 2);
+			
+			stack[stackSize++] = target;
+			target = target.getLeftChild();
+		}
+	}
+}
@@ -0,0 +1,447 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/*
+ * This class is the write-ahead log of a DurableBinarySearchTree. Every insertion and
+ * removal made to the tree is appended to the log, which is replayed on top of the tree's
+ * last snapshot when it is opened again, so a crash loses at most the mutations that had
+ * not yet been forced to the storage device.
+ *
+ * A log file is made up of an 8 byte header, holding the magic number MAGIC and the format
+ * version VERSION, followed by any number of batches. A batch is made up of the length of
+ * its records in bytes and the CRC32 checksum of its records, followed by the records,
+ * each being the byte INSERT or REMOVE and the value, a 4 byte big-endian integer. Records
+ * are gathered in a buffer and written as one batch when the buffer is full or the log is
+ * synced, and every batch is written after the previous one.
+ *
+ * A crash can leave the last batches torn or missing, but never the batches before the last
+ * completed force. Replaying therefore stops at the first batch that is incomplete or whose
+ * checksum does not match, and the file is cut short there, dropping only mutations whose
+ * sync had not returned. Threads waiting on a sync while another thread is forcing the file
+ * are served together by the next force, so concurrent mutations share their forces. Once
+ * writing or forcing the file fails, every later sync fails too, since the file can no
+ * longer be trusted to hold what was written to it.
+ */
+class WriteAheadLog implements Closeable {
+	// Magic number at the start of every log file, the characters "BSTL".
+	static final int MAGIC = 0x4253544C;
+	// Version of the log format written by this class.
+	static final int VERSION = 1;
+	// Type of the record of an insertion.
+	static final byte INSERT = 'I';
+	// Type of the record of a removal.
+	static final byte REMOVE = 'D';
+	// Size in bytes of the header of a log file.
+	private static final int HEADER_SIZE = 8;
+	// Size in bytes of the length and checksum at the start of each batch.
+	private static final int BATCH_HEADER_SIZE = 8;
+	// Size in bytes of each record.
+	private static final int RECORD_SIZE = 5;
+	// Size in bytes of the largest batch, header included.
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	// File the log is written to, positioned at its end.
+	private FileChannel channel;
+	// Policy for forcing the file.
+	private SyncPolicy policy;
+	// Window of the policy, in milliseconds or mutations.
+	private long window;
+	// Batch being gathered, with room for its header before the records.
+	private ByteBuffer buffer;
+	// Checksum of the batch being written.
+	private CRC32 checksum;
+	// Number of records appended since the log was opened.
+	private long appendedCount;
+	// Number of appended records that have been written to the file.
+	private long writtenCount;
+	// Number of appended records that have been forced to the storage device.
+	private long syncedCount;
+	// True while a thread is forcing the file.
+	private boolean syncing;
+	// True once the log has been closed.
+	private boolean closed;
+	// First failure to write or force the file, after which the log cannot be used, or null if there was none.
+	private volatile IOException failure;
+	// Thread forcing the file once every window under the TIME_WINDOW policy, or null for the other policies.
+	private Thread flusher;
+	
+	/*
+	 * Constructor that creates a log appending to the given channel, which must be positioned
+	 * at the end of its last intact batch, and forcing it according to the given policy.
+	 */
+	private WriteAheadLog(FileChannel channel, SyncPolicy policy, long window) {
+		this.channel = channel;
+		this.policy = policy;
+		this.window = window;
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.position(BATCH_HEADER_SIZE);
+		checksum = new CRC32();
+		appendedCount = 0;
+		writtenCount = 0;
+		syncedCount = 0;
+		syncing = false;
+		closed = false;
+		failure = null;
+		flusher = null;
+		
+		if(policy == SyncPolicy.TIME_WINDOW) {
+			flusher = new Thread(this::flushPeriodically, "WriteAheadLog flusher");
+			flusher.setDaemon(true);
+			flusher.start();
+		}
+	}
+	
+	/*
+	 * Opens the log file at the given path, creating it if it does not exist, replays every
+	 * intact batch in it into the given tree and cuts off whatever follows them. The log is
+	 * then ready to append to, and forces the file according to the given policy and window,
+	 * which must be positive for every policy but EVERY_OPERATION. An IOException is thrown
+	 * if the file cannot be read or written, or is not a log.
+	 */
+	static WriteAheadLog open(Path path, SyncPolicy policy, long window, BinarySearchTree tree) throws IOException {
+		FileChannel channel;
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		long end;
+		
+		if(policy != SyncPolicy.EVERY_OPERATION && window <= 0)
+			throw new IllegalArgumentException("The window must be positive.");
+		
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		
+		try {
+			if(channel.size() < HEADER_SIZE) {
+				// A new file, or one whose creation was cut short by a crash before any batch was written.
+				header.putInt(MAGIC).putInt(VERSION).flip();
+				channel.truncate(0);
+				writeFully(channel, header, 0);
+				channel.force(true);
+				end = HEADER_SIZE;
+			} else {
+				readFully(channel, header, 0);
+				
+				if(header.getInt(0) != MAGIC)
+					throw new IOException(path + " is not a tree log.");
+				
+				if(header.getInt(4) != VERSION)
+					throw new IOException(path + " has unsupported log version " + header.getInt(4) + ".");
+				
+				end = replay(channel, tree);
+				
+				if(end < channel.size()) {
+					channel.truncate(end);
+					channel.force(true);
+				}
+			}
+			
+			channel.position(end);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		
+		return new WriteAheadLog(channel, policy, window);
+	}
+	
+	/*
+	 * Applies every intact batch of the given log file to the given tree, in order, and
+	 * returns the position just past the last of them. A batch is only applied once its
+	 * length and checksum have been checked, so it is applied either in full or not at all.
+	 */
+	private static long replay(FileChannel channel, BinarySearchTree tree) throws IOException {
+		ByteBuffer batch = ByteBuffer.allocate(BUFFER_SIZE);
+		CRC32 checksum = new CRC32();
+		long size = channel.size();
+		long position = HEADER_SIZE;
+		int length;
+		int expectedChecksum;
+		
+		while(size - position >= BATCH_HEADER_SIZE) {
+			batch.clear().limit(BATCH_HEADER_SIZE);
+			readFully(channel, batch, position);
+			length = batch.getInt(0);
+			expectedChecksum = batch.getInt(4);
+			
+			// A length that no batch could have is the start of a torn or unwritten batch.
+			if(length <= 0 || length > BUFFER_SIZE - BATCH_HEADER_SIZE || length % RECORD_SIZE != 0
+					|| length > size - position - BATCH_HEADER_SIZE)
+				break;
+			
+			batch.clear().limit(length);
+			readFully(channel, batch, position + BATCH_HEADER_SIZE);
+			checksum.reset();
+			checksum.update(batch.array(), 0, length);
+			
+			if((int) checksum.getValue() != expectedChecksum || !hasValidRecords(batch, length))
+				break;
+			
+			for(int i = 0; i < length; i += RECORD_SIZE) {
+				if(batch.get(i) == INSERT)
+					tree.addNewNode(batch.getInt(i + 1));
+				else
+					tree.removeNode(batch.getInt(i + 1));
+			}
+			
+			position += BATCH_HEADER_SIZE + length;
+		}
+		
+		return position;
+	}
+	
+	// Returns true if every one of the records in the first length bytes of the given batch has a known type.
+	private static boolean hasValidRecords(ByteBuffer batch, int length) {
+		for(int i = 0; i < length; i += RECORD_SIZE)
+			if(batch.get(i) != INSERT && batch.get(i) != REMOVE)
+				return false;
+		
+		return true;
+	}
+	
+	/*
+	 * Appends a record of the given type and value to the log and returns its sequence
+	 * number, which counts the records appended since the log was opened. The record is
+	 * only gathered in memory, unless the batch it belongs to is full and has to be written
+	 * first. It is not durable until sync or commit has been called with its sequence number.
+	 */
+	synchronized long append(byte type, int value) throws IOException {
+		if(closed)
+			throw new IOException("The log is closed.");
+		
+		if(buffer.remaining() < RECORD_SIZE)
+			writeBatch();
+		
+		buffer.put(type).putInt(value);
+		
+		return ++appendedCount;
+	}
+	
+	/*
+	 * Makes the record with the given sequence number as durable as the policy of this log
+	 * requires: it is forced under EVERY_OPERATION, and under SIZE_WINDOW if it completes a
+	 * window, along with every record before it. Under TIME_WINDOW the flusher forces it
+	 * later. An IOException is thrown if the log can no longer be written to.
+	 */
+	void commit(long sequence) throws IOException {
+		if(policy == SyncPolicy.EVERY_OPERATION || (policy == SyncPolicy.SIZE_WINDOW && sequence % window == 0))
+			sync(sequence);
+		else if(failure != null)
+			throw new IOException("The log could not be written.", failure);
+	}
+	
+	/*
+	 * Forces every record appended so far to the storage device. An IOException is thrown
+	 * if they cannot be written or forced.
+	 */
+	void sync() throws IOException {
+		long sequence;
+		
+		synchronized(this) {
+			sequence = appendedCount;
+		}
+		
+		sync(sequence);
+	}
+	
+	/*
+	 * Forces every record up to the one with the given sequence number to the storage device,
+	 * returning once they have been forced. If another thread is already forcing the file,
+	 * this waits for it to finish, and only forces the file itself if that did not cover the
+	 * record. A thread forcing the file first writes every record appended so far, so it
+	 * covers the records of every thread that appended before it.
+	 */
+	private void sync(long sequence) throws IOException {
+		long target;
+		
+		synchronized(this) {
+			try {
+				while(syncing && syncedCount < sequence)
+					wait();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the log to be forced.");
+			}
+			
+			if(syncedCount >= sequence)
+				return;
+			
+			if(failure != null)
+				throw new IOException("The log could not be written.", failure);
+			
+			writeBatch();
+			target = writtenCount;
+			syncing = true;
+		}
+		
+		// The file is forced without holding the lock, so other threads can keep appending.
+		try {
+			channel.force(false);
+		} catch(IOException e) {
+			failure = e;
+			throw e;
+		} finally {
+			synchronized(this) {
+				syncing = false;
+				
+				if(failure == null)
+					syncedCount = Math.max(syncedCount, target);
+				notifyAll();
+			}
+		}
+	}
+	
+	/*
+	 * Writes the records gathered in the buffer to the file as one batch, if there are any,
+	 * and empties the buffer. Must be called while holding the lock of this log.
+	 */
+	private void writeBatch() throws IOException {
+		int length = buffer.position() - BATCH_HEADER_SIZE;
+		
+		if(length == 0)
+			return;
+		
+		if(failure != null)
+			throw new IOException("The log could not be written.", failure);
+		
+		checksum.reset();
+		checksum.update(buffer.array(), BATCH_HEADER_SIZE, length);
+		buffer.putInt(0, length).putInt(4, (int) checksum.getValue());
+		buffer.flip();
+		
+		try {
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+		} catch(IOException e) {
+			// Part of the batch may have reached the file, so nothing can safely be written after it.
+			failure = e;
+			throw e;
+		}
+		
+		buffer.clear().position(BATCH_HEADER_SIZE);
+		writtenCount = appendedCount;
+	}
+	
+	/*
+	 * Empties the log once the tree has been saved to a snapshot that holds every record
+	 * appended so far. Every record must have been forced first, so that a crash before the
+	 * log is emptied replays all of them rather than only those that had reached the file.
+	 * An IllegalStateException is thrown, and nothing is discarded, if any has not.
+	 */
+	synchronized void truncate() throws IOException {
+		try {
+			while(syncing)
+				wait();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the log to be forced.");
+		}
+		
+		if(failure != null)
+			throw new IOException("The log could not be written.", failure);
+		
+		if(syncedCount < appendedCount)
+			throw new IllegalStateException((appendedCount - syncedCount) + " records have not been forced.");
+		
+		try {
+			channel.truncate(HEADER_SIZE);
+			channel.force(true);
+		} catch(IOException e) {
+			failure = e;
+			throw e;
+		}
+		
+		buffer.clear().position(BATCH_HEADER_SIZE);
+		writtenCount = appendedCount;
+		syncedCount = appendedCount;
+		notifyAll();
+	}
+	
+	/*
+	 * Forces every record appended so far, stops the flusher, if there is one, and closes
+	 * the file. Appending to the log afterwards throws an IOException.
+	 */
+	@Override
+	public void close() throws IOException {
+		Thread thread;
+		
+		synchronized(this) {
+			if(closed)
+				return;
+			
+			closed = true;
+			thread = flusher;
+			notifyAll();
+		}
+		
+		try {
+			if(thread != null)
+				thread.join();
+			
+			sync();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the flusher to stop.");
+		} finally {
+			channel.close();
+		}
+	}
+	
+	/*
+	 * Run by the flusher under the TIME_WINDOW policy, forcing every record appended so far
+	 * once every window until the log is closed. The flusher is never interrupted, since
+	 * interrupting a thread forcing a FileChannel closes the channel. A failure to force the
+	 * file stops it, and is thrown by the next commit.
+	 */
+	private void flushPeriodically() {
+		long deadline;
+		long remaining;
+		long sequence;
+		
+		try {
+			while(true) {
+				synchronized(this) {
+					deadline = System.currentTimeMillis() + window;
+					
+					while(!closed && (remaining = deadline - System.currentTimeMillis()) > 0)
+						wait(remaining);
+					
+					if(closed)
+						return;
+					
+					sequence = appendedCount;
+				}
+				
+				sync(sequence);
+			}
+		} catch(InterruptedException | IOException e) {
+			// The failure, if there was one, has already been recorded by sync.
+		}
+	}
+	
+	// Reads from the given channel, starting at the given position, until the given buffer is full.
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		int read;
+		
+		while(buffer.hasRemaining()) {
+			read = channel.read(buffer, position);
+			
+			if(read < 0)
+				throw new EOFException("The log ended unexpectedly.");
+			
+			position += read;
+		}
+	}
+	
+	// Writes everything in the given buffer to the given channel, starting at the given position.
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+}
@@ -0,0 +1,98 @@
+package edu.cpp.cs.cs241.project1;
+
+/*
+ * This class tests that a self-balancing BinarySearchTree stays within the height bound of
+ * an AVL tree when it is built from ascending and from descending values, the input that
+ * makes a list of a tree that does not balance itself. An AVL tree of n nodes has a height,
+ * counted in nodes as getHeight counts it, below 1.4405 * log2(n + 2) - 0.3277. Besides
+ * the height reported by the tree, the test measures the height with a walk of the tree,
+ * checks the order of the values and the height, size and balance factor of every node,
+ * and looks up every value.
+ *
+ * The test is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.BalanceTest [values]
+ * and inserts DEFAULT_VALUES values unless it is given another number.
+ */
+public class BalanceTest {
+	// Number of values inserted by default.
+	private static final int DEFAULT_VALUES = 10000000;
+	
+	// Tree being tested.
+	private BinarySearchTree tree;
+	
+	// Constructor that creates a test of an empty self-balancing tree.
+	private BalanceTest() {
+		tree = new BinarySearchTree(true);
+	}
+	
+	/*
+	 * Inserts the values from zero up to the given count, in ascending order or in
+	 * descending order, and checks the tree they make.
+	 */
+	private void run(int count, boolean ascending) {
+		int measuredHeight;
+		double bound;
+		
+		for(int i = 0; i < count; i++)
+			tree.addNewNode(ascending ? i : count - 1 - i);
+		
+		bound = 1.4405 * Math.log(count + 2.0) / Math.log(2.0) - 0.3277;
+		measuredHeight = checkNode(tree.getRootNode(), Long.MIN_VALUE, Long.MAX_VALUE);
+		
+		check(tree.size() == count, "size " + tree.size() + ", expected " + count);
+		check(tree.getHeight() == measuredHeight, "height " + tree.getHeight() + ", measured " + measuredHeight);
+		check(measuredHeight < bound, "height " + measuredHeight + " not below the AVL bound " + bound);
+		
+		for(int i = 0; i < count; i++)
+			check(tree.contains(i), "value " + i + " not found");
+		
+		System.out.println((ascending ? "Ascending" : "Descending") + ": " + count + " values, height "
+				+ measuredHeight + ", AVL bound " + String.format("%.2f", bound) + ".");
+	}
+	
+	/*
+	 * Checks that the subtree rooted at the given node holds values strictly between the
+	 * given bounds and that the height, size and balance factor of every node in it are
+	 * right. Returns the height of the subtree, walking it with recursion, which is only as
+	 * deep as the tree.
+	 */
+	private int checkNode(TreeNode node, long low, long high) {
+		int leftHeight;
+		int rightHeight;
+		int leftSize;
+		int rightSize;
+		
+		if(node == null)
+			return 0;
+		
+		check(node.getData() > low && node.getData() < high, "value " + node.getData() + " out of order");
+		leftHeight = checkNode(node.getLeftChild(), low, node.getData());
+		rightHeight = checkNode(node.getRightChild(), node.getData(), high);
+		leftSize = node.hasLeftChild() ? node.getLeftChild().getSize() : 0;
+		rightSize = node.hasRightChild() ? node.getRightChild().getSize() : 0;
+		check(node.getSize() == leftSize + rightSize + 1, "size of the subtree at " + node.getData());
+		check(node.getHeight() == Math.max(leftHeight, rightHeight) + 1, "height of the node " + node.getData());
+		check(Math.abs(leftHeight - rightHeight) <= 1, "balance factor of the node " + node.getData());
+		
+		return Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Throws an AssertionError with the given message if the given condition is false.
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+	
+	/*
+	 * Main method for the test. Builds one tree from ascending values and one from
+	 * descending values, of the given size or of DEFAULT_VALUES.
+	 */
+	public static void main(String[] args) {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_VALUES;
+		
+		new BalanceTest().run(count, true);
+		new BalanceTest().run(count, false);
+		
+		System.out.println("BalanceTest passed.");
+	}
+}
@@ -0,0 +1,456 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * This class tests that a DurableBinarySearchTree recovers every acknowledged mutation
+ * after a crash, and recovers what it can of a damaged log.
+ *
+ * The crash test starts a writer in a child JVM, which makes a deterministic sequence of
+ * insertions and removals, checkpointing now and then, and prints the number of mutations
+ * made so far each time they are certain to be durable: after every mutation under
+ * EVERY_OPERATION, which forces each one before it returns, and after a sync every
+ * ACK_INTERVAL mutations under the other policies. The child is killed with SIGKILL at a
+ * random moment, most likely in the middle of a batch, and the tree is opened again. It
+ * must hold exactly the values left by some prefix of the sequence, no shorter than the
+ * last acknowledged one and no longer than the writer could have reached.
+ *
+ * The checkpoint test reproduces a crash in the middle of a checkpoint, once the new
+ * snapshot has been saved but before the log has been emptied, with mutations that had not
+ * been forced when the checkpoint began. The snapshot and log as the crash leaves them must
+ * recover exactly the values the tree held.
+ *
+ * The damage tests write a log in this JVM and open copies of it cut short at every
+ * possible length, and copies with a single bit flipped. A cut copy must recover exactly the
+ * batches that were whole before the cut, and be cut back to them. A flipped copy must
+ * recover exactly the batches before the damaged one, its checksum catching the damage, or
+ * fail to open with an IOException if the damage is in the header.
+ *
+ * The test is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.CrashRecoveryTest [crashes]
+ * and throws an AssertionError describing the first failure it finds.
+ */
+public class CrashRecoveryTest {
+	// Crashes made by default, the writer running under each policy in turn.
+	private static final int DEFAULT_CRASHES = 6;
+	// Values are drawn from zero up to this bound, so that removals often find their value.
+	private static final int VALUE_RANGE = 1000;
+	// Mutations the writer makes between acknowledgements, except under EVERY_OPERATION.
+	private static final int ACK_INTERVAL = 100;
+	// Mutations the writer makes between checkpoints, a multiple of ACK_INTERVAL.
+	private static final int CHECKPOINT_INTERVAL = 20000;
+	// Window the writer opens its tree with under TIME_WINDOW, in milliseconds, and SIZE_WINDOW, in mutations.
+	private static final int[] WINDOWS = {0, 5, 32};
+	// Longest time the writer runs for, so that it stops if it is never killed.
+	private static final long WRITER_TIME_LIMIT = 60000;
+	// Shortest and longest time the writer is left running after its first acknowledgement, in milliseconds.
+	private static final int MIN_RUN_TIME = 200;
+	private static final int MAX_RUN_TIME = 1000;
+	// Mutations written to the log the damage tests are made on.
+	private static final int DAMAGE_MUTATIONS = 2000;
+	// Window of the log the damage tests are made on, so that it is written in batches of this many records.
+	private static final int DAMAGE_WINDOW = 16;
+	// Bit flips made by the damage tests.
+	private static final int BIT_FLIPS = 2000;
+	// Size of the header of a log file, holding its magic number and version.
+	private static final int LOG_HEADER_SIZE = 8;
+	// Size of the header of a batch, holding its length and checksum.
+	private static final int BATCH_HEADER_SIZE = 8;
+	// Size of a record, holding its type and value.
+	private static final int RECORD_SIZE = 5;
+	
+	// Directory holding the files of the test.
+	private Path directory;
+	// Random number generator choosing when to kill the writer and what to damage.
+	private Random random;
+	
+	// Constructor that creates a test keeping its files in a new temporary directory.
+	private CrashRecoveryTest(long seed) throws IOException {
+		directory = Files.createTempDirectory("crash-recovery-test");
+		random = new Random(seed);
+	}
+	
+	/*
+	 * Starts a writer under the given policy in a child JVM, kills it with SIGKILL once it
+	 * has run for a random time, and checks that the tree it leaves holds every mutation it
+	 * acknowledged.
+	 */
+	private void crash(SyncPolicy policy, long seed) throws IOException, InterruptedException {
+		Path crashDirectory = Files.createDirectory(directory.resolve("crash-" + policy + "-" + seed));
+		Path javaPath = Paths.get(System.getProperty("java.home"), "bin", "java");
+		Process writer = new ProcessBuilder(javaPath.toString(), "-classpath", System.getProperty("java.class.path"),
+				CrashRecoveryTest.class.getName(), "--writer", crashDirectory.toString(), policy.name(),
+				String.valueOf(seed)).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8));
+		long killTime = 0;
+		long acknowledged = 0;
+		String line;
+		
+		/*
+		 * Acknowledgements are read until the kill time, and then those the writer printed
+		 * before dying. The writer is killed through its handle, which sends SIGKILL on Unix
+		 * like Process.destroyForcibly but, unlike it, leaves its output open to be read.
+		 */
+		while((line = output.readLine()) != null) {
+			acknowledged = parseAcknowledgement(line, acknowledged);
+			
+			if(killTime == 0)
+				killTime = System.currentTimeMillis() + MIN_RUN_TIME + random.nextInt(MAX_RUN_TIME - MIN_RUN_TIME);
+			else if(System.currentTimeMillis() >= killTime && writer.isAlive())
+				writer.toHandle().destroyForcibly();
+		}
+		
+		writer.waitFor();
+		check(killTime != 0, "the writer under " + policy + " acknowledged nothing");
+		check(writer.exitValue() != 0, "the writer under " + policy + " stopped before it was killed");
+		
+		checkRecovered(crashDirectory, seed, acknowledged, acknowledged + ACK_INTERVAL, policy.toString());
+		System.out.println("Crash under " + policy + ": " + acknowledged + " mutations acknowledged and recovered.");
+	}
+	
+	/*
+	 * Inserts a value and forces it, then removes it and inserts another without forcing
+	 * either, and makes every step of a checkpoint but emptying the log. Copies of the
+	 * snapshot and log as a crash at that moment would leave them must open to the second
+	 * value alone: replaying the forced insertion on its own over the new snapshot would
+	 * bring back the removed value.
+	 */
+	private void crashInCheckpoint() throws IOException {
+		Path crashDirectory = Files.createDirectory(directory.resolve("checkpoint"));
+		Path copyDirectory = Files.createDirectory(directory.resolve("checkpoint-copy"));
+		DurableBinarySearchTree tree = DurableBinarySearchTree.open(crashDirectory.resolve("tree.snapshot"),
+				crashDirectory.resolve("tree.log"), SyncPolicy.SIZE_WINDOW, 1000);
+		
+		tree.addNewNode(5);
+		tree.sync();
+		tree.removeNode(5);
+		tree.addNewNode(7);
+		tree.saveCheckpointSnapshot();
+		Files.copy(crashDirectory.resolve("tree.snapshot"), copyDirectory.resolve("tree.snapshot"));
+		Files.copy(crashDirectory.resolve("tree.log"), copyDirectory.resolve("tree.log"));
+		tree.close();
+		
+		tree = DurableBinarySearchTree.open(copyDirectory.resolve("tree.snapshot"), copyDirectory.resolve("tree.log"),
+				SyncPolicy.EVERY_OPERATION, 0);
+		check(tree.size() == 1 && tree.contains(7), "crash in a checkpoint: recovered " + tree.getInOrderSequence()
+				+ ", expected 7");
+		tree.close();
+		System.out.println("Crash in a checkpoint: the unforced removal and insertion recovered.");
+	}
+	
+	/*
+	 * Opens the tree left in the given directory by a writer with the given seed and checks
+	 * that it holds the values left by some prefix of the writer's mutations whose length is
+	 * between the given bounds.
+	 */
+	private void checkRecovered(Path crashDirectory, long seed, long minimum, long maximum, String description)
+			throws IOException {
+		DurableBinarySearchTree tree = DurableBinarySearchTree.open(crashDirectory.resolve("tree.snapshot"),
+				crashDirectory.resolve("tree.log"), SyncPolicy.EVERY_OPERATION, 0);
+		boolean[] recovered = new boolean[VALUE_RANGE];
+		boolean[] expected = new boolean[VALUE_RANGE];
+		Random mutations = new Random(seed);
+		// Number of values on which the recovered tree and the prefix of the mutations disagree.
+		int differences = 0;
+		int value;
+		boolean insertion;
+		
+		for(value = 0; value < VALUE_RANGE; value++) {
+			recovered[value] = tree.contains(value);
+			differences += recovered[value] ? 1 : 0;
+		}
+		
+		check(tree.size() == differences, "the recovered tree holds values out of range");
+		tree.close();
+		
+		for(long count = 0; count <= maximum; count++) {
+			if(count >= minimum && differences == 0)
+				return;
+			
+			value = mutations.nextInt(VALUE_RANGE);
+			insertion = mutations.nextInt(10) < 6;
+			if(expected[value] != insertion) {
+				expected[value] = insertion;
+				differences += (expected[value] == recovered[value]) ? -1 : 1;
+			}
+		}
+		
+		throw new AssertionError(description + ": the recovered tree is not the result of between " + minimum
+				+ " and " + maximum + " mutations");
+	}
+	
+	/*
+	 * Writes a log of DAMAGE_MUTATIONS mutations in batches of DAMAGE_WINDOW records and
+	 * checks the recovery of copies of it cut short at every length and of copies with a
+	 * random bit flipped.
+	 */
+	private void damage() throws IOException {
+		Path original = directory.resolve("damage.log");
+		List<int[]> records = writeLog(original);
+		byte[] log = Files.readAllBytes(original);
+		// Position just past every batch of the log, and the number of records up to it.
+		List<long[]> batchEnds = findBatchEnds(log);
+		long[] lastWhole;
+		int position;
+		int bit;
+		
+		check(batchEnds.size() >= records.size() / DAMAGE_WINDOW, "the damage log has only " + batchEnds.size() + " batches");
+		
+		for(int length = 0; length <= log.length; length++) {
+			lastWhole = findLastWholeBatch(batchEnds, length);
+			checkCopy(Arrays.copyOf(log, length), records, (int) lastWhole[1], lastWhole[0],
+					"log cut to " + length + " bytes");
+		}
+		
+		for(int i = 0; i < BIT_FLIPS; i++) {
+			byte[] copy = log.clone();
+			
+			position = random.nextInt(log.length);
+			bit = random.nextInt(8);
+			copy[position] ^= 1 << bit;
+			
+			if(position < LOG_HEADER_SIZE) {
+				checkRejected(copy, "log with bit " + bit + " of byte " + position + " flipped");
+				continue;
+			}
+			
+			// The batches ending at or before the damaged byte are whole, and the one holding it is not.
+			lastWhole = findLastWholeBatch(batchEnds, position);
+			checkCopy(copy, records, (int) lastWhole[1], lastWhole[0],
+					"log with bit " + bit + " of byte " + position + " flipped");
+		}
+		
+		System.out.println("Damage: " + (log.length + 1) + " cut copies and " + BIT_FLIPS + " flipped copies of a log of "
+				+ batchEnds.size() + " batches recovered.");
+	}
+	
+	/*
+	 * Writes a log of DAMAGE_MUTATIONS mutations to the given path and returns the records
+	 * written to it, each being one for an insertion or zero for a removal, and the value.
+	 */
+	private List<int[]> writeLog(Path logPath) throws IOException {
+		DurableBinarySearchTree tree = DurableBinarySearchTree.open(directory.resolve("damage.snapshot"), logPath,
+				SyncPolicy.SIZE_WINDOW, DAMAGE_WINDOW);
+		List<int[]> records = new ArrayList<int[]>();
+		boolean[] present = new boolean[VALUE_RANGE];
+		Random mutations = new Random(0);
+		int value;
+		boolean insertion;
+		
+		for(int i = 0; i < DAMAGE_MUTATIONS; i++) {
+			value = mutations.nextInt(VALUE_RANGE);
+			insertion = mutations.nextInt(10) < 6;
+			
+			if(insertion)
+				tree.addNewNode(value);
+			else
+				tree.removeNode(value);
+			
+			// Only the mutations that change the tree are logged.
+			if(present[value] != insertion) {
+				present[value] = insertion;
+				records.add(new int[] {insertion ? 1 : 0, value});
+			}
+		}
+		
+		tree.close();
+		
+		return records;
+	}
+	
+	/*
+	 * Returns the position just past every batch of the given log, each with the number of
+	 * records from the start of the log up to it.
+	 */
+	private static List<long[]> findBatchEnds(byte[] log) {
+		ByteBuffer buffer = ByteBuffer.wrap(log);
+		List<long[]> batchEnds = new ArrayList<long[]>();
+		long records = 0;
+		int position = LOG_HEADER_SIZE;
+		int length;
+		
+		while(position + BATCH_HEADER_SIZE <= log.length) {
+			length = buffer.getInt(position);
+			position += BATCH_HEADER_SIZE + length;
+			records += length / RECORD_SIZE;
+			batchEnds.add(new long[] {position, records});
+		}
+		
+		check(position == log.length, "the damage log does not end with a whole batch");
+		
+		return batchEnds;
+	}
+	
+	/*
+	 * Returns the end of the last of the given batches that ends at or before the given
+	 * position, with the number of records up to it, or the end of the log's header and no
+	 * records if there is none.
+	 */
+	private static long[] findLastWholeBatch(List<long[]> batchEnds, long position) {
+		long[] lastWhole = {LOG_HEADER_SIZE, 0};
+		
+		for(long[] batchEnd : batchEnds) {
+			if(batchEnd[0] > position)
+				break;
+			lastWhole = batchEnd;
+		}
+		
+		return lastWhole;
+	}
+	
+	/*
+	 * Opens a tree from the given copy of a log and checks that it holds the values left by
+	 * the given number of the given records, that the log has been cut back to the given
+	 * end, and that the log can still be appended to.
+	 */
+	private void checkCopy(byte[] copy, List<int[]> records, int recordCount, long end, String description)
+			throws IOException {
+		Path snapshotPath = directory.resolve("copy.snapshot");
+		Path logPath = directory.resolve("copy.log");
+		boolean[] expected = new boolean[VALUE_RANGE];
+		DurableBinarySearchTree tree;
+		int expectedSize = 0;
+		
+		Files.write(logPath, copy);
+		
+		for(int i = 0; i < recordCount; i++)
+			expected[records.get(i)[1]] = records.get(i)[0] == 1;
+		
+		tree = DurableBinarySearchTree.open(snapshotPath, logPath, SyncPolicy.EVERY_OPERATION, 0);
+		for(int value = 0; value < VALUE_RANGE; value++) {
+			check(tree.contains(value) == expected[value], description + ": value " + value + " recovered wrongly");
+			expectedSize += expected[value] ? 1 : 0;
+		}
+		
+		check(tree.size() == expectedSize, description + ": size " + tree.size() + ", expected " + expectedSize);
+		check(Files.size(logPath) == end, description + ": log cut to " + Files.size(logPath) + ", expected " + end);
+		
+		// A value out of the range of the records, added after recovery, must survive another opening.
+		tree.addNewNode(VALUE_RANGE);
+		tree.close();
+		tree = DurableBinarySearchTree.open(snapshotPath, logPath, SyncPolicy.EVERY_OPERATION, 0);
+		check(tree.contains(VALUE_RANGE) && tree.size() == expectedSize + 1, description + ": append after recovery lost");
+		tree.close();
+		Files.delete(logPath);
+	}
+	
+	// Checks that opening a tree from the given copy of a log fails with an IOException.
+	private void checkRejected(byte[] copy, String description) throws IOException {
+		Path logPath = directory.resolve("copy.log");
+		
+		Files.write(logPath, copy);
+		
+		try {
+			DurableBinarySearchTree.open(directory.resolve("copy.snapshot"), logPath, SyncPolicy.EVERY_OPERATION, 0)
+					.close();
+		} catch(IOException e) {
+			Files.delete(logPath);
+			return;
+		}
+		
+		throw new AssertionError(description + ": opened without an error");
+	}
+	
+	// Deletes the directory of the test and everything in it.
+	private void deleteDirectory() throws IOException {
+		List<Path> paths = new ArrayList<Path>();
+		
+		Files.walk(directory).forEach(paths::add);
+		
+		// Every path comes after the directory holding it, so deleting them backwards empties each directory first.
+		for(int i = paths.size() - 1; i >= 0; i--)
+			Files.delete(paths.get(i));
+	}
+	
+	/*
+	 * Returns the number of mutations acknowledged by the given line printed by the writer,
+	 * or the given number if the line was cut short by the kill.
+	 */
+	private static long parseAcknowledgement(String line, long acknowledged) {
+		try {
+			return Math.max(acknowledged, Long.parseLong(line));
+		} catch(NumberFormatException e) {
+			return acknowledged;
+		}
+	}
+	
+	// Throws an AssertionError with the given message if the given condition is false.
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+	
+	/*
+	 * Makes the writer's mutations on the tree in the given directory under the given
+	 * policy, driven by the given seed, until it is killed or WRITER_TIME_LIMIT passes,
+	 * printing the number of mutations made each time they are acknowledged.
+	 */
+	private static void write(Path writerDirectory, SyncPolicy policy, long seed) throws IOException {
+		DurableBinarySearchTree tree = DurableBinarySearchTree.open(writerDirectory.resolve("tree.snapshot"),
+				writerDirectory.resolve("tree.log"), policy, WINDOWS[policy.ordinal()]);
+		Random mutations = new Random(seed);
+		long endTime = System.currentTimeMillis() + WRITER_TIME_LIMIT;
+		int value;
+		
+		for(long count = 1; System.currentTimeMillis() < endTime; count++) {
+			value = mutations.nextInt(VALUE_RANGE);
+			
+			if(mutations.nextInt(10) < 6)
+				tree.addNewNode(value);
+			else
+				tree.removeNode(value);
+			
+			if(count % CHECKPOINT_INTERVAL == 0)
+				tree.checkpoint();
+			
+			if(policy == SyncPolicy.EVERY_OPERATION || count % ACK_INTERVAL == 0) {
+				if(policy != SyncPolicy.EVERY_OPERATION)
+					tree.sync();
+				System.out.println(count);
+				System.out.flush();
+			}
+		}
+		
+		tree.close();
+	}
+	
+	/*
+	 * Main method for the test. Makes the given number of crashes, or DEFAULT_CRASHES, and
+	 * then the damage tests. Run with --writer, a directory, a policy and a seed, it is
+	 * instead the writer of a crash test.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		CrashRecoveryTest test;
+		int crashes;
+		
+		if(args.length > 0 && args[0].equals("--writer")) {
+			write(Paths.get(args[1]), SyncPolicy.valueOf(args[2]), Long.parseLong(args[3]));
+			return;
+		}
+		
+		crashes = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_CRASHES;
+		test = new CrashRecoveryTest(0);
+		
+		try {
+			for(int i = 0; i < crashes; i++)
+				test.crash(SyncPolicy.values()[i % SyncPolicy.values().length], i);
+			test.crashInCheckpoint();
+			test.damage();
+		} finally {
+			test.deleteDirectory();
+		}
+		
+		System.out.println("CrashRecoveryTest passed.");
+	}
+}
@@ -0,0 +1,212 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.PrimitiveIterator;
+
+/*
+ * This class tests that a BinarySearchTree that is not self-balancing can be a degenerate
+ * chain a million nodes deep, the shape ascending insertions give it, without any of its
+ * operations overflowing the call stack. Everything runs on a thread created with a stack
+ * of only STACK_SIZE bytes, far too small for a recursion as deep as the tree, so any
+ * operation that recursed once per level would fail with a StackOverflowError.
+ *
+ * Building the chain with one insertion per value would take quadratic time, since every
+ * insertion walks the whole chain. The chain is instead linked up directly out of TreeNode
+ * objects, with their heights and sizes set as the tree would set them, and only its last
+ * INSERTIONS values are added with addNewNode, each walking the full depth of the tree. The
+ * test then checks the lookups and every traversal, and removes the values again: the
+ * deepest leaf, a node in the middle, the root, every other value with removeAll, and the
+ * rest one at a time.
+ *
+ * The test is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.DeepTreeTest [depth]
+ * and builds a chain DEFAULT_DEPTH nodes deep unless it is given another depth.
+ */
+public class DeepTreeTest {
+	// Depth of the chain built by default.
+	private static final int DEFAULT_DEPTH = 1000000;
+	// Size in bytes of the stack of the thread the test runs on.
+	private static final long STACK_SIZE = 512 * 1024;
+	// Number of values at the bottom of the chain added with addNewNode.
+	private static final int INSERTIONS = 100;
+	
+	// Depth of the chain, which is also the number of values in it.
+	private int depth;
+	// Tree being tested.
+	private BinarySearchTree tree;
+	// Error thrown by the thread the test runs on, or null if it has not failed.
+	private volatile Throwable failure;
+	
+	// Constructor that creates a test of a chain of the given depth.
+	private DeepTreeTest(int depth) {
+		this.depth = depth;
+		tree = new BinarySearchTree(false);
+		failure = null;
+	}
+	
+	/*
+	 * Runs the test on a thread with a stack of STACK_SIZE bytes and waits for it. An
+	 * AssertionError is thrown if the test failed, with the error the thread threw as its
+	 * cause unless that was an AssertionError itself.
+	 */
+	private void runOnSmallStack() throws InterruptedException {
+		Thread thread = new Thread(null, this::run, "DeepTreeTest", STACK_SIZE);
+		
+		thread.setUncaughtExceptionHandler((failedThread, error) -> failure = error);
+		thread.start();
+		thread.join();
+		
+		if(failure instanceof AssertionError)
+			throw (AssertionError) failure;
+		if(failure != null)
+			throw new AssertionError("Failed on a thread with a " + STACK_SIZE + " byte stack.", failure);
+	}
+	
+	// Builds the chain, then checks its lookups and traversals and removes its values.
+	private void run() {
+		insert();
+		checkLookups();
+		checkTraversals();
+		remove();
+	}
+	
+	/*
+	 * Makes the tree a chain of the values from zero up to depth - 1, each the right child
+	 * of the one before. All but the last INSERTIONS values are linked up directly, and the
+	 * last are added with addNewNode in ascending order.
+	 */
+	private void insert() {
+		int linkedValues = Math.max(depth - INSERTIONS, 1);
+		TreeNode chain = null;
+		TreeNode node;
+		
+		tree.addNewNode(0);
+		
+		// The chain below the root is linked from the bottom up, so every node's subtree is complete first.
+		for(int i = linkedValues - 1; i >= 1; i--) {
+			node = new TreeNode(i);
+			node.setRightChild(chain);
+			node.updateHeight();
+			node.updateSize();
+			chain = node;
+		}
+		tree.getRootNode().setRightChild(chain);
+		tree.getRootNode().updateHeight();
+		tree.getRootNode().updateSize();
+		
+		for(int i = linkedValues; i < depth; i++)
+			tree.addNewNode(i);
+		// Adding a value already in the tree leaves it unchanged.
+		tree.addNewNode(depth - 1);
+		
+		check(tree.size() == depth, "size " + tree.size() + ", expected " + depth);
+		check(tree.getHeight() == depth, "height " + tree.getHeight() + ", expected " + depth);
+	}
+	
+	// Checks the lookups that walk down to the bottom of the chain.
+	private void checkLookups() {
+		IntResult result = new IntResult();
+		
+		check(tree.contains(depth - 1), "deepest value " + (depth - 1) + " not found");
+		check(!tree.contains(depth), "value " + depth + " found");
+		check(!tree.contains(-1), "value -1 found");
+		check(tree.max().getAsInt() == depth - 1, "maximum " + tree.max().getAsInt());
+		check(tree.min().getAsInt() == 0, "minimum " + tree.min().getAsInt());
+		
+		if(depth > 1) {
+			check(tree.getNodePredecessor(depth - 1) == depth - 2, "predecessor of " + (depth - 1));
+			check(tree.getNodeSuccessor(depth - 2) == depth - 1, "successor of " + (depth - 2));
+		}
+		check(!tree.getNodeSuccessor(depth - 1, result), "successor of the deepest value found");
+	}
+	
+	/*
+	 * Checks every traversal of the chain. The pre-order and in-order traversals of a chain
+	 * of right children both visit the values in ascending order, and the post-order
+	 * traversal visits them in descending order.
+	 */
+	private void checkTraversals() {
+		StringBuilder ascending = new StringBuilder();
+		StringBuilder descending = new StringBuilder();
+		int[] next = new int[1];
+		long sum = 0;
+		
+		for(int i = 0; i < depth; i++) {
+			ascending.append(i).append(' ');
+			descending.append(depth - 1 - i).append(' ');
+		}
+		
+		check(tree.getPreOrderSequence().equals(ascending.toString()), "pre-order sequence");
+		check(tree.getInOrderSequence().equals(ascending.toString()), "in-order sequence");
+		check(tree.getPostOrderSequence().equals(descending.toString()), "post-order sequence");
+		
+		next[0] = depth - 1;
+		tree.forEach(TraversalOrder.POST_ORDER, value -> check(value == next[0]--, "post-order value " + value));
+		check(next[0] == -1, "post-order traversal stopped at " + next[0]);
+		
+		for(PrimitiveIterator.OfInt iterator = tree.iterator(TraversalOrder.IN_ORDER); iterator.hasNext();)
+			sum += iterator.nextInt();
+		check(sum == (long) depth * (depth - 1) / 2, "sum " + sum + " of the in-order iterator");
+		check(tree.stream().count() == depth, "stream count " + tree.stream().count());
+	}
+	
+	/*
+	 * Removes the deepest leaf, a node from the middle of the chain and the root, then every
+	 * other value with removeAll, then the rest one at a time, checking the tree after each.
+	 * What is left after removeAll is checked with one in-order traversal, since looking up
+	 * every value of a chain would take quadratic time.
+	 */
+	private void remove() {
+		int[] evenValues = new int[(depth + 1) / 2];
+		StringBuilder expected = new StringBuilder();
+		int remaining = depth;
+		
+		tree.removeNode(depth - 1);
+		check(!tree.contains(depth - 1), "deepest value " + (depth - 1) + " not removed");
+		remaining--;
+		
+		if(depth > 2) {
+			tree.removeNode(depth / 2);
+			check(!tree.contains(depth / 2), "middle value " + (depth / 2) + " not removed");
+			remaining--;
+		}
+		
+		if(tree.contains(0)) {
+			tree.removeNode(0);
+			check(!tree.contains(0), "root value 0 not removed");
+			remaining--;
+		}
+		check(tree.size() == remaining, "size " + tree.size() + ", expected " + remaining);
+		
+		for(int i = 0; i < evenValues.length; i++)
+			evenValues[i] = 2 * i;
+		tree.removeAll(evenValues);
+		
+		for(int value = 1; value < depth; value += 2)
+			if(value != depth - 1 && !(depth > 2 && value == depth / 2))
+				expected.append(value).append(' ');
+		check(tree.getInOrderSequence().equals(expected.toString()), "in-order sequence after removeAll");
+		
+		for(int value = 1; value < depth; value += 2)
+			tree.removeNode(value);
+		check(tree.isEmpty(), "tree not empty, size " + tree.size());
+	}
+	
+	// Throws an AssertionError with the given message if the given condition is false.
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+	
+	/*
+	 * Main method for the test. Builds and tears down a chain of the given depth or of
+	 * DEFAULT_DEPTH on a thread with a small stack.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+		
+		new DeepTreeTest(depth).runOnSmallStack();
+		
+		System.out.println("DeepTreeTest passed with a chain " + depth + " nodes deep on a " + (STACK_SIZE / 1024)
+				+ "KB stack.");
+	}
+}
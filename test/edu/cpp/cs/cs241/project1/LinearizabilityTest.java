@@ -0,0 +1,389 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * This class stress tests ConcurrentBinarySearchTree and checks that every history it
+ * records is linearizable. In each round a number of threads make random insertions,
+ * removals, lookups, predecessor lookups and successor lookups of a few tracked values,
+ * each thread recording when every call started and ended and what it returned. Once the
+ * threads have stopped, the round's history is searched, as Wing and Gong's algorithm
+ * does, for an order of its calls that respects real time, meaning that a call that ended
+ * before another started comes first, and in which every call returns what it would have
+ * returned on a set used by one thread alone, ending in the values the tree then holds.
+ * Configurations of the search already found to lead nowhere are remembered, as Lowe
+ * suggests, so that the search stays fast.
+ *
+ * The whole set is checked rather than each value on its own, since a predecessor or
+ * successor depends on more than one value. The tracked values sit between two runs of
+ * values that are never modified, which make the tree deep enough for the optimistic
+ * walks to meet rotations and give every tracked value a predecessor and a successor
+ * while it is in the tree.
+ *
+ * The test is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.LinearizabilityTest [rounds [threads]]
+ * and throws an AssertionError holding the round's history if one is not linearizable.
+ */
+public class LinearizabilityTest {
+	// Rounds run by default.
+	private static final int DEFAULT_ROUNDS = 300;
+	// Threads sharing the tree by default.
+	private static final int DEFAULT_THREADS = 4;
+	// Calls made by each thread in a round.
+	private static final int CALLS_PER_THREAD = 100;
+	// Number of tracked values, from zero up, which must fit in the bits of an int.
+	private static final int TRACKED_VALUES = 8;
+	// Number of values in each of the runs below and above the tracked values.
+	private static final int FILLER_VALUES = 100;
+	// Largest value below the tracked values, the predecessor of the lowest of them.
+	private static final int LOW_FILLER = -1;
+	// Smallest value above the tracked values, the successor of the highest of them.
+	private static final int HIGH_FILLER = 100;
+	// Result recorded for a predecessor or successor lookup that found none.
+	private static final int NONE = Integer.MIN_VALUE;
+	// Kinds of call.
+	private static final int ADD = 0;
+	private static final int REMOVE = 1;
+	private static final int CONTAINS = 2;
+	private static final int PREDECESSOR = 3;
+	private static final int SUCCESSOR = 4;
+	// Names of the kinds of call, for the history printed on a failure.
+	private static final String[] CALL_NAMES = {"add", "remove", "contains", "predecessor", "successor"};
+	
+	// Tree being tested.
+	private ConcurrentBinarySearchTree tree;
+	// Number of threads sharing the tree.
+	private int threadCount;
+	// Random number generator choosing the seed of each thread.
+	private Random random;
+	// Kind of every call of the current round.
+	private int[] kinds;
+	// Value every call of the current round was made with.
+	private int[] values;
+	// Result of every call of the current round, one or zero for a lookup and a value or NONE for the others.
+	private int[] results;
+	// Time every call of the current round started at.
+	private long[] starts;
+	// Time every call of the current round ended at.
+	private long[] ends;
+	// Configurations of the search of the current round already found to lead nowhere.
+	private Set<Configuration> failures;
+	// Tracked values in the tree at the end of the current round, one bit per value.
+	private int finalState;
+	
+	// Constructor that creates a test of a tree shared by the given number of threads.
+	private LinearizabilityTest(int threadCount, long seed) {
+		tree = new ConcurrentBinarySearchTree();
+		this.threadCount = threadCount;
+		random = new Random(seed);
+		kinds = new int[threadCount * CALLS_PER_THREAD];
+		values = new int[kinds.length];
+		results = new int[kinds.length];
+		starts = new long[kinds.length];
+		ends = new long[kinds.length];
+		failures = new HashSet<Configuration>();
+		
+		for(int i = 0; i < FILLER_VALUES; i++) {
+			tree.addNewNode(LOW_FILLER - i);
+			tree.addNewNode(HIGH_FILLER + i);
+		}
+	}
+	
+	/*
+	 * Runs the given number of rounds, checking the history of each of them. Each round
+	 * starts from the tracked values the last one ended with.
+	 */
+	private void run(int rounds) throws InterruptedException {
+		int state = 0;
+		
+		for(int round = 0; round < rounds; round++) {
+			record();
+			finalState = readState();
+			check(tree.size() == 2 * FILLER_VALUES + Integer.bitCount(finalState), "size " + tree.size());
+			failures.clear();
+			
+			if(!linearize(allCalls(), kinds.length, state))
+				throw new AssertionError("The history of round " + round + " is not linearizable from "
+						+ describe(state) + " to " + describe(finalState) + ":\n" + describeHistory());
+			
+			state = finalState;
+		}
+	}
+	
+	/*
+	 * Records the history of one round, starting every thread at once so that their calls
+	 * overlap as much as they can.
+	 */
+	private void record() throws InterruptedException {
+		Thread[] threads = new Thread[threadCount];
+		CountDownLatch start = new CountDownLatch(1);
+		
+		for(int i = 0; i < threadCount; i++) {
+			threads[i] = new Thread(new Recorder(i * CALLS_PER_THREAD, random.nextLong(), start));
+			threads[i].start();
+		}
+		
+		start.countDown();
+		
+		for(Thread thread : threads)
+			thread.join();
+	}
+	
+	/*
+	 * Makes the call at the given index of the history, with a random kind and value, and
+	 * records its result and when it started and ended.
+	 */
+	private void makeCall(int index, Random callRandom, IntResult result) {
+		int kind = callRandom.nextInt(20);
+		int value = callRandom.nextInt(TRACKED_VALUES);
+		
+		// A quarter of the calls are insertions, a quarter removals and the rest lookups.
+		kind = (kind < 5) ? ADD : (kind < 10) ? REMOVE : (kind < 14) ? CONTAINS : (kind < 17) ? PREDECESSOR : SUCCESSOR;
+		kinds[index] = kind;
+		values[index] = value;
+		starts[index] = System.nanoTime();
+		
+		switch(kind) {
+		case ADD:
+			tree.addNewNode(value);
+			break;
+		case REMOVE:
+			tree.removeNode(value);
+			break;
+		case CONTAINS:
+			results[index] = tree.contains(value) ? 1 : 0;
+			break;
+		case PREDECESSOR:
+			results[index] = tree.getNodePredecessor(value, result) ? result.getValue() : NONE;
+			break;
+		default:
+			results[index] = tree.getNodeSuccessor(value, result) ? result.getValue() : NONE;
+		}
+		
+		ends[index] = System.nanoTime();
+	}
+	
+	/*
+	 * Searches for an order of the calls still to be ordered, whose indexes are the set
+	 * bits of the given array, that starts from the given state of the tracked values and
+	 * ends in the final state. A call may come next only if no call still to be ordered
+	 * ended before it started. Returns true if there is such an order, false otherwise.
+	 */
+	private boolean linearize(long[] remaining, int remainingCount, int state) {
+		long earliestEnd = Long.MAX_VALUE;
+		int nextState;
+		
+		if(remainingCount == 0)
+			return state == finalState;
+		
+		// A configuration seen before has already been searched without success, or the search would have ended.
+		if(!failures.add(new Configuration(remaining, state)))
+			return false;
+		
+		for(int i = nextCall(remaining, 0); i >= 0; i = nextCall(remaining, i + 1))
+			earliestEnd = Math.min(earliestEnd, ends[i]);
+		
+		for(int i = nextCall(remaining, 0); i >= 0; i = nextCall(remaining, i + 1)) {
+			if(starts[i] > earliestEnd)
+				continue;
+			
+			nextState = apply(i, state);
+			if(nextState < 0)
+				continue;
+			
+			remaining[i >> 6] &= ~(1L << i);
+			if(linearize(remaining, remainingCount - 1, nextState))
+				return true;
+			remaining[i >> 6] |= 1L << i;
+		}
+		
+		return false;
+	}
+	
+	/*
+	 * Returns the state of the tracked values after the call at the given index is made
+	 * on a set in the given state, or -1 if the call would not return what it returned.
+	 */
+	private int apply(int index, int state) {
+		int value = values[index];
+		boolean present = (state & 1 << value) != 0;
+		int expected;
+		
+		switch(kinds[index]) {
+		case ADD:
+			return state | 1 << value;
+		case REMOVE:
+			return state & ~(1 << value);
+		case CONTAINS:
+			expected = present ? 1 : 0;
+			break;
+		case PREDECESSOR:
+			expected = !present ? NONE : (state & ((1 << value) - 1)) != 0
+					? 31 - Integer.numberOfLeadingZeros(state & ((1 << value) - 1)) : LOW_FILLER;
+			break;
+		default:
+			expected = !present ? NONE : (state >>> (value + 1)) != 0
+					? value + 1 + Integer.numberOfTrailingZeros(state >>> (value + 1)) : HIGH_FILLER;
+		}
+		
+		return (results[index] == expected) ? state : -1;
+	}
+	
+	// Returns the index of the first call still to be ordered at or after the given index, or -1 if there is none.
+	private int nextCall(long[] remaining, int from) {
+		int word = from >> 6;
+		long bits;
+		
+		if(from >= kinds.length)
+			return -1;
+		
+		bits = remaining[word] & (-1L << from);
+		while(bits == 0) {
+			if(++word == remaining.length)
+				return -1;
+			bits = remaining[word];
+		}
+		
+		return (word << 6) + Long.numberOfTrailingZeros(bits);
+	}
+	
+	// Returns a set holding the index of every call of the round.
+	private long[] allCalls() {
+		long[] calls = new long[(kinds.length + 63) >> 6];
+		
+		for(int i = 0; i < kinds.length; i++)
+			calls[i >> 6] |= 1L << i;
+		
+		return calls;
+	}
+	
+	// Returns the tracked values the tree holds, one bit per value, read while no thread is modifying it.
+	private int readState() {
+		int state = 0;
+		
+		for(int value = 0; value < TRACKED_VALUES; value++)
+			if(tree.contains(value))
+				state |= 1 << value;
+		
+		return state;
+	}
+	
+	// Returns the tracked values of the given state as a string.
+	private static String describe(int state) {
+		StringBuilder description = new StringBuilder("{");
+		
+		for(int value = 0; value < TRACKED_VALUES; value++)
+			if((state & 1 << value) != 0)
+				description.append((description.length() > 1) ? ", " : "").append(value);
+		
+		return description.append('}').toString();
+	}
+	
+	// Returns every call of the round, one per line, in the order they started.
+	private String describeHistory() {
+		Integer[] order = new Integer[kinds.length];
+		StringBuilder history = new StringBuilder();
+		
+		for(int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (first, second) -> Long.compare(starts[first], starts[second]));
+		
+		for(int i : order) {
+			history.append(String.format("thread %d: %s(%d)", i / CALLS_PER_THREAD, CALL_NAMES[kinds[i]], values[i]));
+			if(kinds[i] >= CONTAINS)
+				history.append(" = ").append((results[i] == NONE) ? "none" : String.valueOf(results[i]));
+			history.append(String.format(" [%d, %d]%n", starts[i] - starts[order[0]], ends[i] - starts[order[0]]));
+		}
+		
+		return history.toString();
+	}
+	
+	// Throws an AssertionError with the given message if the given condition is false.
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+	
+	/*
+	 * Main method for the test. Runs the given number of rounds, or DEFAULT_ROUNDS, with
+	 * the given number of threads, or DEFAULT_THREADS.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+		int threads = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_THREADS;
+		
+		new LinearizabilityTest(threads, 0).run(rounds);
+		
+		System.out.println("LinearizabilityTest passed " + rounds + " rounds of " + threads + " threads making "
+				+ CALLS_PER_THREAD + " calls each.");
+	}
+	
+	/*
+	 * This class makes the calls of one thread in a round, recording them in the history
+	 * from the given index on.
+	 */
+	private class Recorder implements Runnable {
+		// Index of the first call of this thread in the history.
+		private int firstIndex;
+		// Random number generator choosing the calls of this thread.
+		private Random callRandom;
+		// Latch released once every thread of the round has been started.
+		private CountDownLatch start;
+		
+		// Constructor that creates a recorder of the calls from the given index on.
+		Recorder(int firstIndex, long seed, CountDownLatch start) {
+			this.firstIndex = firstIndex;
+			callRandom = new Random(seed);
+			this.start = start;
+		}
+		
+		// Waits for every thread of the round to be started, then makes and records the calls.
+		@Override
+		public void run() {
+			IntResult result = new IntResult();
+			
+			try {
+				start.await();
+			} catch(InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			
+			for(int i = 0; i < CALLS_PER_THREAD; i++)
+				makeCall(firstIndex + i, callRandom, result);
+		}
+	}
+	
+	/*
+	 * This class is a configuration of the search for an order of the calls, being the
+	 * calls still to be ordered and the state of the tracked values.
+	 */
+	private static class Configuration {
+		// Indexes of the calls still to be ordered.
+		private long[] remaining;
+		// State of the tracked values, one bit per value.
+		private int state;
+		
+		// Constructor that creates a configuration out of a copy of the given calls and the given state.
+		Configuration(long[] remaining, int state) {
+			this.remaining = remaining.clone();
+			this.state = state;
+		}
+		
+		// Returns true if the given object is a configuration of the same calls and state, false otherwise.
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Configuration && state == ((Configuration) other).state
+					&& Arrays.equals(remaining, ((Configuration) other).remaining);
+		}
+		
+		// Returns a hash code of the calls and the state of this configuration.
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(remaining) + state;
+		}
+	}
+}
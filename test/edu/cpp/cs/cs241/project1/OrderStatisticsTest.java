@@ -0,0 +1,274 @@
+package edu.cpp.cs.cs241.project1;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * This class tests size, rank, select and countInRange of BinarySearchTree against a
+ * sorted array holding the same values, which answers each of them with a binary search.
+ * Every round makes a random mix of insertions, removals and batch operations, duplicates
+ * and missing values included, on a tree that is self-balancing and one that is not, and
+ * after every change compares the answers of the tree with those of the array and checks
+ * the subtree sizes and, for the self-balancing tree, the heights and balance factors that
+ * the rotations must keep.
+ *
+ * The test is run from the directory holding the compiled classes with:
+ * 		java -classpath . edu.cpp.cs.cs241.project1.OrderStatisticsTest [rounds]
+ * and throws an AssertionError describing the first mismatch it finds.
+ */
+public class OrderStatisticsTest {
+	// Rounds run by default, each with its own seed.
+	private static final int DEFAULT_ROUNDS = 200;
+	// Operations made on each tree in a round.
+	private static final int OPERATIONS_PER_ROUND = 400;
+	// Values are drawn from zero up to this bound, so that duplicates and removals of present values are common.
+	private static final int VALUE_RANGE = 1000;
+	
+	// Tree being tested.
+	private BinarySearchTree tree;
+	// Values of the tree in ascending order, only the first count of which are in use.
+	private int[] oracle;
+	// Number of values in the oracle.
+	private int count;
+	// Random number generator driving the round.
+	private Random random;
+	
+	// Constructor that creates a test of an empty tree, self-balancing or not, driven by the given seed.
+	private OrderStatisticsTest(boolean selfBalancing, long seed) {
+		tree = new BinarySearchTree(selfBalancing);
+		oracle = new int[VALUE_RANGE + 1];
+		count = 0;
+		random = new Random(seed);
+	}
+	
+	/*
+	 * Runs one round: a random mix of single and batch insertions and removals, checking
+	 * every query against the oracle after each of them.
+	 */
+	private void run() {
+		int[] batch;
+		int value;
+		
+		for(int i = 0; i < OPERATIONS_PER_ROUND; i++) {
+			value = randomValue();
+			
+			switch(random.nextInt(10)) {
+			case 0:
+				batch = randomBatch();
+				tree.addAll(batch);
+				for(int batchValue : batch)
+					oracleAdd(batchValue);
+				break;
+			case 1:
+				batch = randomBatch();
+				tree.removeAll(batch);
+				for(int batchValue : batch)
+					oracleRemove(batchValue);
+				break;
+			case 2:
+			case 3:
+			case 4:
+			case 5:
+				tree.addNewNode(value);
+				oracleAdd(value);
+				break;
+			default:
+				tree.removeNode(value);
+				oracleRemove(value);
+			}
+			
+			checkQueries();
+		}
+	}
+	
+	/*
+	 * Runs one round of sorted insertions, which rotate a self-balancing tree at almost
+	 * every step and make a list of one that is not, followed by removals from both ends.
+	 */
+	private void runSorted() {
+		for(int value = 0; value < 300; value++) {
+			tree.addNewNode(value);
+			oracleAdd(value);
+			checkQueries();
+		}
+		
+		for(int i = 0; i < 150; i++) {
+			tree.removeNode(i);
+			oracleRemove(i);
+			tree.removeNode(299 - i);
+			oracleRemove(299 - i);
+			checkQueries();
+		}
+	}
+	
+	// Compares every query of the tree with the oracle and checks the shape of the tree.
+	private void checkQueries() {
+		int low;
+		int high;
+		int index;
+		
+		check(tree.size() == count, "size " + tree.size() + ", expected " + count);
+		check(tree.isEmpty() == (count == 0), "isEmpty with " + count + " values");
+		checkNode(tree.getRootNode(), Long.MIN_VALUE, Long.MAX_VALUE);
+		
+		for(int i = 0; i < 20; i++) {
+			low = randomQuery();
+			high = randomQuery();
+			
+			check(tree.rank(low) == oracleRank(low), "rank(" + low + ") " + tree.rank(low) + ", expected " + oracleRank(low));
+			check(tree.countInRange(low, high) == oracleCountInRange(low, high),
+					"countInRange(" + low + ", " + high + ") " + tree.countInRange(low, high) + ", expected "
+					+ oracleCountInRange(low, high));
+			
+			if(count > 0) {
+				index = random.nextInt(count);
+				check(tree.select(index) == oracle[index],
+						"select(" + index + ") " + tree.select(index) + ", expected " + oracle[index]);
+			}
+		}
+		
+		// The ends of the ranks and both sides of every bound of select.
+		if(count > 0) {
+			check(tree.select(0) == oracle[0], "select(0)");
+			check(tree.select(count - 1) == oracle[count - 1], "select(size - 1)");
+		}
+		
+		checkSelectOutOfBounds(-1);
+		checkSelectOutOfBounds(count);
+		check(tree.rank(Integer.MIN_VALUE) == 0, "rank(MIN_VALUE)");
+		check(tree.countInRange(Integer.MIN_VALUE, Integer.MAX_VALUE) == count, "countInRange of every int");
+		check(tree.countInRange(1, 0) == 0, "countInRange with low above high");
+	}
+	
+	/*
+	 * Checks that the subtree rooted at the given node holds values strictly between the
+	 * given bounds, that its size is right and, for a self-balancing tree, that its height
+	 * is right and its balance factor is at most one either way. Returns the height of the
+	 * subtree, walking it with recursion, which is only as deep as the tree.
+	 */
+	private int checkNode(TreeNode node, long low, long high) {
+		int leftHeight;
+		int rightHeight;
+		int leftSize;
+		int rightSize;
+		
+		if(node == null)
+			return 0;
+		
+		check(node.getData() > low && node.getData() < high, "value " + node.getData() + " out of order");
+		leftHeight = checkNode(node.getLeftChild(), low, node.getData());
+		rightHeight = checkNode(node.getRightChild(), node.getData(), high);
+		leftSize = node.hasLeftChild() ? node.getLeftChild().getSize() : 0;
+		rightSize = node.hasRightChild() ? node.getRightChild().getSize() : 0;
+		check(node.getSize() == leftSize + rightSize + 1, "size of the subtree at " + node.getData());
+		
+		if(tree.isSelfBalancing()) {
+			check(node.getHeight() == Math.max(leftHeight, rightHeight) + 1, "height of the node " + node.getData());
+			check(Math.abs(leftHeight - rightHeight) <= 1, "balance factor of the node " + node.getData());
+		}
+		
+		return Math.max(leftHeight, rightHeight) + 1;
+	}
+	
+	// Checks that select throws an IndexOutOfBoundsException for the given index.
+	private void checkSelectOutOfBounds(int index) {
+		try {
+			tree.select(index);
+		} catch(IndexOutOfBoundsException e) {
+			return;
+		}
+		
+		throw new AssertionError("select(" + index + ") did not throw with " + count + " values");
+	}
+	
+	// Adds the given value to the oracle, unless it is already there.
+	private void oracleAdd(int value) {
+		int index = Arrays.binarySearch(oracle, 0, count, value);
+		
+		if(index >= 0)
+			return;
+		
+		index = -(index + 1);
+		System.arraycopy(oracle, index, oracle, index + 1, count - index);
+		oracle[index] = value;
+		count++;
+	}
+	
+	// Removes the given value from the oracle, if it is there.
+	private void oracleRemove(int value) {
+		int index = Arrays.binarySearch(oracle, 0, count, value);
+		
+		if(index < 0)
+			return;
+		
+		System.arraycopy(oracle, index + 1, oracle, index, count - index - 1);
+		count--;
+	}
+	
+	// Returns the number of values in the oracle less than the given key.
+	private int oracleRank(int key) {
+		int index = Arrays.binarySearch(oracle, 0, count, key);
+		
+		return (index >= 0) ? index : -(index + 1);
+	}
+	
+	// Returns the number of values in the oracle from low to high, both inclusive.
+	private int oracleCountInRange(int low, int high) {
+		if(low > high)
+			return 0;
+		
+		// The values up to high are those below high + 1, which would overflow for MAX_VALUE.
+		return ((high == Integer.MAX_VALUE) ? count : oracleRank(high + 1)) - oracleRank(low);
+	}
+	
+	// Returns a random value to insert or remove.
+	private int randomValue() {
+		return random.nextInt(VALUE_RANGE);
+	}
+	
+	// Returns a random key to query, sometimes just outside the range of the values or at the ends of the ints.
+	private int randomQuery() {
+		switch(random.nextInt(20)) {
+		case 0:
+			return Integer.MIN_VALUE;
+		case 1:
+			return Integer.MAX_VALUE;
+		default:
+			return random.nextInt(VALUE_RANGE + 20) - 10;
+		}
+	}
+	
+	// Returns a batch of random values, with duplicates and, once the tree is nonempty, values it already holds.
+	private int[] randomBatch() {
+		int[] batch = new int[random.nextInt(60)];
+		
+		for(int i = 0; i < batch.length; i++)
+			batch[i] = (count > 0 && random.nextBoolean()) ? oracle[random.nextInt(count)] : randomValue();
+		
+		return batch;
+	}
+	
+	// Throws an AssertionError with the given message if the given condition is false.
+	private static void check(boolean condition, String message) {
+		if(!condition)
+			throw new AssertionError(message);
+	}
+	
+	/*
+	 * Main method for the test. Runs the given number of rounds, or DEFAULT_ROUNDS, on both
+	 * kinds of tree, along with a round of sorted insertions on each.
+	 */
+	public static void main(String[] args) {
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+		
+		for(int seed = 0; seed < rounds; seed++) {
+			new OrderStatisticsTest(true, seed).run();
+			new OrderStatisticsTest(false, seed).run();
+		}
+		
+		new OrderStatisticsTest(true, 0).runSorted();
+		new OrderStatisticsTest(false, 0).runSorted();
+		
+		System.out.println("OrderStatisticsTest passed " + rounds + " rounds on both kinds of tree.");
+	}
+}